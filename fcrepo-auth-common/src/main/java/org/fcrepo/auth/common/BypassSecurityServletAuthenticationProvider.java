@@ -17,6 +17,8 @@
  */
 package org.fcrepo.auth.common;
 
+import static org.fcrepo.kernel.api.FedoraSession.IDENTITY;
+
 import java.util.Map;
 
 import javax.jcr.Credentials;
@@ -28,7 +30,8 @@ import org.modeshape.jcr.security.SecurityContext;
 
 /**
  * This authentication provider will always authenticate, giving
- * complete access privileges to the session.
+ * complete access privileges to the session. The identity offered as the
+ * IDENTITY request attribute is kept as the IDENTITY session attribute.
  *
  * @author Gregory Jansen
  */
@@ -48,6 +51,10 @@ public class BypassSecurityServletAuthenticationProvider implements
             final ExecutionContext repositoryContext,
             final Map<String, Object> sessionAttributes) {
         if (credentials instanceof ServletCredentials) {
+            final Object identity = ((ServletCredentials) credentials).getRequest().getAttribute(IDENTITY);
+            if (identity != null) {
+                sessionAttributes.put(IDENTITY, identity);
+            }
             return repositoryContext
                     .with(new AnonymousAdminSecurityContext("bypassAdmin"));
         }
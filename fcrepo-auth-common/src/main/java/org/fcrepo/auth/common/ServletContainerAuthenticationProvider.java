@@ -17,6 +17,9 @@
  */
 package org.fcrepo.auth.common;
 
+import static org.fcrepo.http.commons.session.SessionPrincipalsProvider.POOLED_LOGIN;
+import static org.fcrepo.kernel.api.FedoraSession.IDENTITY;
+
 import java.security.Principal;
 import java.util.Collections;
 import java.util.HashSet;
@@ -26,6 +29,7 @@ import java.util.Set;
 import javax.jcr.Credentials;
 import javax.servlet.http.HttpServletRequest;
 
+import org.fcrepo.http.commons.session.SessionPrincipalsProvider;
 import org.modeshape.jcr.ExecutionContext;
 import org.modeshape.jcr.api.ServletCredentials;
 import org.modeshape.jcr.security.AuthenticationProvider;
@@ -41,7 +45,7 @@ import org.slf4j.LoggerFactory;
  * @author Gregory Jansen
  */
 public final class ServletContainerAuthenticationProvider implements
-        AuthenticationProvider {
+        AuthenticationProvider, SessionPrincipalsProvider {
 
     private static ServletContainerAuthenticationProvider instance = null;
 
@@ -104,11 +108,15 @@ public final class ServletContainerAuthenticationProvider implements
      * ExecutionContext with FedoraUserSecurityContext as the SecurityContext.
      * </p>
      * <p>
-     * If the authenticated user does not have the fedoraAdmin role, session attributes will be assigned in the
+     * The IDENTITY session attribute is assigned the IDENTITY attribute of the request, if any. If the
+     * authenticated user does not have the fedoraAdmin role, further session attributes will be assigned in the
      * sessionAttributes map:
      * </p>
      * <ul>
-     * <li>FEDORA_SERVLET_REQUEST will be assigned the ServletRequest instance associated with credentials.</li>
+     * <li>FEDORA_SERVLET_REQUEST will be assigned the ServletRequest instance associated with credentials, unless
+     * the session may be pooled (the request has the {@link SessionPrincipalsProvider#POOLED_LOGIN} attribute).
+     * A pooled session serves later requests, and the container recycles this one once it completes, so an
+     * authorization delegate that reads the request must be used with the read session pool disabled.</li>
      * <li>FEDORA_ALL_PRINCIPALS will be assigned the union of all principals obtained from configured
      * PrincipalProvider instances plus the authenticated user's principal; FEDORA_ALL_PRINCIPALS will be assigned the
      * singleton set containing the fad.getEveryonePrincipal() principal otherwise.</li>
@@ -127,6 +135,9 @@ public final class ServletContainerAuthenticationProvider implements
 
         final HttpServletRequest servletRequest =
                 ((ServletCredentials) credentials).getRequest();
+        if (servletRequest.getAttribute(IDENTITY) != null) {
+            sessionAttributes.put(IDENTITY, servletRequest.getAttribute(IDENTITY));
+        }
         Principal userPrincipal = servletRequest.getUserPrincipal();
 
         if (userPrincipal != null && servletRequest.isUserInRole(FEDORA_ADMIN_ROLE)) {
@@ -145,25 +156,20 @@ public final class ServletContainerAuthenticationProvider implements
             }
         }
 
+        final Set<Principal> principals = getAllPrincipals(credentials, userPrincipal);
         if (userPrincipal != null) {
             LOGGER.debug("Found user-principal: {}.", userPrincipal.getName());
 
-            sessionAttributes.put(
-                    FedoraAuthorizationDelegate.FEDORA_SERVLET_REQUEST,
-                    servletRequest);
+            if (servletRequest.getAttribute(POOLED_LOGIN) == null) {
+                sessionAttributes.put(
+                        FedoraAuthorizationDelegate.FEDORA_SERVLET_REQUEST,
+                        servletRequest);
+            }
 
             sessionAttributes.put(
                     FedoraAuthorizationDelegate.FEDORA_USER_PRINCIPAL,
                     userPrincipal);
 
-            final Set<Principal> principals = collectPrincipals(credentials);
-            principals.add(userPrincipal);
-            principals.add(fad.getEveryonePrincipal());
-
-            sessionAttributes.put(
-                    FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS,
-                    principals);
-
             LOGGER.debug("All principals: {}", principals);
 
         } else {
@@ -171,17 +177,45 @@ public final class ServletContainerAuthenticationProvider implements
 
             sessionAttributes.put(FedoraAuthorizationDelegate.FEDORA_USER_PRINCIPAL,
                     fad.getEveryonePrincipal());
-
-            sessionAttributes.put(
-                    FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS,
-                    Collections.singleton(fad.getEveryonePrincipal()));
-
         }
 
+        sessionAttributes.put(
+                FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS,
+                principals);
+
         return repositoryContext.with(new FedoraUserSecurityContext(
                 userPrincipal, fad));
     }
 
+    /**
+     * Get the principals that {@link #authenticate} assigns to FEDORA_ALL_PRINCIPALS for a request.
+     *
+     * @return the principals, or null if the authenticated user has the fedoraAdmin role and is not delegating
+     */
+    @Override
+    public Set<Principal> getSessionPrincipals(final HttpServletRequest request) {
+        final Credentials credentials = new ServletCredentials(request);
+        Principal userPrincipal = request.getUserPrincipal();
+
+        if (userPrincipal != null && request.isUserInRole(FEDORA_ADMIN_ROLE)) {
+            userPrincipal = getDelegatedPrincipal(credentials);
+            if (userPrincipal == null) {
+                return null;
+            }
+        }
+        return getAllPrincipals(credentials, userPrincipal);
+    }
+
+    private Set<Principal> getAllPrincipals(final Credentials credentials, final Principal userPrincipal) {
+        if (userPrincipal == null) {
+            return Collections.singleton(fad.getEveryonePrincipal());
+        }
+        final Set<Principal> principals = collectPrincipals(credentials);
+        principals.add(userPrincipal);
+        principals.add(fad.getEveryonePrincipal());
+        return principals;
+    }
+
     private Principal getDelegatedPrincipal(final Credentials credentials) {
         for (final PrincipalProvider provider : this.getPrincipalProviders()) {
             if (provider instanceof DelegateHeaderPrincipalProvider) {
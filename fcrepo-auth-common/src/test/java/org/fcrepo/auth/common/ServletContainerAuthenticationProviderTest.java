@@ -18,9 +18,12 @@
 package org.fcrepo.auth.common;
 
 import static org.fcrepo.auth.common.FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS;
+import static org.fcrepo.auth.common.FedoraAuthorizationDelegate.FEDORA_SERVLET_REQUEST;
 import static org.fcrepo.auth.common.ServletContainerAuthenticationProvider.FEDORA_ADMIN_ROLE;
 import static org.fcrepo.auth.common.ServletContainerAuthenticationProvider.FEDORA_USER_ROLE;
 import static org.fcrepo.auth.common.ServletContainerAuthenticationProvider.getInstance;
+import static org.fcrepo.http.commons.session.SessionPrincipalsProvider.POOLED_LOGIN;
+import static org.fcrepo.kernel.api.FedoraSession.IDENTITY;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -252,6 +255,42 @@ public class ServletContainerAuthenticationProviderTest {
         assertEquals(fad, provider.getFad());
     }
 
+    @Test
+    public void testAuthenticateKeepsRequest() {
+        final ServletContainerAuthenticationProvider provider = (ServletContainerAuthenticationProvider) getInstance();
+        provider.setFad(fad);
+        provider.setPrincipalProviders(Collections.emptySet());
+        when(principal.getName()).thenReturn("userName");
+
+        provider.authenticate(creds, "repo", "workspace", context, sessionAttributes);
+        assertEquals(request, sessionAttributes.get(FEDORA_SERVLET_REQUEST));
+    }
+
+    @Test
+    public void testPooledLoginDoesNotKeepRequest() {
+        final ServletContainerAuthenticationProvider provider = (ServletContainerAuthenticationProvider) getInstance();
+        provider.setFad(fad);
+        provider.setPrincipalProviders(Collections.emptySet());
+        when(principal.getName()).thenReturn("userName");
+        when(request.getAttribute(POOLED_LOGIN)).thenReturn(true);
+
+        provider.authenticate(creds, "repo", "workspace", context, sessionAttributes);
+        assertFalse(sessionAttributes.containsKey(FEDORA_SERVLET_REQUEST));
+        assertTrue(sessionAttributes.containsKey(FEDORA_ALL_PRINCIPALS));
+    }
+
+    @Test
+    public void testAuthenticateKeepsIdentity() {
+        final ServletContainerAuthenticationProvider provider = (ServletContainerAuthenticationProvider) getInstance();
+        provider.setFad(fad);
+        provider.setPrincipalProviders(Collections.emptySet());
+        when(principal.getName()).thenReturn("userName");
+        when(request.getAttribute(IDENTITY)).thenReturn("identity");
+
+        provider.authenticate(creds, "repo", "workspace", context, sessionAttributes);
+        assertEquals("identity", sessionAttributes.get(IDENTITY));
+    }
+
     @Test
     public void testAuthenticateWithPrincipalFactory() {
         final ServletContainerAuthenticationProvider provider =
@@ -354,4 +393,45 @@ public class ServletContainerAuthenticationProviderTest {
 
         assertTrue("Expected to find: " + fad.getEveryonePrincipal().getName(), succeeds);
     }
+    @Test
+    public void testSessionPrincipalsMatchAuthentication() {
+        final ServletContainerAuthenticationProvider provider = (ServletContainerAuthenticationProvider) getInstance();
+        provider.setFad(fad);
+
+        final Principal groupPrincipal = mock(Principal.class);
+        final HttpHeaderPrincipalProvider principalProvider = mock(HttpHeaderPrincipalProvider.class);
+        when(principalProvider.getPrincipals(any(Credentials.class))).thenReturn(Sets.newHashSet(groupPrincipal));
+        provider.setPrincipalProviders(Collections.singleton(principalProvider));
+
+        provider.authenticate(creds, "repo", "workspace", context, sessionAttributes);
+
+        assertEquals(sessionAttributes.get(FEDORA_ALL_PRINCIPALS), provider.getSessionPrincipals(request));
+        assertEquals(Sets.newHashSet(principal, groupPrincipal, everyone), provider.getSessionPrincipals(request));
+
+        provider.setPrincipalProviders(new HashSet<PrincipalProvider>());
+    }
+
+    @Test
+    public void testSessionPrincipalsForAdmins() {
+        final ServletContainerAuthenticationProvider provider = (ServletContainerAuthenticationProvider) getInstance();
+        provider.setFad(fad);
+        provider.setPrincipalProviders(Collections.singleton(delegateProvider));
+        when(request.isUserInRole(FEDORA_ADMIN_ROLE)).thenReturn(true);
+
+        assertNull("An admin session must be unrestricted", provider.getSessionPrincipals(request));
+
+        when(delegateProvider.getDelegate(any(Credentials.class))).thenReturn(delegatePrincipal);
+        assertEquals(Sets.newHashSet(delegatePrincipal, everyone), provider.getSessionPrincipals(request));
+
+        provider.setPrincipalProviders(new HashSet<PrincipalProvider>());
+    }
+
+    @Test
+    public void testSessionPrincipalsForAnonymousUsers() {
+        final ServletContainerAuthenticationProvider provider = (ServletContainerAuthenticationProvider) getInstance();
+        provider.setFad(fad);
+        when(request.getUserPrincipal()).thenReturn(null);
+
+        assertEquals(Collections.singleton(everyone), provider.getSessionPrincipals(request));
+    }
 }
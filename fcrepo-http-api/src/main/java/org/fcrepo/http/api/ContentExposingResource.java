@@ -18,6 +18,7 @@
 package org.fcrepo.http.api;
 
 
+import static java.util.Collections.emptyList;
 import static java.util.EnumSet.of;
 import static java.util.stream.Stream.concat;
 import static java.util.stream.Stream.empty;
@@ -27,22 +28,32 @@ import static javax.ws.rs.core.HttpHeaders.CONTENT_DISPOSITION;
 import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
 import static javax.ws.rs.core.HttpHeaders.LINK;
 import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM_TYPE;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 import static javax.ws.rs.core.Response.ok;
 import static javax.ws.rs.core.Response.status;
 import static javax.ws.rs.core.Response.temporaryRedirect;
+import static javax.ws.rs.core.UriBuilder.fromUri;
+import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.PARTIAL_CONTENT;
 import static javax.ws.rs.core.Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
 import static org.apache.jena.rdf.model.ResourceFactory.createProperty;
+import static org.apache.jena.rdf.model.ResourceFactory.createResource;
 import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
+import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
 import static org.apache.jena.vocabulary.RDF.type;
 
+import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_BINARY;
+import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_CONTAINER;
+import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_PAIRTREE;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_BASIC_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_DIRECT_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_INDIRECT_CONTAINER;
+import static org.apache.jena.graph.Triple.create;
 import static org.fcrepo.kernel.api.RdfLexicon.BASIC_CONTAINER;
 import static org.fcrepo.kernel.api.RdfLexicon.CONTAINER;
+import static org.fcrepo.kernel.api.RdfLexicon.CONTAINS;
 import static org.fcrepo.kernel.api.RdfLexicon.DIRECT_CONTAINER;
 import static org.fcrepo.kernel.api.RdfLexicon.INDIRECT_CONTAINER;
 import static org.fcrepo.kernel.api.RdfLexicon.LDP_NAMESPACE;
@@ -55,18 +66,23 @@ import static org.fcrepo.kernel.api.RequiredRdfContext.LDP_MEMBERSHIP;
 import static org.fcrepo.kernel.api.RequiredRdfContext.MINIMAL;
 import static org.fcrepo.kernel.api.RequiredRdfContext.PROPERTIES;
 import static org.fcrepo.kernel.api.RequiredRdfContext.SERVER_MANAGED;
+import static org.slf4j.LoggerFactory.getLogger;
 
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URLDecoder;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -76,6 +92,8 @@ import javax.inject.Inject;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.BeanParam;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
@@ -84,8 +102,10 @@ import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.riot.Lang;
@@ -96,14 +116,18 @@ import org.fcrepo.http.commons.domain.MultiPrefer;
 import org.fcrepo.http.commons.domain.PreferTag;
 import org.fcrepo.http.commons.domain.Range;
 import org.fcrepo.http.commons.domain.ldp.LdpPreferTag;
+import org.fcrepo.http.commons.responses.FileChannelStreamingOutput;
+import org.fcrepo.http.commons.responses.MultipartByteRangesStreamingOutput;
 import org.fcrepo.http.commons.responses.RangeRequestInputStream;
 import org.fcrepo.http.commons.responses.RdfNamespacedStream;
+import org.fcrepo.http.commons.responses.RepresentationCache;
 import org.fcrepo.http.commons.session.HttpSession;
 import org.fcrepo.kernel.api.RdfStream;
 import org.fcrepo.kernel.api.TripleCategory;
 import org.fcrepo.kernel.api.exception.InvalidChecksumException;
 import org.fcrepo.kernel.api.exception.MalformedRdfException;
 import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.models.ChildrenPage;
 import org.fcrepo.kernel.api.models.Container;
 import org.fcrepo.kernel.api.models.FedoraBinary;
 import org.fcrepo.kernel.api.models.FedoraResource;
@@ -113,6 +137,7 @@ import org.fcrepo.kernel.api.services.policy.StoragePolicyDecisionPoint;
 
 import org.glassfish.jersey.media.multipart.ContentDisposition;
 import org.jvnet.hk2.annotations.Optional;
+import org.slf4j.Logger;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.google.common.annotations.VisibleForTesting;
@@ -127,6 +152,8 @@ import com.google.common.annotations.VisibleForTesting;
  */
 public abstract class ContentExposingResource extends FedoraBaseResource {
 
+    private static final Logger LOGGER = getLogger(ContentExposingResource.class);
+
     public static final MediaType MESSAGE_EXTERNAL_BODY = MediaType.valueOf("message/external-body");
 
     @Context protected Request request;
@@ -140,6 +167,10 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
     @Optional
     private HttpHeaderInjector httpHeaderInject;
 
+    @Inject
+    @Optional
+    private RepresentationCache representationCache;
+
     @BeanParam
     protected MultiPrefer prefer;
 
@@ -149,6 +180,20 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
     protected FedoraResource resource;
 
+    /**
+     * The page of children to return, as issued in the rel="next" link of the previous page
+     */
+    @QueryParam("page")
+    protected String page;
+
+    /**
+     * The most inbound references to return when they are preferred; all of them if absent
+     */
+    @QueryParam("referencesLimit")
+    protected String referencesLimit;
+
+    private URI nextPage;
+
     @Inject
     protected  PathLockManager lockManager;
 
@@ -189,17 +234,83 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
             return getBinaryContent(rangeValue);
         } else {
+            final RepresentationCache.Key representationKey = getRepresentationKey(limit);
             outputStream = new RdfNamespacedStream(
                     new DefaultRdfStream(rdfStream.topic(), concat(rdfStream,
                         getResourceTriples(limit))),
-                    session.getFedoraSession().getNamespaces());
+                    session.getFedoraSession().getNamespaces(),
+                    representationCache, representationKey);
             if (prefer != null) {
                 prefer.getReturn().addResponseHeaders(servletResponse);
             }
         }
         servletResponse.addHeader("Vary", "Accept, Range, Accept-Encoding, Accept-Language");
 
-        return ok(outputStream).build();
+        // set on the response rather than the servlet so that the HTML view can follow it too
+        final Response.ResponseBuilder builder = ok(outputStream);
+        if (nextPage != null) {
+            builder.link(nextPage, "next");
+        }
+        return builder.build();
+    }
+
+    /**
+     * The number of children per page recorded in the page token.
+     *
+     * @return the page size, or -1 if no page was requested
+     */
+    protected int getPageSize() {
+        if (page == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(page.substring(0, page.indexOf('.')));
+        } catch (final NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid page: " + page, e);
+        }
+    }
+
+    /**
+     * The number of inbound references to return, independent of the number of children.
+     *
+     * @return the limit, or -1 if all inbound references were requested
+     */
+    protected int getReferencesLimit() {
+        if (referencesLimit == null) {
+            return -1;
+        }
+        try {
+            final int limit = Integer.parseInt(referencesLimit);
+            if (limit >= 0) {
+                return limit;
+            }
+        } catch (final NumberFormatException e) {
+            throw new BadRequestException("Invalid referencesLimit: " + referencesLimit, e);
+        }
+        throw new BadRequestException("Invalid referencesLimit: " + referencesLimit);
+    }
+
+    /**
+     * Read one page of containment triples, resuming from the requested page token and linking to the
+     * following page, if any. The token carries the page size so that following rel="next" keeps it.
+     */
+    private Stream<Triple> getContainmentPage(final int limit) {
+        final ChildrenPage children;
+        try {
+            children = resource().getChildren(page == null ? null : page.substring(page.indexOf('.') + 1), limit);
+        } catch (final IllegalArgumentException e) {
+            throw new BadRequestException("Invalid page: " + page, e);
+        }
+        if (children.getNextCursor() != null) {
+            nextPage = fromUri(uriInfo.getRequestUri())
+                    .replaceQueryParam("page", limit + "." + children.getNextCursor()).build();
+        }
+        if (page != null || nextPage != null) {
+            servletResponse.addHeader(LINK, "<" + LDP_NAMESPACE + "Page>;rel=\"type\"");
+        }
+        final Node subject = asNode(resource());
+        return children.getChildren().stream()
+                .map(child -> create(subject, CONTAINS.asNode(), asNode(child.getDescribedResource())));
     }
 
     protected boolean isExternalBody(final MediaType mediaType) {
@@ -213,6 +324,41 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
         return getResourceTriples(-1);
     }
 
+    private PreferTag getReturnPreference() {
+        if (prefer != null && prefer.hasReturn()) {
+            return prefer.getReturn();
+        } else if (prefer != null && prefer.hasHandling()) {
+            return prefer.getHandling();
+        }
+        return PreferTag.emptyTag();
+    }
+
+    /**
+     * Identify the representation being served, so that it can be answered from the representation cache. Inbound
+     * references do not change the ETag of the resource they point to, and a batch session sees uncommitted
+     * state, so neither is cached.
+     *
+     * @param limit is the number of child resources returned in the response, -1 for all
+     * @return the key of the representation, or null if it should not be cached
+     */
+    private RepresentationCache.Key getRepresentationKey(final int limit) {
+        if (representationCache == null || session.isBatchSession() || resource().hasType(FEDORA_PAIRTREE)) {
+            return null;
+        }
+        // the representation may only be served to sessions that are authorized identically
+        final Object principals = session.getIdentity();
+        if (principals == null) {
+            return null;
+        }
+        final PreferTag returnPreference = getReturnPreference();
+        if (new LdpPreferTag(returnPreference).prefersReferences()) {
+            return null;
+        }
+        final String variant = uriInfo.getRequestUri() + " " + returnPreference.getValue() + " "
+                + returnPreference.getParams() + " " + limit;
+        return new RepresentationCache.Key(resource().getPath(), resource().getEtagValue(), principals, variant);
+    }
+
     /**
      * This method returns a stream of RDF triples associated with this target resource
      *
@@ -224,15 +370,7 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
         if (resource() instanceof NonRdfSourceDescription) {
             resource = resource().getDescribedResource();
         }
-        final PreferTag returnPreference;
-
-        if (prefer != null && prefer.hasReturn()) {
-            returnPreference = prefer.getReturn();
-        } else if (prefer != null && prefer.hasHandling()) {
-            returnPreference = prefer.getHandling();
-        } else {
-            returnPreference = PreferTag.emptyTag();
-        }
+        final PreferTag returnPreference = getReturnPreference();
 
         final LdpPreferTag ldpPreferences = new LdpPreferTag(returnPreference);
 
@@ -261,7 +399,7 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
                 if (limit == -1) {
                     streams.add(getTriples(LDP_CONTAINMENT));
                 } else {
-                    streams.add(getTriples(LDP_CONTAINMENT).limit(limit));
+                    streams.add(getContainmentPage(limit));
                 }
             }
 
@@ -272,7 +410,12 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
             // Include inbound references to this object
             if (ldpPreferences.prefersReferences()) {
-                streams.add(getTriples(INBOUND_REFERENCES));
+                final int references = getReferencesLimit();
+                if (references == -1) {
+                    streams.add(getTriples(INBOUND_REFERENCES));
+                } else {
+                    streams.add(getTriples(INBOUND_REFERENCES).limit(references));
+                }
             }
 
             // Embed the children of this object
@@ -313,52 +456,89 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
             cc.setMustRevalidate(true);
             Response.ResponseBuilder builder;
 
-            if (rangeValue != null && rangeValue.startsWith("bytes")) {
+            final List<Range> ranges = rangeValue == null ? emptyList() : Range.convertAll(rangeValue);
+            String mediaType = binary.getMimeType();
 
-                final Range range = Range.convert(rangeValue);
+            if (!ranges.isEmpty()) {
 
                 final long contentSize = binary.getContentSize();
 
-                final String endAsString;
+                // ranges that overlap or abut are served as one
+                final List<Range> resolved = Range.coalesce(ranges.stream().map(range -> range.resolve(contentSize))
+                        .filter(Objects::nonNull).collect(Collectors.toList()));
 
-                if (range.end() == -1) {
-                    endAsString = Long.toString(contentSize - 1);
-                } else {
-                    endAsString = Long.toString(range.end());
-                }
-
-                final String contentRangeValue =
-                        String.format("bytes %s-%s/%s", range.start(),
-                                endAsString, contentSize);
-
-                if (range.end() > contentSize ||
-                        (range.end() == -1 && range.start() > contentSize)) {
+                if (resolved.isEmpty()) {
 
                     builder = status(REQUESTED_RANGE_NOT_SATISFIABLE)
-                            .header("Content-Range", contentRangeValue);
+                            .header("Content-Range", "bytes */" + contentSize);
+                } else if (resolved.size() == 1) {
+                    final Range range = resolved.get(0);
+                    Object rangeContent = fileContent(binary, range.start(), range.size());
+                    if (rangeContent == null) {
+                        rangeContent = new RangeRequestInputStream(binary.getContent(), range.start(), range.size());
+                    }
+
+                    builder = status(PARTIAL_CONTENT).entity(rangeContent)
+                            .header("Content-Range", range.contentRange(contentSize));
                 } else {
-                    @SuppressWarnings("resource")
-                    final RangeRequestInputStream rangeInputStream =
-                            new RangeRequestInputStream(binary.getContent(), range.start(), range.size());
-
-                    builder = status(PARTIAL_CONTENT).entity(rangeInputStream)
-                            .header("Content-Range", contentRangeValue);
+                    final MultipartByteRangesStreamingOutput parts =
+                            multipartContent(binary, resolved, contentSize);
+                    mediaType = parts.getMediaType().toString();
+                    builder = status(PARTIAL_CONTENT).entity(parts);
                 }
 
             } else {
-                @SuppressWarnings("resource")
-                final InputStream content = binary.getContent();
-                builder = ok(content);
+                final Object content = fileContent(binary, 0, -1);
+                builder = ok(content == null ? binary.getContent() : content);
             }
 
 
             // we set the content-type explicitly to avoid content-negotiation from getting in the way
-            return builder.type(binary.getMimeType())
+            return builder.type(mediaType)
                     .cacheControl(cc)
                     .build();
 
         }
 
+    /**
+     * Read a binary straight from the file in which it is stored, where there is one, so that ranges are
+     * served by position rather than by skipping through the content.
+     *
+     * @param binary the binary
+     * @param start the offset of the first byte
+     * @param size the number of bytes, or -1 for the rest of the content
+     * @return the content, or null if it should be read as a stream instead
+     */
+    private static StreamingOutput fileContent(final FedoraBinary binary, final long start, final long size) {
+        final File file = binary.getContentFile();
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new FileChannelStreamingOutput(file, start, size);
+        } catch (final IOException e) {
+            LOGGER.debug("Could not open {}, reading it as a stream instead: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read several ranges of a binary in one pass, from the file in which it is stored where there is one.
+     */
+    private static MultipartByteRangesStreamingOutput multipartContent(final FedoraBinary binary,
+            final List<Range> ranges, final long contentSize) {
+        final File file = binary.getContentFile();
+        if (file != null) {
+            try {
+                return new MultipartByteRangesStreamingOutput(ranges, contentSize, binary.getMimeType(), file);
+            } catch (final IOException e) {
+                LOGGER.debug("Could not open {}, reading it as a stream instead: {}", file, e.getMessage());
+            }
+        }
+        return new MultipartByteRangesStreamingOutput(ranges, contentSize, binary.getMimeType(),
+                binary.getContent());
+    }
+
     protected RdfStream getTriples(final Set<? extends TripleCategory> x) {
         return getTriples(resource(), x);
     }
@@ -590,6 +770,100 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
         }
     }
 
+    /**
+     * Determine whether a request body describes a binary or a container
+     *
+     * @param requestContentType the media type of the body, or null if there is no body
+     * @param contentDisposition the content disposition of the body
+     * @return FEDORA_BINARY or FEDORA_CONTAINER
+     */
+    static String getRequestedObjectType(final MediaType requestContentType,
+                                          final ContentDisposition contentDisposition) {
+
+        if (requestContentType != null) {
+            final String s = requestContentType.toString();
+            if (!s.equals(contentTypeSPARQLUpdate) && !isRdfContentType(s) || s.equals(TEXT_PLAIN)) {
+                return FEDORA_BINARY;
+            }
+        }
+
+        if (contentDisposition != null && contentDisposition.getType().equals("attachment")) {
+            return FEDORA_BINARY;
+        }
+
+        return FEDORA_CONTAINER;
+    }
+
+    /**
+     * Create a new resource, of the type that the request body describes, at a path on which the
+     * caller holds the write lock
+     *
+     * @param path the path of the new resource
+     * @param requestContentType the media type of the body, or null if there is no body
+     * @param contentDisposition the content disposition of the body
+     * @return the new resource
+     * @throws ClientErrorException if a resource was created at the path by another request
+     */
+    protected FedoraResource createFedoraResource(final String path,
+                                                  final MediaType requestContentType,
+                                                  final ContentDisposition contentDisposition) {
+        if (nodeService.exists(session.getFedoraSession(), path)) {
+            throw new ClientErrorException("Resource " + path + " was created by another request", CONFLICT);
+        }
+
+        final String objectType = getRequestedObjectType(requestContentType, contentDisposition);
+
+        final FedoraResource result;
+
+        if (objectType.equals(FEDORA_BINARY)) {
+            result = binaryService.findOrCreate(session.getFedoraSession(), path);
+        } else {
+            result = containerService.findOrCreate(session.getFedoraSession(), path);
+        }
+
+        return result;
+    }
+
+    /**
+     * Mint the path of a new child of a container, from the slug if one is proffered and no
+     * resource exists there, or from the pid minter otherwise
+     *
+     * @param parent the external URI of the container
+     * @param slug the proffered identifier, or null
+     * @return the internal path of the new child
+     */
+    protected String mintNewPid(final URI parent, final String slug) {
+        String pid;
+
+        if (slug != null && !slug.isEmpty()) {
+            pid = slug;
+        } else if (pidMinter != null) {
+            pid = pidMinter.get();
+        } else {
+            pid = defaultPidMinter.get();
+        }
+        // reverse translate the proffered or created identifier
+        LOGGER.trace("Using external identifier {} to create new resource.", pid);
+
+        final URI newResourceUri = fromUri(parent).path(FedoraLdp.class)
+                .resolveTemplate("path", pid, false).build();
+
+        pid = translator().asString(createResource(newResourceUri.toString()));
+        try {
+            pid = URLDecoder.decode(pid, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            // noop
+        }
+        LOGGER.trace("Using internal identifier {} to create new resource.", pid);
+
+        if (nodeService.exists(session.getFedoraSession(), pid)) {
+            LOGGER.trace("Resource with path {} already exists; minting new path instead", pid);
+            return mintNewPid(parent, null);
+        }
+
+        return pid;
+    }
+
     protected static MediaType getSimpleContentType(final MediaType requestContentType) {
         return requestContentType != null ? new MediaType(requestContentType.getType(), requestContentType.getSubtype())
                 : APPLICATION_OCTET_STREAM_TYPE;
@@ -18,12 +18,18 @@
 
 package org.fcrepo.http.api;
 
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -32,8 +38,10 @@ import org.fcrepo.kernel.api.FedoraSession;
 import org.fcrepo.kernel.api.exception.InterruptedRuntimeException;
 import org.fcrepo.kernel.api.services.NodeService;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 
 /**
@@ -46,6 +54,17 @@ import com.google.common.annotations.VisibleForTesting;
  * Because this is very complex code, extensive logging is produced at
  * the TRACE level.
  *
+ * When two-phase write locking is enabled, lockForWrite determines which
+ * ancestral paths must be locked (because they do not yet exist) without
+ * holding the monitor of this class, then acquires those locks and checks
+ * that no write or delete lock on an ancestor was released in the meantime
+ * (which might have created or removed that ancestor), retrying if one was.
+ *
+ * The time spent waiting for read, write and delete locks may be limited
+ * (in milliseconds) with the fcrepo.http.lock.read.timeout,
+ * fcrepo.http.lock.write.timeout and fcrepo.http.lock.delete.timeout
+ * properties; by default requests wait indefinitely.
+ *
  * @author Mike Durbin
  */
 
@@ -75,6 +94,43 @@ public class DefaultPathLockManager implements PathLockManager {
     @VisibleForTesting
     List<String> activeDeletePaths = new ArrayList<>();
 
+    /**
+     * Whether lockForWrite resolves the paths to lock outside of the monitor
+     * of this class, and validates that resolution once the locks are held.
+     */
+    @Value("${fcrepo.http.lock.write.twoPhase:false}")
+    private boolean twoPhaseWriteLocks;
+
+    @Value("${fcrepo.http.lock.read.timeout:0}")
+    private long readTimeout;
+
+    @Value("${fcrepo.http.lock.write.timeout:0}")
+    private long writeTimeout;
+
+    @Value("${fcrepo.http.lock.delete.timeout:0}")
+    private long deleteTimeout;
+
+    /**
+     * The number of releases of write or delete locks so far.  Guarded by
+     * the monitor of this class.
+     */
+    private long modificationCount;
+
+    /**
+     * The paths whose write or delete locks were released since the oldest
+     * two-phase resolution underway began, in order of release and mapped to
+     * the modification count at release.  Guarded by the monitor of this class.
+     */
+    @VisibleForTesting
+    final LinkedHashMap<String, Long> recentlyModifiedPaths = new LinkedHashMap<>();
+
+    /**
+     * The modification count at which each two-phase resolution underway
+     * began, with the number of resolutions that began at that count.
+     * Guarded by the monitor of this class.
+     */
+    private final TreeMap<Long, Integer> pendingResolutions = new TreeMap<>();
+
     /**
      * A class that represents a path that can be locked for reading or writing
      * and is the subject of a currently active lock request (though locks may
@@ -104,13 +160,13 @@ public class DefaultPathLockManager implements PathLockManager {
         public PathScopedLock getReadLock() {
             threads.add(Thread.currentThread());
             LOGGER.trace("Thread {} requesting read lock on {}.", Thread.currentThread().getId(), path);
-            return new PathScopedLock(rwLock.readLock());
+            return new PathScopedLock(rwLock.readLock(), false);
         }
 
         public PathScopedLock getWriteLock() {
             threads.add(Thread.currentThread());
             LOGGER.trace("Thread {} requesting write lock on {}.", Thread.currentThread().getId(), path);
-            return new PathScopedLock(rwLock.writeLock());
+            return new PathScopedLock(rwLock.writeLock(), true);
         }
 
         /**
@@ -122,8 +178,11 @@ public class DefaultPathLockManager implements PathLockManager {
 
             final private Lock lock;
 
-            public PathScopedLock(final Lock l) {
+            final private boolean exclusive;
+
+            public PathScopedLock(final Lock l, final boolean exclusive) {
                 lock = l;
+                this.exclusive = exclusive;
             }
 
             public ActivePath getPath() {
@@ -157,7 +216,8 @@ public class DefaultPathLockManager implements PathLockManager {
      * Never, outside of a block of code synchronized with the surrounding class
      * instance, does this class hold an incomplete subset of the locks required:
      * in other words, it gets all of the locks or none of them, never blocking
-     * while holding locks.
+     * while holding locks.  If a timeout is given and the locks cannot be
+     * acquired within it, the constructors give up with a LockTimeoutException.
      */
     private class AcquiredMultiPathLock implements AcquiredLock {
 
@@ -171,11 +231,15 @@ public class DefaultPathLockManager implements PathLockManager {
          * acquired, but to avoid possible deadlocks releases all acquired
          * locks when it fails to acquire even one of them.
          * @param locks each PathLock that must be acquired
+         * @param operation the kind of lock being acquired
+         * @param timeout the maximum time to wait in milliseconds, or 0 to wait indefinitely
          * @throws InterruptedException
          */
-        private AcquiredMultiPathLock(final List<ActivePath.PathScopedLock> locks) throws InterruptedException {
+        private AcquiredMultiPathLock(final List<ActivePath.PathScopedLock> locks, final PathLockOperation operation,
+                final long timeout) throws InterruptedException {
             this.locks = locks;
 
+            final long deadline = nanoTime() + NANOSECONDS.convert(timeout, MILLISECONDS);
             boolean success = false;
             while (!success) {
                 synchronized (DefaultPathLockManager.this) {
@@ -183,7 +247,9 @@ public class DefaultPathLockManager implements PathLockManager {
                     if (!success) {
                         LOGGER.debug("Failed to acquire all necessary path locks: waiting.  (Thread {})",
                                 Thread.currentThread().getId());
-                        DefaultPathLockManager.this.wait();
+                        if (!awaitRelease(timeout, deadline)) {
+                            throw operation.timedOut(locks.isEmpty() ? "/" : locks.get(0).getPath().path, timeout);
+                        }
                     }
                 }
 
@@ -200,14 +266,19 @@ public class DefaultPathLockManager implements PathLockManager {
          * all acquired locks when it fails to acquire even one of them.
          * @param deletePath the path for which all descendant paths must also be
          *        write locked.
+         * @param timeout the maximum time to wait in milliseconds, or 0 to wait indefinitely
          * @throws InterruptedException
          */
-        private AcquiredMultiPathLock(final String deletePath) throws InterruptedException {
+        private AcquiredMultiPathLock(final String deletePath, final long timeout) throws InterruptedException {
             this.deletePath = deletePath;
 
+            final long deadline = nanoTime() + NANOSECONDS.convert(timeout, MILLISECONDS);
             boolean success = false;
             while (!success) {
                 synchronized (DefaultPathLockManager.this) {
+                    if (this.locks != null) {
+                        forget();
+                    }
                     this.locks = new ArrayList<>();
 
                     // find all paths to lock
@@ -221,7 +292,9 @@ public class DefaultPathLockManager implements PathLockManager {
                     if (!success) {
                         LOGGER.debug("Failed to acquire all necessary path locks: waiting.  (Thread {})",
                                 Thread.currentThread().getId());
-                        DefaultPathLockManager.this.wait();
+                        if (!awaitRelease(timeout, deadline)) {
+                            throw PathLockOperation.DELETE.timedOut(deletePath, timeout);
+                        }
                     } else {
                         // So, we have acquired locks on every currently active path that is
                         // the target of the DELETE operation or its ancestor... but what if
@@ -241,6 +314,45 @@ public class DefaultPathLockManager implements PathLockManager {
 
         }
 
+        /*
+         * Waits to be notified of the release of some locks.  Must be invoked while
+         * synchronized on the surrounding class instance.  If the deadline passes or
+         * the thread is interrupted, this lock's paths are given up.
+         */
+        private boolean awaitRelease(final long timeout, final long deadline) throws InterruptedException {
+            try {
+                if (timeout <= 0) {
+                    DefaultPathLockManager.this.wait();
+                    return true;
+                }
+                final long remaining = MILLISECONDS.convert(deadline - nanoTime(), NANOSECONDS);
+                if (remaining > 0) {
+                    DefaultPathLockManager.this.wait(remaining);
+                    return true;
+                }
+            } catch (final InterruptedException e) {
+                forget();
+                throw e;
+            }
+            LOGGER.debug("Timed out waiting for path locks.  (Thread {})", Thread.currentThread().getId());
+            forget();
+            return false;
+        }
+
+        /*
+         * Withdraws this thread's requests for the (not acquired) locks on its paths,
+         * removing the paths from the pool of active paths if no other thread needs them.
+         * Must be invoked while synchronized on the surrounding class instance.
+         */
+        private void forget() {
+            for (final ActivePath.PathScopedLock lock : locks) {
+                lock.getPath().threads.remove(Thread.currentThread());
+                if (lock.getPath().threads.isEmpty()) {
+                    activePaths.remove(lock.getPath().path);
+                }
+            }
+        }
+
         private boolean tryAcquireAll() {
             final List<ActivePath.PathScopedLock> acquired = new ArrayList<>();
             for (final ActivePath.PathScopedLock lock : locks) {
@@ -268,11 +380,15 @@ public class DefaultPathLockManager implements PathLockManager {
                     if (lock.getPath().threads.isEmpty()) {
                         activePaths.remove(lock.getPath().path);
                     }
+                    if (lock.exclusive) {
+                        recordModification(lock.getPath().path);
+                    }
                 }
                 if (deletePath != null) {
                     LOGGER.trace("Thread {} releasing delete lock on path {}.",
                             Thread.currentThread().getId(), deletePath);
                     activeDeletePaths.remove(deletePath);
+                    recordModification(deletePath);
                 }
                 LOGGER.trace("Thread {} released locks.", Thread.currentThread().getId());
                 DefaultPathLockManager.this.notify();
@@ -294,6 +410,70 @@ public class DefaultPathLockManager implements PathLockManager {
         return activePath;
     }
 
+    /*
+     * Notes that the resource at a path may have been created or deleted.
+     * Must be invoked while synchronized on this instance.
+     */
+    private void recordModification(final String path) {
+        if (pendingResolutions.isEmpty()) {
+            return;
+        }
+        recentlyModifiedPaths.remove(path);
+        recentlyModifiedPaths.put(path, ++modificationCount);
+    }
+
+    private synchronized long beginResolution() {
+        pendingResolutions.merge(modificationCount, 1, Integer::sum);
+        return modificationCount;
+    }
+
+    private synchronized void endResolution(final long start) {
+        pendingResolutions.computeIfPresent(start, (k, count) -> count == 1 ? null : count - 1);
+        if (pendingResolutions.isEmpty()) {
+            recentlyModifiedPaths.clear();
+            return;
+        }
+        // forget modifications that no pending resolution could have missed
+        final long oldest = pendingResolutions.firstKey();
+        final Iterator<Long> counts = recentlyModifiedPaths.values().iterator();
+        while (counts.hasNext() && counts.next() <= oldest) {
+            counts.remove();
+        }
+    }
+
+    /*
+     * Determines whether any ancestor of the given path may have been created or
+     * deleted since the given modification count.
+     */
+    private synchronized boolean isAncestryUnchangedSince(final String path, final long start) {
+        for (String ancestor = getParentPath(path); ancestor != null; ancestor = getParentPath(ancestor)) {
+            final Long modified = recentlyModifiedPaths.get(ancestor);
+            if (modified != null && modified > start) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Lists the given path and each ancestral path that would be created
+     * implicitly by a write to it (ie, non-existent ancestral paths).
+     */
+    private List<String> resolveWritePaths(final String startingPath, final FedoraSession session,
+            final NodeService nodeService) {
+        final List<String> paths = new ArrayList<>();
+        for (String currentPath = startingPath;
+                currentPath != null && currentPath.length() > 0;
+                currentPath = getParentPath(currentPath)) {
+            if (!paths.isEmpty() && nodeService.exists(session, currentPath)) {
+                // we've found an ancestor that exists... so there are no more locks to create.
+                break;
+            }
+            paths.add(currentPath);
+        }
+        return paths;
+    }
+
     private boolean isOrIsDescendantOf(final String possibleDescendant, final String path) {
         return path.equals(possibleDescendant) || possibleDescendant.startsWith(path + "/");
     }
@@ -322,8 +502,8 @@ public class DefaultPathLockManager implements PathLockManager {
             locks.add(getActivePath(normalizePath(path)).getReadLock());
         }
 
-        try {
-            return new AcquiredMultiPathLock(locks);
+        try (final Timer.Context context = PathLockOperation.READ.waitTimer.time()) {
+            return new AcquiredMultiPathLock(locks, PathLockOperation.READ, readTimeout);
         } catch (InterruptedException e) {
             throw new InterruptedRuntimeException(e);
         }
@@ -331,36 +511,58 @@ public class DefaultPathLockManager implements PathLockManager {
 
     @Override
     public AcquiredLock lockForWrite(final String path, final FedoraSession session, final NodeService nodeService) {
-        final List<ActivePath.PathScopedLock> locks = new ArrayList<>();
-
-        synchronized (this) {
-            // lock the specified path while iterating through the path's
-            // ancestry to also lock each path that would be created implicitly
-            // by this write (ie, non-existent ancestral paths)
-            final String startingPath = normalizePath(path);
-            for (String currentPath = startingPath ;
-                    currentPath == null || currentPath.length() > 0;
-                    currentPath = getParentPath(currentPath)) {
-                if (currentPath == null || (currentPath != startingPath && nodeService.exists(session, currentPath))) {
-                    // either we've followed the path back to the root, or we've found an ancestor that exists...
-                    // so there are no more locks to create.
-                    break;
-                }
-                locks.add(getActivePath(currentPath).getWriteLock());
+        final String startingPath = normalizePath(path);
+        try (final Timer.Context context = PathLockOperation.WRITE.waitTimer.time()) {
+            if (twoPhaseWriteLocks) {
+                return lockForWriteTwoPhase(startingPath, session, nodeService);
             }
-        }
 
-        try {
-            return new AcquiredMultiPathLock(locks);
+            final List<ActivePath.PathScopedLock> locks = new ArrayList<>();
+            synchronized (this) {
+                // lock the specified path and each path that would be created implicitly by this write
+                resolveWritePaths(startingPath, session, nodeService)
+                        .forEach(p -> locks.add(getActivePath(p).getWriteLock()));
+            }
+            return new AcquiredMultiPathLock(locks, PathLockOperation.WRITE, writeTimeout);
         } catch (InterruptedException e) {
             throw new InterruptedRuntimeException(e);
         }
     }
 
+    private AcquiredLock lockForWriteTwoPhase(final String startingPath, final FedoraSession session,
+            final NodeService nodeService) throws InterruptedException {
+        final long deadline = nanoTime() + NANOSECONDS.convert(writeTimeout, MILLISECONDS);
+        while (true) {
+            final long start = beginResolution();
+            final AcquiredMultiPathLock acquired;
+            final boolean valid;
+            try {
+                // resolve the paths to lock without holding the monitor...
+                final List<String> paths = resolveWritePaths(startingPath, session, nodeService);
+                final List<ActivePath.PathScopedLock> locks = new ArrayList<>();
+                synchronized (this) {
+                    paths.forEach(p -> locks.add(getActivePath(p).getWriteLock()));
+                }
+                acquired = new AcquiredMultiPathLock(locks, PathLockOperation.WRITE, writeTimeout <= 0 ? 0 :
+                        Math.max(1, MILLISECONDS.convert(deadline - nanoTime(), NANOSECONDS)));
+                // ...and once they are held no ancestor can change, so check that none did
+                valid = isAncestryUnchangedSince(startingPath, start);
+            } finally {
+                endResolution(start);
+            }
+            if (valid) {
+                return acquired;
+            }
+            LOGGER.debug("Ancestry of {} changed while resolving write locks: retrying.  (Thread {})",
+                    startingPath, Thread.currentThread().getId());
+            acquired.release();
+        }
+    }
+
     @Override
     public AcquiredLock lockForDelete(final String path) {
-        try {
-            return new AcquiredMultiPathLock(normalizePath(path));
+        try (final Timer.Context context = PathLockOperation.DELETE.waitTimer.time()) {
+            return new AcquiredMultiPathLock(normalizePath(path), deleteTimeout);
         } catch (InterruptedException e) {
             throw new InterruptedRuntimeException(e);
         }
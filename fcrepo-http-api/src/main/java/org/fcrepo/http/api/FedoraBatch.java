@@ -0,0 +1,259 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.MULTIPART_FORM_DATA;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.CONFLICT;
+import static javax.ws.rs.core.Response.Status.CREATED;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.UNSUPPORTED_MEDIA_TYPE;
+import static org.fcrepo.http.api.FedoraLdp.parseDigestHeader;
+import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_PAIRTREE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.AccessControlException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jcr.RepositoryException;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.fcrepo.http.api.PathLockManager.AcquiredLock;
+import org.fcrepo.kernel.api.FedoraSession;
+import org.fcrepo.kernel.api.RdfStream;
+import org.fcrepo.kernel.api.exception.AccessDeniedException;
+import org.fcrepo.kernel.api.exception.ConstraintViolationException;
+import org.fcrepo.kernel.api.exception.InvalidChecksumException;
+import org.fcrepo.kernel.api.exception.MalformedRdfException;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.models.Container;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
+import org.fcrepo.kernel.modeshape.FedoraSessionImpl;
+import org.glassfish.jersey.media.multipart.BodyPart;
+import org.glassfish.jersey.media.multipart.BodyPartEntity;
+import org.glassfish.jersey.media.multipart.ContentDisposition;
+import org.glassfish.jersey.media.multipart.MultiPart;
+import org.slf4j.Logger;
+import org.springframework.context.annotation.Scope;
+
+import com.codahale.metrics.annotation.Timed;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Create many children of a container in a single request.
+ *
+ * Each part of a multipart request body describes one new child, as the body of a
+ * POST to the container would: its Content-Type, Content-Disposition, Digest and
+ * Slug headers are honored.  All the children are created in the request's session,
+ * with their paths locked in a single pass, and are committed together: if any of
+ * them cannot be created, none are.  Batches are not accepted within a transaction,
+ * since undoing a failed batch would undo the transaction's other changes too.
+ *
+ * @author agent
+ */
+@Scope("request")
+@Path("/{path: .*}/fcr:batch")
+public class FedoraBatch extends ContentExposingResource {
+
+    private static final Logger LOGGER = getLogger(FedoraBatch.class);
+
+    static final int MULTI_STATUS = 207;
+
+    static final int FAILED_DEPENDENCY = 424;
+
+    @PathParam("path") protected String externalPath;
+
+    /**
+     * Default JAX-RS entry point
+     */
+    public FedoraBatch() {
+        super();
+    }
+
+    /**
+     * Create a new FedoraBatch instance for a given path
+     * @param externalPath the external path
+     */
+    @VisibleForTesting
+    public FedoraBatch(final String externalPath) {
+        this.externalPath = externalPath;
+    }
+
+    /**
+     * Create a child of this container for each part of the request body.
+     *
+     * POST /path/to/container/fcr:batch
+     *
+     * @param multiPart the descriptions of the children to create
+     * @return a 207 Multi-Status response listing the outcome for each part
+     * @throws IOException if a part could not be read
+     */
+    @POST
+    @Timed
+    @Consumes({"multipart/mixed", MULTIPART_FORM_DATA})
+    @Produces({APPLICATION_JSON})
+    public Response createObjects(final MultiPart multiPart) throws IOException {
+
+        if (session.isBatchSession()) {
+            throw new ClientErrorException("Batches cannot be created within a transaction", CONFLICT);
+        } else if (!(resource() instanceof Container)) {
+            throw new ClientErrorException("Object cannot have child nodes", CONFLICT);
+        } else if (resource().hasType(FEDORA_PAIRTREE)) {
+            throw new ClientErrorException("Objects cannot be created under pairtree nodes", FORBIDDEN);
+        }
+
+        final List<BodyPart> parts = multiPart.getBodyParts();
+        final List<String> paths = new ArrayList<>(parts.size());
+        final Set<String> minted = new HashSet<>();
+        final URI parent = getUri(resource());
+        for (final BodyPart part : parts) {
+            final String path = mintNewPid(parent, part.getHeaders().getFirst("Slug"));
+            if (!minted.add(path)) {
+                throw new ClientErrorException("Path " + path + " appears more than once in the batch", CONFLICT);
+            }
+            paths.add(path);
+        }
+
+        final AcquiredLock lock = lockManager.lockAllForWrite(paths, session.getFedoraSession(), nodeService);
+
+        boolean committed = false;
+        try {
+            LOGGER.info("Batch ingest of {} resources under path: {}", paths.size(), externalPath);
+            final List<Map<String, Object>> report = new ArrayList<>(parts.size());
+            boolean failed = false;
+
+            for (int i = 0; i < parts.size(); i++) {
+                final Map<String, Object> item = new LinkedHashMap<>();
+                item.put("part", i);
+                report.add(item);
+                if (failed) {
+                    item.put("status", FAILED_DEPENDENCY);
+                    continue;
+                }
+                try {
+                    final FedoraResource created = createObject(paths.get(i), parts.get(i));
+                    item.put("status", CREATED.getStatusCode());
+                    item.put("location", getUri(created).toString());
+                } catch (final InvalidChecksumException | ConstraintViolationException e) {
+                    failed = fail(item, CONFLICT.getStatusCode(), e);
+                } catch (final AccessDeniedException | AccessControlException e) {
+                    failed = fail(item, FORBIDDEN.getStatusCode(), e);
+                } catch (final MalformedRdfException e) {
+                    failed = fail(item, BAD_REQUEST.getStatusCode(), e);
+                } catch (final WebApplicationException e) {
+                    failed = fail(item, e.getResponse().getStatus(), e);
+                }
+            }
+
+            if (failed) {
+                // nothing is committed, so no part was created
+                report.stream().filter(item -> item.remove("location") != null)
+                        .forEach(item -> item.put("status", FAILED_DEPENDENCY));
+            } else {
+                session.commit();
+                committed = true;
+            }
+
+            LOGGER.debug("Finished batch ingest under path: {}", externalPath);
+            return status(MULTI_STATUS).entity(report).type(APPLICATION_JSON).build();
+        } finally {
+            try {
+                if (!committed) {
+                    discardChanges();
+                }
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /*
+     * Drop the parts created so far, so that a later save in this session cannot commit them.
+     */
+    private void discardChanges() {
+        final FedoraSession fedoraSession = session.getFedoraSession();
+        if (fedoraSession instanceof FedoraSessionImpl) {
+            try {
+                ((FedoraSessionImpl) fedoraSession).getJcrSession().refresh(false);
+            } catch (final RepositoryException e) {
+                throw new RepositoryRuntimeException(e);
+            }
+        }
+    }
+
+    private static boolean fail(final Map<String, Object> item, final int status, final Exception e) {
+        LOGGER.debug("Batch ingest part {} failed: {}", item.get("part"), e.getMessage());
+        item.put("status", status);
+        item.put("message", e.getMessage());
+        return true;
+    }
+
+    private FedoraResource createObject(final String path, final BodyPart part)
+            throws InvalidChecksumException, IOException {
+        final MediaType partContentType = part.getMediaType();
+        final MediaType contentType = getSimpleContentType(partContentType);
+        final ContentDisposition contentDisposition = part.getContentDisposition();
+        final Collection<String> checksum = parseDigestHeader(part.getHeaders().getFirst("Digest"));
+
+        final FedoraResource result = createFedoraResource(path, contentType, contentDisposition);
+
+        try (final InputStream body = getBody(part);
+                final RdfStream resourceTriples = new DefaultRdfStream(asNode(result))) {
+            if (result instanceof FedoraBinary) {
+                replaceResourceBinaryWithStream((FedoraBinary) result, body, contentDisposition, partContentType,
+                        checksum);
+            } else if (isRdfContentType(contentType.toString())) {
+                replaceResourceWithStream(result, body, contentType, resourceTriples);
+            } else if (body.read() != -1) {
+                throw new ClientErrorException("Invalid Content Type " + contentType, UNSUPPORTED_MEDIA_TYPE);
+            }
+        }
+        return result;
+    }
+
+    private static InputStream getBody(final BodyPart part) {
+        final Object entity = part.getEntity();
+        return entity instanceof InputStream ? (InputStream) entity : ((BodyPartEntity) entity).getInputStream();
+    }
+
+    @Override
+    protected String externalPath() {
+        return externalPath;
+    }
+}
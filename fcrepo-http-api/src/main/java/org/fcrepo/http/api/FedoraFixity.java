@@ -21,6 +21,7 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_THRIFT;
 import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TEXT_HTML_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TEXT_PLAIN_WITH_CHARSET;
@@ -28,11 +29,13 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.fcrepo.http.commons.responses.HtmlTemplate;
@@ -80,14 +83,20 @@ public class FedoraFixity extends ContentExposingResource {
      *
      * GET /path/to/some/datastream/fcr:fixity
      *
+     * A result computed within the repository's freshness window for the same
+     * content may be reused; GET /path/to/some/datastream/fcr:fixity?force=true
+     * always re-reads the content.
+     *
+     * @param force whether to re-read the content even if its fixity was recently computed
      * @return datastream fixity in the given format
      */
     @GET
     @Timed
     @HtmlTemplate(value = "fcr:fixity")
     @Produces({TURTLE_WITH_CHARSET + ";qs=1.0", JSON_LD + ";qs=0.8", N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET,
-            RDF_XML, NTRIPLES, TEXT_PLAIN_WITH_CHARSET, TURTLE_X, TEXT_HTML_WITH_CHARSET, "*/*"})
-    public RdfNamespacedStream getDatastreamFixity() {
+            RDF_XML, NTRIPLES, RDF_THRIFT, TEXT_PLAIN_WITH_CHARSET, TURTLE_X, TEXT_HTML_WITH_CHARSET, "*/*"})
+    public RdfNamespacedStream getDatastreamFixity(
+            @QueryParam("force") @DefaultValue("false") final boolean force) {
 
         if (!(resource() instanceof FedoraBinary)) {
             throw new NotFoundException(resource() + " is not a binary");
@@ -96,7 +105,7 @@ public class FedoraFixity extends ContentExposingResource {
         LOGGER.info("Get fixity for '{}'", externalPath);
         return new RdfNamespacedStream(
                 new DefaultRdfStream(asNode(resource()),
-                    ((FedoraBinary)resource()).getFixity(translator())),
+                    ((FedoraBinary)resource()).getFixity(translator(), force)),
                 session().getFedoraSession().getNamespaces());
     }
 
@@ -21,7 +21,6 @@ package org.fcrepo.http.api;
 import static com.google.common.base.Strings.nullToEmpty;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.ws.rs.core.MediaType.TEXT_HTML;
-import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
 import static javax.ws.rs.core.MediaType.WILDCARD;
 import static javax.ws.rs.core.HttpHeaders.ACCEPT;
@@ -41,7 +40,6 @@ import static javax.ws.rs.core.Response.Status.UNSUPPORTED_MEDIA_TYPE;
 import static javax.ws.rs.core.Variant.mediaTypes;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
-import static org.apache.jena.rdf.model.ResourceFactory.createResource;
 import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
 import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
@@ -49,23 +47,20 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.N3_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_THRIFT;
 import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TEXT_PLAIN_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TEXT_HTML_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
-import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_BINARY;
-import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_PAIRTREE;
 import static org.fcrepo.kernel.api.RdfLexicon.LDP_NAMESPACE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.net.URLDecoder;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -179,7 +174,7 @@ public class FedoraLdp extends ContentExposingResource {
     @HEAD
     @Timed
     @Produces({ TURTLE_WITH_CHARSET + ";qs=1.0", JSON_LD + ";qs=0.8",
-        N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET, RDF_XML, NTRIPLES, TEXT_PLAIN_WITH_CHARSET,
+        N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET, RDF_XML, NTRIPLES, RDF_THRIFT, TEXT_PLAIN_WITH_CHARSET,
         TURTLE_X, TEXT_HTML_WITH_CHARSET })
     public Response head() {
         LOGGER.info("HEAD for: {}", externalPath);
@@ -231,7 +226,7 @@ public class FedoraLdp extends ContentExposingResource {
      */
     @GET
     @Produces({TURTLE_WITH_CHARSET + ";qs=1.0", JSON_LD + ";qs=0.8",
-            N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET, RDF_XML, NTRIPLES, TEXT_PLAIN_WITH_CHARSET,
+            N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET, RDF_XML, NTRIPLES, RDF_THRIFT, TEXT_PLAIN_WITH_CHARSET,
             TURTLE_X, TEXT_HTML_WITH_CHARSET})
     public Response getResource(@HeaderParam("Range") final String rangeValue) throws IOException {
         checkCacheControlHeaders(request, servletResponse, resource(), session);
@@ -266,7 +261,7 @@ public class FedoraLdp extends ContentExposingResource {
         if (acceptHeaders != null && acceptHeaders.size() > 0) {
             final List<String> accept = Arrays.asList(acceptHeaders.get(0).split(","));
             if (accept.contains(TEXT_HTML)) {
-                // Magic number '100' is tied to common-metadata.vsl display of ellipses
+                // the HTML view always pages through children, linking to the next page from its ellipsis
                 return 100;
             }
         }
@@ -281,7 +276,7 @@ public class FedoraLdp extends ContentExposingResource {
                 throw new ClientErrorException("Invalid 'Limit' header value: " + limits.get(0), SC_BAD_REQUEST, e);
             }
         }
-        return -1;
+        return getPageSize();
     }
 
     /**
@@ -480,7 +475,7 @@ public class FedoraLdp extends ContentExposingResource {
     @Consumes({MediaType.APPLICATION_OCTET_STREAM + ";qs=1.000", WILDCARD})
     @Timed
     @Produces({TURTLE_WITH_CHARSET + ";qs=1.0", JSON_LD + ";qs=0.8",
-            N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET, RDF_XML, NTRIPLES, TEXT_PLAIN_WITH_CHARSET,
+            N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET, RDF_XML, NTRIPLES, RDF_THRIFT, TEXT_PLAIN_WITH_CHARSET,
             TURTLE_X, TEXT_HTML_WITH_CHARSET, "*/*"})
     public Response createObject(@HeaderParam(CONTENT_DISPOSITION) final ContentDisposition contentDisposition,
                                  @HeaderParam(CONTENT_TYPE) final MediaType requestContentType,
@@ -502,7 +497,7 @@ public class FedoraLdp extends ContentExposingResource {
 
         final String contentTypeString = contentType.toString();
 
-        final String newObjectPath = mintNewPid(slug);
+        final String newObjectPath = mintNewPid(uriInfo.getAbsolutePathBuilder().build(), slug);
 
         final AcquiredLock lock = lockManager.lockForWrite(newObjectPath, session.getFedoraSession(), nodeService);
 
@@ -681,7 +676,7 @@ public class FedoraLdp extends ContentExposingResource {
             servletResponse.addHeader(HTTP_HEADER_ACCEPT_PATCH, contentTypeSPARQLUpdate);
 
             final String rdfTypes = TURTLE + "," + N3 + "," + N3_ALT2 + ","
-                    + RDF_XML + "," + NTRIPLES + "," + JSON_LD;
+                    + RDF_XML + "," + NTRIPLES + "," + JSON_LD + "," + RDF_THRIFT;
             servletResponse.addHeader("Accept-Post", rdfTypes + "," + MediaType.MULTIPART_FORM_DATA
                     + "," + contentTypeSPARQLUpdate);
         } else {
@@ -691,74 +686,6 @@ public class FedoraLdp extends ContentExposingResource {
         servletResponse.addHeader("Allow", options);
     }
 
-    private static String getRequestedObjectType(final MediaType requestContentType,
-                                          final ContentDisposition contentDisposition) {
-
-        if (requestContentType != null) {
-            final String s = requestContentType.toString();
-            if (!s.equals(contentTypeSPARQLUpdate) && !isRdfContentType(s) || s.equals(TEXT_PLAIN)) {
-                return FEDORA_BINARY;
-            }
-        }
-
-        if (contentDisposition != null && contentDisposition.getType().equals("attachment")) {
-            return FEDORA_BINARY;
-        }
-
-        return FEDORA_CONTAINER;
-    }
-
-    private FedoraResource createFedoraResource(final String path,
-                                                final MediaType requestContentType,
-                                                final ContentDisposition contentDisposition) {
-        final String objectType = getRequestedObjectType(requestContentType, contentDisposition);
-
-        final FedoraResource result;
-
-        if (objectType.equals(FEDORA_BINARY)) {
-            result = binaryService.findOrCreate(session.getFedoraSession(), path);
-        } else {
-            result = containerService.findOrCreate(session.getFedoraSession(), path);
-        }
-
-        return result;
-    }
-
-    private String mintNewPid(final String slug) {
-        String pid;
-
-        if (slug != null && !slug.isEmpty()) {
-            pid = slug;
-        } else if (pidMinter != null) {
-            pid = pidMinter.get();
-        } else {
-            pid = defaultPidMinter.get();
-        }
-        // reverse translate the proffered or created identifier
-        LOGGER.trace("Using external identifier {} to create new resource.", pid);
-        LOGGER.trace("Using prefixed external identifier {} to create new resource.", uriInfo.getBaseUri() + "/"
-                + pid);
-
-        final URI newResourceUri = uriInfo.getAbsolutePathBuilder().clone().path(FedoraLdp.class)
-                .resolveTemplate("path", pid, false).build();
-
-        pid = translator().asString(createResource(newResourceUri.toString()));
-        try {
-            pid = URLDecoder.decode(pid, "UTF-8");
-        } catch (final UnsupportedEncodingException e) {
-            // noop
-        }
-        // remove leading slash left over from translation
-        LOGGER.trace("Using internal identifier {} to create new resource.", pid);
-
-        if (nodeService.exists(session.getFedoraSession(), pid)) {
-            LOGGER.trace("Resource with path {} already exists; minting new path instead", pid);
-            return mintNewPid(null);
-        }
-
-        return pid;
-    }
-
     private static void checkLinkForLdpResourceCreation(final String link) {
         if (link != null) {
             try {
@@ -784,7 +711,7 @@ public class FedoraLdp extends ContentExposingResource {
      * @return the sha1 checksum value
      * @throws InvalidChecksumException if an unsupported digest is used
      */
-    private static Collection<String> parseDigestHeader(final String digest) throws InvalidChecksumException {
+    static Collection<String> parseDigestHeader(final String digest) throws InvalidChecksumException {
         try {
             final Map<String,String> digestPairs = RFC3230_SPLITTER.split(nullToEmpty(digest));
             final boolean allSupportedAlgorithms = digestPairs.keySet().stream().allMatch(
@@ -22,6 +22,7 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_THRIFT;
 import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TEXT_HTML_WITH_CHARSET;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TEXT_PLAIN_WITH_CHARSET;
@@ -135,7 +136,7 @@ public class FedoraVersions extends ContentExposingResource {
     @SuppressWarnings("resource")
     @GET
     @Produces({TURTLE_WITH_CHARSET + ";qs=1.0", JSON_LD + ";qs=0.8", N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET,
-            RDF_XML, NTRIPLES, TEXT_PLAIN_WITH_CHARSET, TURTLE_X,
+            RDF_XML, NTRIPLES, RDF_THRIFT, TEXT_PLAIN_WITH_CHARSET, TURTLE_X,
             TEXT_HTML_WITH_CHARSET, "*/*"})
     public Response getVersion(@HeaderParam("Range") final String rangeValue) throws IOException {
         LOGGER.trace("Getting version profile for: {} at version: {}", path,
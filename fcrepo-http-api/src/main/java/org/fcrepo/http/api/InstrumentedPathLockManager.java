@@ -0,0 +1,436 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.fcrepo.kernel.api.FedoraSession;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.fcrepo.metrics.RegistryService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A PathLockManager that decorates another, recording how long requests wait
+ * for and hold their locks and how many requests are waiting at any moment.
+ * Statistics are aggregated by path prefix: the first few segments of each
+ * locked path, as many as the configured prefix depth allows.  Each prefix's
+ * statistics are registered in the RegistryService's MetricRegistry under
+ * org.fcrepo.http.api.PathLockManager.prefix.&lt;prefix&gt;, and the most contended
+ * prefixes and the locks currently held can be listed for reporting.
+ *
+ * Only a bounded number of prefixes is tracked.  When another prefix is needed
+ * the least recently used one is forgotten and its metrics are removed from the
+ * registry, so a large repository cannot grow the registry without bound.
+ *
+ * The time a request waits is the time taken to acquire its locks, not counting
+ * the time the decorated PathLockManager spends asking the repository which
+ * ancestors of a written path already exist.
+ *
+ * @author agent
+ */
+public class InstrumentedPathLockManager implements PathLockManager {
+
+    /**
+     * The default number of path segments by which statistics are aggregated.
+     */
+    public static final int DEFAULT_PREFIX_DEPTH = 2;
+
+    /**
+     * The default number of prefixes whose statistics are tracked.
+     */
+    public static final int DEFAULT_MAX_PREFIXES = 1000;
+
+    private static final MetricRegistry METRICS = RegistryService.getInstance().getMetrics();
+
+    /**
+     * Guards the registration and removal of per-prefix metrics.
+     */
+    private static final Object REGISTRATION = new Object();
+
+    private final PathLockManager delegate;
+
+    private final int prefixDepth;
+
+    private final Cache<String, PathStatistics> statistics;
+
+    private final Set<HeldLock> holders = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Instrument a PathLockManager, aggregating statistics by the default prefix depth.
+     * @param delegate the PathLockManager that grants the locks
+     */
+    public InstrumentedPathLockManager(final PathLockManager delegate) {
+        this(delegate, DEFAULT_PREFIX_DEPTH);
+    }
+
+    /**
+     * Instrument a PathLockManager.
+     * @param delegate the PathLockManager that grants the locks
+     * @param prefixDepth the number of path segments by which statistics are aggregated
+     */
+    public InstrumentedPathLockManager(final PathLockManager delegate, final int prefixDepth) {
+        this(delegate, prefixDepth, DEFAULT_MAX_PREFIXES);
+    }
+
+    /**
+     * Instrument a PathLockManager.
+     * @param delegate the PathLockManager that grants the locks
+     * @param prefixDepth the number of path segments by which statistics are aggregated
+     * @param maxPrefixes the number of prefixes whose statistics are tracked
+     */
+    public InstrumentedPathLockManager(final PathLockManager delegate, final int prefixDepth,
+            final int maxPrefixes) {
+        this.delegate = delegate;
+        this.prefixDepth = prefixDepth;
+        this.statistics = CacheBuilder.newBuilder().maximumSize(maxPrefixes)
+                .removalListener((final RemovalNotification<String, PathStatistics> n) -> n.getValue().unregister())
+                .build();
+    }
+
+    /**
+     * The lock statistics of all the paths that share a prefix.
+     */
+    public static class PathStatistics {
+
+        private final String prefix;
+
+        private final Timer waitTimer;
+
+        private final Timer holdTimer;
+
+        private final Counter waiters;
+
+        private final LongAdder totalWait = new LongAdder();
+
+        private PathStatistics(final String prefix) {
+            this.prefix = prefix;
+            synchronized (REGISTRATION) {
+                waitTimer = register(metricName("wait"), new Timer());
+                holdTimer = register(metricName("hold"), new Timer());
+                waiters = register(metricName("waiters"), new Counter());
+            }
+        }
+
+        private String metricName(final String metric) {
+            return name(PathLockManager.class, "prefix", prefix, metric);
+        }
+
+        /**
+         * Removes this prefix's metrics from the registry, unless they have
+         * already been replaced by those of a newer instance for the prefix.
+         */
+        private void unregister() {
+            synchronized (REGISTRATION) {
+                unregister(metricName("wait"), waitTimer);
+                unregister(metricName("hold"), holdTimer);
+                unregister(metricName("waiters"), waiters);
+            }
+        }
+
+        private static <T extends Metric> T register(final String name, final T metric) {
+            METRICS.remove(name);
+            return METRICS.register(name, metric);
+        }
+
+        private static void unregister(final String name, final Metric metric) {
+            if (METRICS.getMetrics().get(name) == metric) {
+                METRICS.remove(name);
+            }
+        }
+
+        /**
+         * @return the path prefix
+         */
+        public String getPrefix() {
+            return prefix;
+        }
+
+        /**
+         * @return the number of requests currently waiting for locks
+         */
+        public long getWaiters() {
+            return waiters.getCount();
+        }
+
+        /**
+         * @return the number of locks requested
+         */
+        public long getRequests() {
+            return waitTimer.getCount();
+        }
+
+        /**
+         * @return the total time in milliseconds that requests have waited for locks
+         */
+        public long getTotalWaitMillis() {
+            return MILLISECONDS.convert(totalWait.sum(), NANOSECONDS);
+        }
+
+        /**
+         * @return the 99th percentile of recent waits for locks, in milliseconds
+         */
+        public double getWait99thPercentileMillis() {
+            return waitTimer.getSnapshot().get99thPercentile() / 1e6;
+        }
+
+        /**
+         * @return the mean of recent times for which locks were held, in milliseconds
+         */
+        public double getMeanHoldMillis() {
+            return holdTimer.getSnapshot().getMean() / 1e6;
+        }
+
+        /**
+         * @return the 99th percentile of recent times for which locks were held, in milliseconds
+         */
+        public double getHold99thPercentileMillis() {
+            return holdTimer.getSnapshot().get99thPercentile() / 1e6;
+        }
+    }
+
+    /**
+     * A lock granted by the decorated PathLockManager, and currently held.
+     */
+    public class HeldLock implements AcquiredLock {
+
+        private final AcquiredLock lock;
+
+        private final String path;
+
+        private final PathLockOperation operation;
+
+        private final PathStatistics stats;
+
+        private final String thread = Thread.currentThread().getName();
+
+        private final long acquired = nanoTime();
+
+        private final long acquiredAt = currentTimeMillis();
+
+        private boolean held = true;
+
+        private HeldLock(final AcquiredLock lock, final String path, final PathLockOperation operation,
+                final PathStatistics stats) {
+            this.lock = lock;
+            this.path = path;
+            this.operation = operation;
+            this.stats = stats;
+        }
+
+        @Override
+        public void release() {
+            if (held) {
+                held = false;
+                holders.remove(this);
+                stats.holdTimer.update(nanoTime() - acquired, NANOSECONDS);
+                lock.release();
+            }
+        }
+
+        /**
+         * @return the locked path
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the kind of lock: read, write or delete
+         */
+        public String getOperation() {
+            return operation.name().toLowerCase();
+        }
+
+        /**
+         * @return the name of the thread holding the lock
+         */
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * @return when the lock was acquired, in milliseconds since the epoch
+         */
+        public long getAcquiredAt() {
+            return acquiredAt;
+        }
+
+        /**
+         * @return the time for which the lock has been held so far, in milliseconds
+         */
+        public long getHeldMillis() {
+            return MILLISECONDS.convert(nanoTime() - acquired, NANOSECONDS);
+        }
+    }
+
+    @Override
+    public AcquiredLock lockForRead(final String path) {
+        return instrument(path, PathLockOperation.READ, () -> delegate.lockForRead(path), () -> 0);
+    }
+
+    @Override
+    public AcquiredLock lockForWrite(final String path, final FedoraSession session, final NodeService nodeService) {
+        final TimedNodeService timed = new TimedNodeService(nodeService);
+        return instrument(path, PathLockOperation.WRITE, () -> delegate.lockForWrite(path, session, timed),
+                timed::getElapsed);
+    }
+
+    @Override
+    public AcquiredLock lockForDelete(final String path) {
+        return instrument(path, PathLockOperation.DELETE, () -> delegate.lockForDelete(path), () -> 0);
+    }
+
+    /**
+     * @param excluded the nanoseconds spent during the acquisition on work other than waiting for locks
+     */
+    private AcquiredLock instrument(final String path, final PathLockOperation operation,
+            final Supplier<AcquiredLock> acquisition, final LongSupplier excluded) {
+        final PathStatistics stats = statistics(prefix(path));
+        stats.waiters.inc();
+        final long start = nanoTime();
+        final AcquiredLock lock;
+        try {
+            lock = acquisition.get();
+        } finally {
+            final long wait = Math.max(0, nanoTime() - start - excluded.getAsLong());
+            stats.waiters.dec();
+            stats.waitTimer.update(wait, NANOSECONDS);
+            stats.totalWait.add(wait);
+        }
+        final HeldLock held = new HeldLock(lock, path, operation, stats);
+        holders.add(held);
+        return held;
+    }
+
+    /**
+     * Lists the statistics of the path prefixes whose requests have waited
+     * longest for locks in total, most contended first.
+     * @param limit the maximum number of prefixes to list
+     * @return the statistics of the most contended prefixes
+     */
+    public List<PathStatistics> getMostContended(final int limit) {
+        return statistics.asMap().values().stream()
+                .sorted(comparingLong((PathStatistics s) -> s.totalWait.sum()).reversed())
+                .limit(limit).collect(toList());
+    }
+
+    /**
+     * Lists the locks currently held, longest held first.
+     * @return the locks currently held
+     */
+    public List<HeldLock> getHolders() {
+        return holders.stream().sorted(comparingLong(h -> h.acquired)).collect(toList());
+    }
+
+    private PathStatistics statistics(final String prefix) {
+        try {
+            return statistics.get(prefix, () -> new PathStatistics(prefix));
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * A NodeService that keeps track of the time spent checking whether paths
+     * exist, so that it can be told apart from the time spent waiting for locks.
+     */
+    private static class TimedNodeService implements NodeService {
+
+        private final NodeService nodeService;
+
+        private long elapsed;
+
+        private TimedNodeService(final NodeService nodeService) {
+            this.nodeService = nodeService;
+        }
+
+        private long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public boolean exists(final FedoraSession session, final String path) {
+            final long start = nanoTime();
+            try {
+                return nodeService.exists(session, path);
+            } finally {
+                elapsed += nanoTime() - start;
+            }
+        }
+
+        @Override
+        public FedoraResource find(final FedoraSession session, final String path) {
+            return nodeService.find(session, path);
+        }
+
+        @Override
+        public FedoraResource findOrCreate(final FedoraSession session, final String path) {
+            return nodeService.findOrCreate(session, path);
+        }
+
+        @Override
+        public void copyObject(final FedoraSession session, final String source, final String destination) {
+            nodeService.copyObject(session, source, destination);
+        }
+
+        @Override
+        public void moveObject(final FedoraSession session, final String source, final String destination) {
+            nodeService.moveObject(session, source, destination);
+        }
+    }
+
+    /**
+     * The prefix by which the statistics of a path are aggregated.
+     * @param path the path
+     * @return the first segments of the path
+     */
+    String prefix(final String path) {
+        final StringBuilder prefix = new StringBuilder();
+        int depth = 0;
+        for (final String segment : StripedPathLockManager.segments(path)) {
+            if (depth++ == prefixDepth) {
+                break;
+            }
+            prefix.append('/').append(segment);
+        }
+        return prefix.length() == 0 ? "/" : prefix.toString();
+    }
+}
@@ -17,6 +17,11 @@
  */
 package org.fcrepo.http.api;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.TreeSet;
+
 import org.fcrepo.kernel.api.FedoraSession;
 import org.fcrepo.kernel.api.services.NodeService;
 
@@ -26,6 +31,10 @@ import org.fcrepo.kernel.api.services.NodeService;
  * concurrency-naive application that operates on hierarchical resources
  * represented by paths (as in URIs or filesystems).
  *
+ * Implementations may limit the time spent waiting for a lock, in which case
+ * a request that cannot be granted its locks in time fails with a
+ * LockTimeoutException rather than blocking indefinitely.
+ *
  * @author Mike Durbin
  */
 public interface PathLockManager {
@@ -53,6 +62,7 @@ public interface PathLockManager {
      *
      * @param path the path to a resource to be viewed
      * @return an acquired Lock on the relevant resources
+     * @throws org.fcrepo.kernel.api.exception.LockTimeoutException if the lock could not be acquired in time
      */
     public AcquiredLock lockForRead(String path);
 
@@ -68,9 +78,38 @@ public interface PathLockManager {
      * @param session the current session
      * @param nodeService the repository NodeService implementation
      * @return an acquired Lock on the relevant resources
+     * @throws org.fcrepo.kernel.api.exception.LockTimeoutException if the lock could not be acquired in time
      */
     public AcquiredLock lockForWrite(String path, FedoraSession session, NodeService nodeService);
 
+    /**
+     * Locks the necessary resources affected in order to safely write to the
+     * resources at each of the given paths, as if by lockForWrite for each.  The
+     * paths are locked in sorted order, so that callers locking overlapping sets
+     * of paths cannot deadlock, and if any lock cannot be acquired those already
+     * acquired are released.
+     *
+     * @param paths the paths to resources to be created, none of which may be an
+     *        ancestor of another
+     * @param session the current session
+     * @param nodeService the repository NodeService implementation
+     * @return an acquired Lock on the relevant resources
+     * @throws org.fcrepo.kernel.api.exception.LockTimeoutException if the locks could not be acquired in time
+     */
+    public default AcquiredLock lockAllForWrite(final Collection<String> paths, final FedoraSession session,
+            final NodeService nodeService) {
+        final Deque<AcquiredLock> locks = new ArrayDeque<>();
+        try {
+            for (final String path : new TreeSet<>(paths)) {
+                locks.push(lockForWrite(path, session, nodeService));
+            }
+        } catch (final RuntimeException e) {
+            locks.forEach(AcquiredLock::release);
+            throw e;
+        }
+        return () -> locks.forEach(AcquiredLock::release);
+    }
+
     /**
      * Locks the necessary resources affected in order to safely delete a resource
      * at the given path.  A successful return from this method should guarantee
@@ -81,6 +120,7 @@ public interface PathLockManager {
      * @param path the path to a resource to be deleted (may imply the deletion of
      *        all descendant resources)
      * @return an acquired Lock on the relevant resources
+     * @throws org.fcrepo.kernel.api.exception.LockTimeoutException if the lock could not be acquired in time
      */
     public AcquiredLock lockForDelete(String path);
 
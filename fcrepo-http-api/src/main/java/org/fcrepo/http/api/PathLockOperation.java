@@ -0,0 +1,63 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import org.fcrepo.kernel.api.exception.LockTimeoutException;
+import org.fcrepo.metrics.RegistryService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * The kinds of lock a PathLockManager grants, along with the metrics recorded
+ * for each of them: the time spent waiting for locks to be acquired and the
+ * number of requests that gave up waiting.
+ *
+ * @author agent
+ */
+enum PathLockOperation {
+
+    READ("lockForRead"), WRITE("lockForWrite"), DELETE("lockForDelete");
+
+    final Timer waitTimer;
+
+    final Counter timeouts;
+
+    private PathLockOperation(final String method) {
+        final RegistryService registryService = RegistryService.getInstance();
+        waitTimer = registryService.getMetrics().timer(MetricRegistry.name(PathLockManager.class, method, "wait"));
+        timeouts = registryService.getMetrics().counter(MetricRegistry.name(PathLockManager.class, method, "timeouts"));
+    }
+
+    /**
+     * Records that a lock request gave up waiting, and produces the exception with which
+     * the request is rejected.
+     * @param path the path on which the lock was requested
+     * @param timeout the time in milliseconds that the request waited
+     * @return an exception suggesting that the request be retried after a similar delay
+     */
+    LockTimeoutException timedOut(final String path, final long timeout) {
+        timeouts.inc();
+        return new LockTimeoutException("Timed out after " + timeout + "ms waiting for " + name().toLowerCase()
+                + " lock on " + path, Math.max(1, SECONDS.convert(timeout + 999, MILLISECONDS)));
+    }
+}
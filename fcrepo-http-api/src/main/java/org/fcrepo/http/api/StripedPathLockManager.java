@@ -0,0 +1,462 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.fcrepo.kernel.api.FedoraSession;
+import org.fcrepo.kernel.api.exception.InterruptedRuntimeException;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A PathLockManager that keeps the currently active paths in a trie and
+ * guards each node of that trie with one of a fixed set of striped locks,
+ * rather than synchronizing every request on a single monitor.
+ *
+ * Every lock request walks from the root of the trie to the requested path,
+ * taking an "intention" lock on each ancestor and the requested lock (read,
+ * write or delete) on the path itself.  Intention locks are compatible with
+ * everything but delete locks, so a delete lock on a path excludes every
+ * operation on that path's subtree while costing only O(depth) to acquire.
+ * Because nodes are always locked from the root downwards, a thread only
+ * ever blocks on a node deeper than any node it already holds, and
+ * deadlock is impossible.
+ *
+ * Waiting threads wait on the condition of the stripe that guards the node
+ * they need, so a release only wakes threads waiting on nodes in that
+ * stripe.
+ *
+ * While a delete waits for a node, no other thread is newly granted any
+ * lock on that node, so a steady stream of requests for the subtree cannot
+ * starve the delete.  Threads that already hold a lock on the node are
+ * exempt, so that a thread locking several paths one after another (see
+ * {@link #lockAllForWrite}) cannot deadlock against the waiting delete.
+ *
+ * Like the {@link DefaultPathLockManager}, the time spent waiting for read,
+ * write and delete locks may be limited with the fcrepo.http.lock.*.timeout
+ * properties.
+ *
+ * This class is not annotated as a component; to use it in place of the
+ * {@link DefaultPathLockManager} declare it as a primary bean in the Spring
+ * configuration.
+ *
+ * @author agent
+ */
+public class StripedPathLockManager implements PathLockManager {
+
+    private static final Logger LOGGER = getLogger(StripedPathLockManager.class);
+
+    /**
+     * The default number of stripes among which trie nodes are divided.
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    private static final int READ = 1;
+
+    private static final int WRITE = 2;
+
+    private static final int INTENT = 4;
+
+    private static final int DELETE = 8;
+
+    @Value("${fcrepo.http.lock.read.timeout:0}")
+    private long readTimeout;
+
+    @Value("${fcrepo.http.lock.write.timeout:0}")
+    private long writeTimeout;
+
+    @Value("${fcrepo.http.lock.delete.timeout:0}")
+    private long deleteTimeout;
+
+    private final ReentrantLock[] stripes;
+
+    private final Condition[] released;
+
+    /**
+     * The root of the trie of active paths.  The root is never removed.
+     */
+    @VisibleForTesting
+    final PathNode root;
+
+    /**
+     * Default constructor
+     */
+    public StripedPathLockManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Create a lock manager whose trie nodes are guarded by the given
+     * number of stripes.
+     * @param stripeCount the number of stripes, rounded up to a power of two
+     */
+    public StripedPathLockManager(final int stripeCount) {
+        final int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[count];
+        released = new Condition[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+            released[i] = stripes[i].newCondition();
+        }
+        root = new PathNode(null, "");
+    }
+
+    /**
+     * A node in the trie of active paths.  A node exists only as long as
+     * some lock request that passes through it (as the requested path or
+     * as an ancestor of it) has not yet been released.
+     */
+    @VisibleForTesting
+    final class PathNode {
+
+        private final PathNode parent;
+
+        private final String path;
+
+        private final int stripe;
+
+        /**
+         * Children of this node, guarded by this node's stripe.
+         */
+        private final Map<String, PathNode> children = new HashMap<>();
+
+        /**
+         * The number of unreleased requests passing through this node,
+         * guarded by the parent's stripe.
+         */
+        private int refs;
+
+        /*
+         * Counts of granted locks, guarded by this node's stripe.
+         */
+        private int readers;
+
+        private int writers;
+
+        private int intents;
+
+        private int deleters;
+
+        /**
+         * The number of deletes waiting for this node, guarded by this node's stripe.
+         */
+        private int waitingDeleters;
+
+        /**
+         * The number of granted locks held by each thread, guarded by this node's stripe.
+         */
+        private final Map<Thread, Integer> holders = new HashMap<>();
+
+        private PathNode(final PathNode parent, final String path) {
+            this.parent = parent;
+            this.path = path;
+            this.stripe = spread(path.hashCode()) & (stripes.length - 1);
+        }
+
+        /**
+         * Gets (creating it if necessary) the named child of this node and
+         * records a reference to it that must later be dropped with
+         * {@link #releaseChild(PathNode)}.
+         */
+        private PathNode retainChild(final String name) {
+            final ReentrantLock lock = stripes[stripe];
+            lock.lock();
+            try {
+                final PathNode child = children.computeIfAbsent(name,
+                        n -> new PathNode(this, path.isEmpty() ? n : path + "/" + n));
+                child.refs++;
+                return child;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Drops a reference to a child of this node, removing the child
+         * from the trie when no request passes through it any longer.
+         */
+        private void releaseChild(final PathNode child) {
+            final ReentrantLock lock = stripes[stripe];
+            lock.lock();
+            try {
+                if (--child.refs == 0) {
+                    children.remove(child.path.substring(child.path.lastIndexOf('/') + 1));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isAvailable(final int mode, final Thread thread) {
+            if (deleters > 0) {
+                return false;
+            }
+            if ((mode & DELETE) == 0 && waitingDeleters > 0 && !holders.containsKey(thread)) {
+                return false;
+            }
+            if ((mode & DELETE) != 0 && (readers > 0 || writers > 0 || intents > 0)) {
+                return false;
+            }
+            if ((mode & WRITE) != 0 && (readers > 0 || writers > 0)) {
+                return false;
+            }
+            return (mode & READ) == 0 || writers == 0;
+        }
+
+        /**
+         * Locks this node in the given mode, waiting until the deadline (if
+         * there is one) at the most.
+         * @return whether the lock was granted
+         */
+        private boolean lock(final int mode, final long timeout, final long deadline) throws InterruptedException {
+            final Thread thread = Thread.currentThread();
+            final boolean deleting = (mode & DELETE) != 0;
+            final ReentrantLock lock = stripes[stripe];
+            lock.lock();
+            try {
+                if (deleting) {
+                    waitingDeleters++;
+                }
+                try {
+                    while (!isAvailable(mode, thread)) {
+                        LOGGER.trace("Thread {} waiting for lock on {}.", thread.getId(), describe());
+                        if (timeout <= 0) {
+                            released[stripe].await();
+                        } else if (released[stripe].awaitNanos(deadline - nanoTime()) <= 0
+                                && !isAvailable(mode, thread)) {
+                            return false;
+                        }
+                    }
+                } finally {
+                    if (deleting && --waitingDeleters == 0) {
+                        released[stripe].signalAll();
+                    }
+                }
+                adjust(mode, 1);
+                holders.merge(thread, 1, Integer::sum);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void unlock(final int mode, final Thread owner) {
+            final ReentrantLock lock = stripes[stripe];
+            lock.lock();
+            try {
+                adjust(mode, -1);
+                holders.computeIfPresent(owner, (t, n) -> n == 1 ? null : n - 1);
+                released[stripe].signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void adjust(final int mode, final int delta) {
+            if ((mode & READ) != 0) {
+                readers += delta;
+            }
+            if ((mode & WRITE) != 0) {
+                writers += delta;
+            }
+            if ((mode & INTENT) != 0) {
+                intents += delta;
+            }
+            if ((mode & DELETE) != 0) {
+                deleters += delta;
+            }
+        }
+
+        private String describe() {
+            return path.isEmpty() ? "/" : path;
+        }
+
+        @VisibleForTesting
+        int size() {
+            final ReentrantLock lock = stripes[stripe];
+            lock.lock();
+            try {
+                return children.values().stream().mapToInt(PathNode::size).sum() + children.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The AcquiredLock implementation that's returned by the surrounding class:
+     * the chain of trie nodes from the root to the locked path, along with the
+     * locks held on each of them.
+     */
+    private class AcquiredTrieLock implements AcquiredLock {
+
+        private final PathNode[] chain;
+
+        private final int[] modes;
+
+        private final Thread owner;
+
+        private boolean held = true;
+
+        private AcquiredTrieLock(final PathNode[] chain, final int[] modes, final Thread owner) {
+            this.chain = chain;
+            this.modes = modes;
+            this.owner = owner;
+        }
+
+        @Override
+        public void release() {
+            if (held) {
+                held = false;
+                releaseChain(chain, modes, chain.length, owner);
+                LOGGER.trace("Thread {} released locks.", Thread.currentThread().getId());
+            }
+        }
+    }
+
+    /**
+     * Walks the trie from the root to the given path, locking each node in
+     * the corresponding mode.  If interrupted or timed out, every lock and
+     * reference taken so far is given back before the failure is reported.
+     */
+    private AcquiredLock acquire(final List<String> segments, final int[] modes, final PathLockOperation operation,
+            final long timeout) {
+        final PathNode[] chain = new PathNode[segments.size() + 1];
+        final long deadline = nanoTime() + NANOSECONDS.convert(timeout, MILLISECONDS);
+        int granted = 0;
+        boolean success = false;
+        try (final Timer.Context context = operation.waitTimer.time()) {
+            chain[0] = root;
+            for (int i = 0; i < chain.length; i++) {
+                if (i > 0) {
+                    chain[i] = chain[i - 1].retainChild(segments.get(i - 1));
+                }
+                if (!chain[i].lock(modes[i], timeout, deadline)) {
+                    throw operation.timedOut("/" + join(segments, segments.size()), timeout);
+                }
+                granted = i + 1;
+            }
+            success = true;
+            LOGGER.debug("Acquired all necessary path locks  (Thread {})", Thread.currentThread().getId());
+            return new AcquiredTrieLock(chain, modes, Thread.currentThread());
+        } catch (final InterruptedException e) {
+            throw new InterruptedRuntimeException(e);
+        } finally {
+            if (!success) {
+                releaseChain(chain, modes, granted, Thread.currentThread());
+            }
+        }
+    }
+
+    /**
+     * Releases, from the deepest node upwards, the locks granted on the first
+     * {@code granted} nodes of the chain and every reference held on it.
+     */
+    private static void releaseChain(final PathNode[] chain, final int[] modes, final int granted,
+            final Thread owner) {
+        for (int i = chain.length - 1; i >= 0; i--) {
+            if (chain[i] == null) {
+                continue;
+            }
+            if (i < granted) {
+                chain[i].unlock(modes[i], owner);
+            }
+            if (i > 0) {
+                chain[i - 1].releaseChild(chain[i]);
+            }
+        }
+    }
+
+    /**
+     * Lock modes for a request that takes the given mode on the path at
+     * the given depth and an intention lock on each of its ancestors.
+     */
+    private static int[] modes(final int depth, final int mode) {
+        final int[] modes = new int[depth + 1];
+        for (int i = 0; i < depth; i++) {
+            modes[i] = INTENT;
+        }
+        modes[depth] = mode;
+        return modes;
+    }
+
+    @VisibleForTesting
+    static List<String> segments(final String path) {
+        final List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static String join(final List<String> segments, final int depth) {
+        return String.join("/", segments.subList(0, depth));
+    }
+
+    private static int spread(final int h) {
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public AcquiredLock lockForRead(final String path) {
+        final List<String> segments = segments(path);
+        return acquire(segments, modes(segments.size(), READ), PathLockOperation.READ, readTimeout);
+    }
+
+    @Override
+    public AcquiredLock lockForWrite(final String path, final FedoraSession session, final NodeService nodeService) {
+        final List<String> segments = segments(path);
+        final int depth = segments.size();
+        final int[] modes = modes(depth, WRITE);
+
+        // also write lock each path that would be created implicitly by this
+        // write (ie, non-existent ancestral paths)
+        final String prefix = path.startsWith("/") ? "/" : "";
+        for (int i = depth - 1; i > 0 && !nodeService.exists(session, prefix + join(segments, i)); i--) {
+            modes[i] |= WRITE;
+        }
+        return acquire(segments, modes, PathLockOperation.WRITE, writeTimeout);
+    }
+
+    @Override
+    public AcquiredLock lockForDelete(final String path) {
+        final List<String> segments = segments(path);
+        return acquire(segments, modes(segments.size(), DELETE), PathLockOperation.DELETE, deleteTimeout);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.repository;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static org.fcrepo.kernel.modeshape.FedoraSessionImpl.getJcrSession;
+import static org.modeshape.jcr.ModeShapePermissions.MONITOR;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.jcr.RepositoryException;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import org.fcrepo.http.api.InstrumentedPathLockManager;
+import org.fcrepo.http.api.PathLockManager;
+import org.fcrepo.http.commons.AbstractResource;
+import org.fcrepo.http.commons.session.HttpSession;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.springframework.context.annotation.Scope;
+
+import com.codahale.metrics.annotation.Timed;
+
+/**
+ * Repository-wide report of path lock contention: the path prefixes whose
+ * requests have waited longest for locks, and the locks currently held.
+ * Available only when the PathLockManager is an InstrumentedPathLockManager, and
+ * only to sessions with the repository's monitor permission, since the report
+ * names repository paths and the threads holding them.
+ *
+ * @author agent
+ */
+@Scope("request")
+@Path("/fcr:locks")
+public class FedoraPathLocks extends AbstractResource {
+
+    @Inject
+    protected HttpSession session;
+
+    @Inject
+    protected PathLockManager lockManager;
+
+    /**
+     * Report on path lock contention
+     *
+     * @param limit the maximum number of contended path prefixes to list
+     * @return the most contended path prefixes and the locks currently held
+     */
+    @GET
+    @Timed
+    @Produces({APPLICATION_JSON + ";qs=1.0"})
+    public Response getLocks(@QueryParam("limit") @DefaultValue("10") final int limit) {
+        if (!canMonitor()) {
+            return status(FORBIDDEN).build();
+        } else if (limit < 0) {
+            return status(BAD_REQUEST).entity("The limit must not be negative").build();
+        } else if (!(lockManager instanceof InstrumentedPathLockManager)) {
+            return status(NOT_FOUND).entity("Path lock instrumentation is not enabled").build();
+        }
+        final InstrumentedPathLockManager instrumented = (InstrumentedPathLockManager) lockManager;
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("contended", instrumented.getMostContended(limit));
+        report.put("holders", instrumented.getHolders());
+        return ok(report).build();
+    }
+
+    private boolean canMonitor() {
+        try {
+            return getJcrSession(session.getFedoraSession()).hasPermission("/", MONITOR);
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.fcrepo.http.api.responses;
 
 import static java.lang.System.getProperty;
 import static java.util.stream.Stream.of;
+import static javax.ws.rs.core.HttpHeaders.LINK;
 import static javax.ws.rs.core.MediaType.TEXT_HTML_TYPE;
 import static com.google.common.collect.ImmutableMap.builder;
 import static org.apache.jena.graph.Node.ANY;
@@ -37,6 +38,7 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.net.URI;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
@@ -45,6 +47,7 @@ import java.util.Properties;
 
 import javax.annotation.PostConstruct;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.UriInfo;
@@ -172,6 +175,10 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfNamespace
         final Template nodeTypeTemplate = getTemplate(model, subject, Arrays.asList(annotations));
 
         final Context context = getContext(model, subject);
+        final URI nextPage = getNextPage(httpHeaders);
+        if (nextPage != null) {
+            context.put("nextPage", nextPage);
+        }
 
         // the contract of MessageBodyWriter<T> is _not_ to close the stream
         // after writing to it
@@ -197,6 +204,18 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfNamespace
         return context;
     }
 
+    /**
+     * Find the next page of a paged container among the Link headers of the response.
+     */
+    private static URI getNextPage(final MultivaluedMap<String, Object> httpHeaders) {
+        final List<Object> links = httpHeaders == null ? null : httpHeaders.get(LINK);
+        if (links == null) {
+            return null;
+        }
+        return links.stream().map(l -> l instanceof Link ? (Link) l : Link.valueOf(l.toString()))
+            .filter(l -> "next".equals(l.getRel())).map(Link::getUri).findFirst().orElse(null);
+    }
+
     private Template getTemplate(final Model rdf, final Node subject,
                                  final List<Annotation> annotations) {
 
@@ -17,15 +17,20 @@
  */
 package org.fcrepo.http.api;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 import org.fcrepo.http.api.PathLockManager.AcquiredLock;
 import org.fcrepo.kernel.api.FedoraSession;
 import org.fcrepo.kernel.api.exception.InterruptedRuntimeException;
+import org.fcrepo.kernel.api.exception.LockTimeoutException;
 import org.fcrepo.kernel.api.services.NodeService;
 import org.junit.Before;
 import org.junit.Test;
@@ -119,6 +124,20 @@ public class DefaultPathLockManagerTest {
         assertTrue("Sibling writes should not block!!", writer.canComplete());
     }
 
+    @Test
+    public void lockAllForWriteShouldHoldEveryPath() {
+        final DefaultPathLockManager m = new DefaultPathLockManager();
+        final AcquiredLock l = m.lockAllForWrite(asList("0/1", "0/0"), session, nodeService);
+        assertTrue("Writes to a path locked in a batch should block!",
+                new Actor(() -> m.lockForWrite("0/0", session, nodeService)).isBlocked());
+        assertTrue("Writes to a path locked in a batch should block!",
+                new Actor(() -> m.lockForWrite("0/1", session, nodeService)).isBlocked());
+        l.release();
+        assertTrue("Writes should complete once the batch is released.",
+                new Actor(() -> m.lockForWrite("0/1", session, nodeService)).canComplete());
+        assertEquals("There should no active paths in memory.", 0, m.activePaths.size());
+    }
+
     @Test
     public void siblingCreatesShouldNotBlock() {
         when(nodeService.exists(any(), eq("0/0"))).thenReturn(false);
@@ -167,6 +186,67 @@ public class DefaultPathLockManagerTest {
                 new Actor(() -> m.lockForWrite("root/other", session, nodeService)).canComplete());
     }
 
+    @Test
+    public void twoPhaseWritesShouldBlock() {
+        final DefaultPathLockManager m = new DefaultPathLockManager();
+        setField(m, "twoPhaseWriteLocks", true);
+        final String path = "path1";
+        final AcquiredLock l = m.lockForWrite(path, session, nodeService);
+        final Actor r = new Actor(() -> m.lockForWrite(path, session, nodeService));
+        assertTrue("Concurrent writes to the same path should block!", r.isBlocked());
+        l.release();
+        assertTrue("Write should be able to complete sequentially.",
+                new Actor(() -> m.lockForWrite(path, session, nodeService)).canComplete());
+        assertEquals("No modifications should be remembered.", 0, m.recentlyModifiedPaths.size());
+    }
+
+    @Test
+    public void twoPhaseWriteShouldRetryWhenAncestryChanges() throws InterruptedException {
+        when(nodeService.exists(any(), eq("a"))).thenReturn(false);
+        final DefaultPathLockManager m = new DefaultPathLockManager();
+        setField(m, "twoPhaseWriteLocks", true);
+
+        // another writer is creating "a"...
+        final AcquiredLock l = m.lockForWrite("a", session, nodeService);
+        final Actor writer = new Actor(() -> m.lockForWrite("a/b", session, nodeService));
+        writer.join(WAIT / 10);
+        assertTrue("Implicitly creating a path being written should block!", writer.isAlive());
+
+        // ...and finishes
+        when(nodeService.exists(any(), eq("a"))).thenReturn(true);
+        l.release();
+        assertTrue("Write should complete once the ancestor has been created.", writer.canComplete());
+        verify(nodeService, times(2)).exists(any(), eq("a"));
+        assertEquals("There should no active paths in memory.", 0, m.activePaths.size());
+        assertEquals("No modifications should be remembered.", 0, m.recentlyModifiedPaths.size());
+    }
+
+    @Test
+    public void writeShouldTimeOut() {
+        final DefaultPathLockManager m = new DefaultPathLockManager();
+        setField(m, "writeTimeout", 10L);
+        final AcquiredLock l = m.lockForWrite("path1", session, nodeService);
+        assertTrue("Concurrent write should time out!",
+                new Actor(() -> m.lockForWrite("path1", session, nodeService)).hasTimedOut());
+        l.release();
+    }
+
+    @Test
+    public void timedOutRequestShouldCleanUp() {
+        final DefaultPathLockManager m = new DefaultPathLockManager();
+        setField(m, "readTimeout", 10L);
+        setField(m, "deleteTimeout", 10L);
+        final AcquiredLock l = m.lockForWrite("a/b", session, nodeService);
+        assertTrue("Read should time out while writing to same path!",
+                new Actor(() -> m.lockForRead("a/b")).hasTimedOut());
+        assertTrue("Delete should time out while writing to a descendant!",
+                new Actor(() -> m.lockForDelete("a")).hasTimedOut());
+        l.release();
+        assertEquals("There should no active paths in memory.", 0, m.activePaths.size());
+        assertTrue("Delete should complete once the write is released.",
+                new Actor(() -> m.lockForDelete("a")).canComplete());
+    }
+
     /**
      * An interface whose single method acquires an AcquiredLock.
      */
@@ -181,6 +261,8 @@ public class DefaultPathLockManagerTest {
 
         private boolean interrupted;
 
+        private boolean timedOut;
+
         private Locker l;
 
         public Actor(final Locker l) {
@@ -195,6 +277,8 @@ public class DefaultPathLockManagerTest {
                 lock = l.acquireLock();
             } catch (InterruptedRuntimeException e) {
                 interrupted = true;
+            } catch (LockTimeoutException e) {
+                timedOut = true;
             }
             if (lock != null) {
                 lock.release();
@@ -216,6 +300,13 @@ public class DefaultPathLockManagerTest {
             return interrupted;
         }
 
+        /**
+         * Determines if the thread gave up waiting for its lock.
+         */
+        private boolean hasTimedOut() {
+            return canComplete() && timedOut;
+        }
+
         /**
          * Determines if the thread has/can complete (ie, is not blocked).
          * The current implementation joins this thread (with a timeout)
@@ -0,0 +1,279 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static javax.ws.rs.core.Response.Status.CONFLICT;
+import static javax.ws.rs.core.Response.Status.CREATED;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static org.apache.commons.io.IOUtils.toInputStream;
+import static org.fcrepo.http.api.FedoraBatch.FAILED_DEPENDENCY;
+import static org.fcrepo.http.api.FedoraBatch.MULTI_STATUS;
+import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES_TYPE;
+import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import javax.jcr.Session;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.fcrepo.http.api.PathLockManager.AcquiredLock;
+import org.fcrepo.http.commons.api.rdf.HttpResourceConverter;
+import org.fcrepo.http.commons.session.HttpSession;
+import org.fcrepo.kernel.api.RdfStream;
+import org.fcrepo.kernel.api.exception.AccessDeniedException;
+import org.fcrepo.kernel.api.exception.InvalidChecksumException;
+import org.fcrepo.kernel.api.exception.ServerManagedPropertyException;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.api.models.Container;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.services.BinaryService;
+import org.fcrepo.kernel.api.services.ContainerService;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.fcrepo.kernel.modeshape.FedoraSessionImpl;
+import org.glassfish.jersey.media.multipart.BodyPart;
+import org.glassfish.jersey.media.multipart.MultiPart;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * @author agent
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FedoraBatchTest {
+
+    private final String path = "/some/path";
+
+    private FedoraBatch testObj;
+
+    @Mock
+    private HttpSession mockSession;
+
+    @Mock
+    private FedoraSessionImpl mockFedoraSession;
+
+    @Mock
+    private Session mockJcrSession;
+
+    @Mock
+    private Container mockParent;
+
+    @Mock
+    private Container mockContainer;
+
+    @Mock
+    private FedoraBinary mockBinary;
+
+    @Mock
+    private NodeService mockNodeService;
+
+    @Mock
+    private ContainerService mockContainerService;
+
+    @Mock
+    private BinaryService mockBinaryService;
+
+    @Mock
+    private PathLockManager mockLockManager;
+
+    @Mock
+    private AcquiredLock mockLock;
+
+    @Before
+    public void setUp() {
+        testObj = spy(new FedoraBatch(path));
+
+        final IdentifierConverter<Resource, FedoraResource> idTranslator = new HttpResourceConverter(mockSession,
+                UriBuilder.fromUri("http://localhost/fcrepo/{path: .*}"));
+
+        setField(testObj, "uriInfo", getUriInfoImpl());
+        setField(testObj, "idTranslator", idTranslator);
+        setField(testObj, "nodeService", mockNodeService);
+        setField(testObj, "containerService", mockContainerService);
+        setField(testObj, "binaryService", mockBinaryService);
+        setField(testObj, "session", mockSession);
+        setField(testObj, "lockManager", mockLockManager);
+
+        doReturn(mockParent).when(testObj).resource();
+        when(mockParent.getPath()).thenReturn(path);
+        when(mockContainer.getPath()).thenReturn(path + "/a");
+        when(mockBinary.getPath()).thenReturn(path + "/b");
+        when(mockContainerService.findOrCreate(mockFedoraSession, path + "/a")).thenReturn(mockContainer);
+        when(mockBinaryService.findOrCreate(mockFedoraSession, path + "/b")).thenReturn(mockBinary);
+
+        when(mockLockManager.lockAllForWrite(anyCollectionOf(String.class), any(), any())).thenReturn(mockLock);
+        when(mockSession.getFedoraSession()).thenReturn(mockFedoraSession);
+        when(mockFedoraSession.getJcrSession()).thenReturn(mockJcrSession);
+    }
+
+    private static BodyPart part(final String slug, final String body, final MediaType type) {
+        final BodyPart part = new BodyPart(toInputStream(body, UTF_8), type);
+        part.getHeaders().putSingle("Slug", slug);
+        return part;
+    }
+
+    private MultiPart batch() {
+        return new MultiPart()
+                .bodyPart(part("a", "_:a <info:x> _:c .", NTRIPLES_TYPE))
+                .bodyPart(part("b", "xyz", TEXT_PLAIN_TYPE));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> report(final Response response) {
+        return (List<Map<String, Object>>) response.getEntity();
+    }
+
+    @Test
+    public void testCreateObjects() throws Exception {
+        final Response actual = testObj.createObjects(batch());
+
+        assertEquals(MULTI_STATUS, actual.getStatus());
+        final List<Map<String, Object>> report = report(actual);
+        assertEquals(2, report.size());
+        assertEquals(CREATED.getStatusCode(), report.get(0).get("status"));
+        assertEquals("http://localhost/fcrepo/some/path/a", report.get(0).get("location"));
+        assertEquals(CREATED.getStatusCode(), report.get(1).get("status"));
+        assertEquals("http://localhost/fcrepo/some/path/b", report.get(1).get("location"));
+
+        verify(mockLockManager).lockAllForWrite(eq(asList(path + "/a", path + "/b")), eq(mockFedoraSession),
+                eq(mockNodeService));
+        verify(mockContainer).replaceProperties(any(), any(Model.class), any(RdfStream.class));
+        verify(mockBinary).setContent(any(InputStream.class), eq("text/plain"), anySetOf(URI.class),
+                any(), any());
+        verify(mockSession).commit();
+        verify(mockJcrSession, never()).refresh(anyBoolean());
+        verify(mockLock).release();
+    }
+
+    @Test
+    public void testFailedPartPreventsCommit() throws Exception {
+        doThrow(new InvalidChecksumException("bad digest")).when(mockBinary)
+                .setContent(any(InputStream.class), any(), any(), any(), any());
+        final Response actual = testObj.createObjects(batch()
+                .bodyPart(part("c", "_:a <info:x> _:c .", NTRIPLES_TYPE)));
+
+        assertEquals(MULTI_STATUS, actual.getStatus());
+        final List<Map<String, Object>> report = report(actual);
+        assertEquals(FAILED_DEPENDENCY, report.get(0).get("status"));
+        assertEquals(null, report.get(0).get("location"));
+        assertEquals(CONFLICT.getStatusCode(), report.get(1).get("status"));
+        assertEquals("bad digest", report.get(1).get("message"));
+        assertEquals(FAILED_DEPENDENCY, report.get(2).get("status"));
+        verify(mockSession, never()).commit();
+        verify(mockJcrSession).refresh(false);
+        verify(mockLock).release();
+    }
+
+    @Test
+    public void testUnexpectedFailureDiscardsChanges() throws Exception {
+        doThrow(new RepositoryRuntimeException("broken")).when(mockBinary)
+                .setContent(any(InputStream.class), any(), any(), any(), any());
+        try {
+            testObj.createObjects(batch());
+            fail("The failure should not be reported as a part status");
+        } catch (final RepositoryRuntimeException e) {
+            verify(mockSession, never()).commit();
+            verify(mockJcrSession).refresh(false);
+            verify(mockLock).release();
+        }
+    }
+
+    @Test
+    public void testPathCreatedWhileWaitingForLock() throws Exception {
+        when(mockNodeService.exists(mockFedoraSession, path + "/b")).thenReturn(false, true);
+        final Response actual = testObj.createObjects(batch());
+
+        final List<Map<String, Object>> report = report(actual);
+        assertEquals(FAILED_DEPENDENCY, report.get(0).get("status"));
+        assertEquals(CONFLICT.getStatusCode(), report.get(1).get("status"));
+        verify(mockBinaryService, never()).findOrCreate(mockFedoraSession, path + "/b");
+        verify(mockSession, never()).commit();
+        verify(mockJcrSession).refresh(false);
+    }
+
+    @Test
+    public void testConstraintViolationIsReported() throws Exception {
+        doThrow(new ServerManagedPropertyException("server managed")).when(mockBinary)
+                .setContent(any(InputStream.class), any(), any(), any(), any());
+        final Response actual = testObj.createObjects(batch());
+
+        final List<Map<String, Object>> report = report(actual);
+        assertEquals(MULTI_STATUS, actual.getStatus());
+        assertEquals(CONFLICT.getStatusCode(), report.get(1).get("status"));
+        verify(mockSession, never()).commit();
+    }
+
+    @Test
+    public void testAccessDeniedIsReported() throws Exception {
+        doThrow(new AccessDeniedException("denied")).when(mockBinary)
+                .setContent(any(InputStream.class), any(), any(), any(), any());
+        final Response actual = testObj.createObjects(batch());
+
+        final List<Map<String, Object>> report = report(actual);
+        assertEquals(MULTI_STATUS, actual.getStatus());
+        assertEquals(FORBIDDEN.getStatusCode(), report.get(1).get("status"));
+        verify(mockSession, never()).commit();
+    }
+
+    @Test
+    public void testRejectedWithinTransaction() throws Exception {
+        when(mockSession.isBatchSession()).thenReturn(true);
+        try {
+            testObj.createObjects(batch());
+            fail("A batch should not be accepted within a transaction");
+        } catch (final ClientErrorException e) {
+            assertEquals(CONFLICT.getStatusCode(), e.getResponse().getStatus());
+            verify(mockLockManager, never()).lockAllForWrite(anyCollectionOf(String.class), any(), any());
+            verify(mockJcrSession, never()).refresh(anyBoolean());
+        }
+    }
+
+    @Test(expected = ClientErrorException.class)
+    public void testDuplicateSlugs() throws Exception {
+        testObj.createObjects(batch().bodyPart(part("a", "", NTRIPLES_TYPE)));
+    }
+}
@@ -21,6 +21,7 @@ import static com.google.common.base.Predicates.containsPattern;
 import static java.net.URI.create;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static java.util.stream.Stream.of;
 import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
@@ -31,20 +32,28 @@ import static javax.ws.rs.core.HttpHeaders.LINK;
 import static javax.ws.rs.core.Response.Status.CREATED;
 import static javax.ws.rs.core.Response.Status.NO_CONTENT;
 import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.PARTIAL_CONTENT;
+import static javax.ws.rs.core.Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE;
 import static javax.ws.rs.core.Response.Status.TEMPORARY_REDIRECT;
+import static org.apache.commons.io.FileUtils.write;
 import static org.apache.commons.io.IOUtils.toInputStream;
 import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.apache.jena.rdf.model.ResourceFactory.createProperty;
+import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.apache.jena.riot.Lang.RDFTHRIFT;
 import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
 import static org.fcrepo.http.api.ContentExposingResource.getSimpleContentType;
 import static org.fcrepo.http.api.FedoraBaseResource.JMS_BASEURL_PROP;
 import static org.fcrepo.http.api.FedoraLdp.HTTP_HEADER_ACCEPT_PATCH;
 import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_THRIFT_TYPE;
 import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_BASIC_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_DIRECT_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_INDIRECT_CONTAINER;
 import static org.fcrepo.kernel.api.RdfCollectors.toModel;
 import static org.fcrepo.kernel.api.RdfLexicon.BASIC_CONTAINER;
+import static org.fcrepo.kernel.api.RdfLexicon.CONTAINS;
 import static org.fcrepo.kernel.api.RdfLexicon.DIRECT_CONTAINER;
 import static org.fcrepo.kernel.api.RdfLexicon.INBOUND_REFERENCES;
 import static org.fcrepo.kernel.api.RdfLexicon.INDIRECT_CONTAINER;
@@ -52,6 +61,8 @@ import static org.fcrepo.kernel.api.RdfLexicon.LDP_NAMESPACE;
 import static org.fcrepo.kernel.api.observer.OptionalValues.BASE_URL;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -60,6 +71,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -67,6 +79,9 @@ import static org.mockito.Mockito.when;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.springframework.test.util.ReflectionTestUtils.setField;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -86,10 +101,12 @@ import javax.ws.rs.ServerErrorException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
@@ -98,18 +115,22 @@ import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.RDFDataMgr;
 import org.fcrepo.http.api.PathLockManager.AcquiredLock;
 import org.fcrepo.http.commons.api.rdf.HttpResourceConverter;
 import org.fcrepo.http.commons.domain.MultiPrefer;
 import org.fcrepo.http.commons.responses.RdfNamespacedStream;
+import org.fcrepo.http.commons.responses.RepresentationCache;
 import org.fcrepo.http.commons.session.HttpSession;
 import org.fcrepo.kernel.api.FedoraSession;
 import org.fcrepo.kernel.api.RdfStream;
+import org.fcrepo.kernel.api.RequiredRdfContext;
 import org.fcrepo.kernel.api.TripleCategory;
 import org.fcrepo.kernel.api.exception.InsufficientStorageException;
 import org.fcrepo.kernel.api.exception.InvalidChecksumException;
 import org.fcrepo.kernel.api.exception.MalformedRdfException;
 import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.api.models.ChildrenPage;
 import org.fcrepo.kernel.api.models.Container;
 import org.fcrepo.kernel.api.models.FedoraBinary;
 import org.fcrepo.kernel.api.models.FedoraResource;
@@ -121,8 +142,11 @@ import org.fcrepo.kernel.api.services.NodeService;
 import org.glassfish.jersey.internal.PropertiesDelegate;
 import org.glassfish.jersey.server.ContainerRequest;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
@@ -144,6 +168,9 @@ public class FedoraLdpTest {
     private final String binaryDescriptionPath = "/some/other/path";
     private FedoraLdp testObj;
 
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
     @Mock
     private Request mockRequest;
 
@@ -461,6 +488,50 @@ public class FedoraLdpTest {
         }
     }
 
+    @Test
+    public void testGetWithLimitLinksToNextPage() throws Exception {
+        final FedoraResource resource = setResource(Container.class);
+        final Container child = mock(Container.class);
+        when(child.getPath()).thenReturn(path + "/a");
+        when(child.getDescribedResource()).thenReturn(child);
+        when(mockHeaders.getRequestHeader("Limit")).thenReturn(asList("1"));
+        when(resource.getChildren(null, 1)).thenReturn(new ChildrenPage(asList(child), "cursor"));
+
+        final Response actual = testObj.getResource(null);
+        assertEquals(OK.getStatusCode(), actual.getStatus());
+        assertTrue("Should be an LDP Page",
+                mockResponse.getHeaders(LINK).contains("<" + LDP_NAMESPACE + "Page>;rel=\"type\""));
+        final Link next = (Link) actual.getMetadata().getFirst(LINK);
+        assertEquals("next", next.getRel());
+        assertEquals("1.cursor", next.getUri().getQuery().replace("page=", ""));
+
+        try (final RdfNamespacedStream entity = (RdfNamespacedStream) actual.getEntity()) {
+            final Model model = entity.stream.collect(toModel());
+            assertTrue("Expected the child on this page", model.contains(
+                    idTranslator.reverse().convert(resource), CONTAINS,
+                    idTranslator.reverse().convert(child)));
+        }
+    }
+
+    @Test
+    public void testGetWithPageResumesFromCursor() throws Exception {
+        final FedoraResource resource = setResource(Container.class);
+        setField(testObj, "page", "1.cursor");
+        when(resource.getChildren("cursor", 1)).thenReturn(new ChildrenPage(emptyList(), null));
+
+        final Response actual = testObj.getResource(null);
+        assertEquals(OK.getStatusCode(), actual.getStatus());
+        assertNull("Should be the last page", actual.getMetadata().getFirst(LINK));
+        verify(resource).getChildren("cursor", 1);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetWithBadPage() throws Exception {
+        setResource(Container.class);
+        setField(testObj, "page", "cursor");
+        testObj.getResource(null);
+    }
+
     @Test
     public void testGetWithObject() throws Exception {
         setResource(Container.class);
@@ -643,6 +714,67 @@ public class FedoraLdpTest {
         }
     }
 
+    @Test
+    public void testGetWithObjectIncludeReferencesLimited() throws ParseException, IOException {
+        final FedoraResource mockResource = setResource(Container.class);
+        when(mockResource.getTriples(eq(idTranslator), eq(RequiredRdfContext.INBOUND_REFERENCES)))
+                .thenAnswer(invocation -> new DefaultRdfStream(createURI("a"), of(
+                        Triple.create(createURI("info:x"), createURI("info:p"), createURI("a")),
+                        Triple.create(createURI("info:y"), createURI("info:p"), createURI("a")))));
+        when(mockHeaders.getRequestHeader("Limit")).thenReturn(asList("5"));
+        when(mockResource.getChildren(null, 5)).thenReturn(new ChildrenPage(emptyList(), null));
+        setField(testObj, "prefer", new MultiPrefer("return=representation; include=\"" + INBOUND_REFERENCES + "\""));
+        setField(testObj, "referencesLimit", "1");
+        final Response actual = testObj.getResource(null);
+
+        try (final RdfNamespacedStream entity = (RdfNamespacedStream) actual.getEntity()) {
+            final Model model = entity.stream.collect(toModel());
+            assertEquals("The references limit should apply to inbound references", 1,
+                    model.listSubjectsWithProperty(createProperty("info:p")).toList().size());
+        }
+    }
+
+    @Test
+    public void testGetWithObjectIncludeReferencesIgnoresChildLimit() throws ParseException, IOException {
+        final FedoraResource mockResource = setResource(Container.class);
+        when(mockResource.getTriples(eq(idTranslator), eq(RequiredRdfContext.INBOUND_REFERENCES)))
+                .thenAnswer(invocation -> new DefaultRdfStream(createURI("a"), of(
+                        Triple.create(createURI("info:x"), createURI("info:p"), createURI("a")),
+                        Triple.create(createURI("info:y"), createURI("info:p"), createURI("a")))));
+        when(mockHeaders.getRequestHeader("Limit")).thenReturn(asList("1"));
+        when(mockResource.getChildren(null, 1)).thenReturn(new ChildrenPage(emptyList(), null));
+        setField(testObj, "prefer", new MultiPrefer("return=representation; include=\"" + INBOUND_REFERENCES + "\""));
+        final Response actual = testObj.getResource(null);
+
+        try (final RdfNamespacedStream entity = (RdfNamespacedStream) actual.getEntity()) {
+            final Model model = entity.stream.collect(toModel());
+            assertEquals("The child limit should not apply to inbound references", 2,
+                    model.listSubjectsWithProperty(createProperty("info:p")).toList().size());
+        }
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetWithInvalidReferencesLimit() throws Exception {
+        setResource(Container.class);
+        setField(testObj, "prefer", new MultiPrefer("return=representation; include=\"" + INBOUND_REFERENCES + "\""));
+        setField(testObj, "referencesLimit", "-2");
+        testObj.getResource(null);
+    }
+
+    @Test
+    public void testGetCachesOnlyForIdentifiedSessions() throws Exception {
+        setResource(Container.class);
+        setField(testObj, "representationCache", new RepresentationCache(1024));
+        try (final RdfNamespacedStream entity = (RdfNamespacedStream) testObj.getResource(null).getEntity()) {
+            assertNull("A session of unknown principals should not share representations", entity.cacheKey);
+        }
+
+        when(mockSession.getIdentity()).thenReturn("alice");
+        try (final RdfNamespacedStream entity = (RdfNamespacedStream) testObj.getResource(null).getEntity()) {
+            assertNotNull(entity.cacheKey);
+        }
+    }
+
     @Test
     public void testGetWithBinary() throws Exception {
         final FedoraBinary mockResource = (FedoraBinary)setResource(FedoraBinary.class);
@@ -657,6 +789,66 @@ public class FedoraLdpTest {
         assertTrue(IOUtils.toString((InputStream)actual.getEntity(), UTF_8).equals("xyz"));
     }
 
+    @Test
+    public void testGetWithBinaryRangeFromFile() throws Exception {
+        final FedoraBinary mockResource = (FedoraBinary)setResource(FedoraBinary.class);
+        when(mockResource.getDescription()).thenReturn(mockNonRdfSourceDescription);
+        when(mockResource.getMimeType()).thenReturn("text/plain");
+        when(mockResource.getContentSize()).thenReturn(10L);
+        final File file = tmpDir.newFile();
+        write(file, "0123456789", UTF_8);
+        when(mockResource.getContentFile()).thenReturn(file);
+        final Response actual = testObj.getResource("bytes=5-7");
+        assertEquals(PARTIAL_CONTENT.getStatusCode(), actual.getStatus());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) actual.getEntity()).write(out);
+        assertEquals("567", out.toString(UTF_8.name()));
+        verify(mockResource, never()).getContent();
+    }
+
+    @Test
+    public void testGetWithBinaryRanges() throws Exception {
+        final FedoraBinary mockResource = (FedoraBinary)setResource(FedoraBinary.class);
+        when(mockResource.getDescription()).thenReturn(mockNonRdfSourceDescription);
+        when(mockResource.getMimeType()).thenReturn("text/plain");
+        when(mockResource.getContentSize()).thenReturn(10L);
+        when(mockResource.getContent()).thenReturn(toInputStream("0123456789", UTF_8));
+        final Response actual = testObj.getResource("bytes=0-1,3-4,-2,1-2");
+        assertEquals(PARTIAL_CONTENT.getStatusCode(), actual.getStatus());
+        assertEquals("byteranges", actual.getMediaType().getSubtype());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) actual.getEntity()).write(out);
+        final String parts = out.toString(UTF_8.name());
+        assertTrue(parts.contains("Content-Range: bytes 0-4/10\r\n\r\n01234\r\n"));
+        assertTrue(parts.contains("Content-Range: bytes 8-9/10\r\n\r\n89\r\n"));
+        verify(mockResource, times(1)).getContent();
+    }
+
+    @Test
+    public void testGetWithBinaryRangeOverlappingIntoOne() throws Exception {
+        final FedoraBinary mockResource = (FedoraBinary)setResource(FedoraBinary.class);
+        when(mockResource.getDescription()).thenReturn(mockNonRdfSourceDescription);
+        when(mockResource.getMimeType()).thenReturn("text/plain");
+        when(mockResource.getContentSize()).thenReturn(10L);
+        when(mockResource.getContent()).thenReturn(toInputStream("0123456789", UTF_8));
+        final Response actual = testObj.getResource("bytes=2-5,4-,-3");
+        assertEquals(PARTIAL_CONTENT.getStatusCode(), actual.getStatus());
+        assertEquals("bytes 2-9/10", actual.getHeaderString("Content-Range"));
+        assertEquals("23456789", IOUtils.toString((InputStream) actual.getEntity(), UTF_8));
+    }
+
+    @Test
+    public void testGetWithUnsatisfiableBinaryRange() throws Exception {
+        final FedoraBinary mockResource = (FedoraBinary)setResource(FedoraBinary.class);
+        when(mockResource.getDescription()).thenReturn(mockNonRdfSourceDescription);
+        when(mockResource.getMimeType()).thenReturn("text/plain");
+        when(mockResource.getContentSize()).thenReturn(10L);
+        final Response actual = testObj.getResource("bytes=10-,20-30");
+        assertEquals(REQUESTED_RANGE_NOT_SATISFIABLE.getStatusCode(), actual.getStatus());
+        assertEquals("bytes */10", actual.getHeaderString("Content-Range"));
+        verify(mockResource, never()).getContent();
+    }
+
     private void assertShouldBeAnLDPNonRDFSource() {
         assertTrue("Should be an LDP NonRDFSource",
                 mockResponse.getHeaders(LINK).contains("<" + LDP_NAMESPACE + "NonRDFSource>;rel=\"type\""));
@@ -892,6 +1084,23 @@ public class FedoraLdpTest {
         verify(mockContainer).replaceProperties(eq(idTranslator), any(Model.class), any(RdfStream.class));
     }
 
+    @Test
+    public void testCreateNewObjectWithThrift() throws MalformedRdfException,
+           InvalidChecksumException, IOException {
+        setResource(Container.class);
+        when(mockContainerService.findOrCreate(mockFedoraSession, "/b")).thenReturn(mockContainer);
+        final Model input = createDefaultModel();
+        input.add(input.createResource("info:a"), input.createProperty("info:b"), "c");
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        RDFDataMgr.write(body, input, RDFTHRIFT);
+
+        final Response actual = testObj.createObject(null, RDF_THRIFT_TYPE, "b",
+                new ByteArrayInputStream(body.toByteArray()), null, null);
+        assertEquals(CREATED.getStatusCode(), actual.getStatus());
+        final ArgumentCaptor<Model> model = ArgumentCaptor.forClass(Model.class);
+        verify(mockContainer).replaceProperties(eq(idTranslator), model.capture(), any(RdfStream.class));
+        assertTrue("Didn't find the posted triple!", model.getValue().isIsomorphicWith(input));
+    }
 
     @Test
     public void testCreateNewBinary() throws MalformedRdfException, InvalidChecksumException,
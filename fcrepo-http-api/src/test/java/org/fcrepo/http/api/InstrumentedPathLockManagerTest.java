@@ -0,0 +1,143 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.fcrepo.http.api.InstrumentedPathLockManager.HeldLock;
+import org.fcrepo.http.api.InstrumentedPathLockManager.PathStatistics;
+import org.fcrepo.http.api.PathLockManager.AcquiredLock;
+import org.fcrepo.kernel.api.FedoraSession;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.fcrepo.metrics.RegistryService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Unit tests for InstrumentedPathLockManager.
+ * @author agent
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class InstrumentedPathLockManagerTest {
+
+    @Mock
+    private PathLockManager delegate;
+
+    @Mock
+    private AcquiredLock lock;
+
+    @Mock
+    private FedoraSession session;
+
+    @Mock
+    private NodeService nodeService;
+
+    private InstrumentedPathLockManager testObj;
+
+    @Before
+    public void setUp() {
+        when(delegate.lockForRead("/a/b/c")).thenReturn(lock);
+        when(delegate.lockForWrite(eq("/a/b/d"), eq(session), any(NodeService.class))).thenReturn(lock);
+        when(delegate.lockForDelete("/x")).thenReturn(lock);
+        testObj = new InstrumentedPathLockManager(delegate, 2);
+    }
+
+    @Test
+    public void testPrefix() {
+        assertEquals("/a/b", testObj.prefix("/a/b/c/d"));
+        assertEquals("/a", testObj.prefix("/a/"));
+        assertEquals("/", testObj.prefix("/"));
+    }
+
+    @Test
+    public void testHolders() {
+        final AcquiredLock read = testObj.lockForRead("/a/b/c");
+        final AcquiredLock write = testObj.lockForWrite("/a/b/d", session, nodeService);
+        final List<HeldLock> holders = testObj.getHolders();
+        assertEquals(2, holders.size());
+        assertEquals("/a/b/c", holders.get(0).getPath());
+        assertEquals("read", holders.get(0).getOperation());
+        assertEquals("write", holders.get(1).getOperation());
+
+        read.release();
+        read.release();
+        verify(lock).release();
+        assertEquals(1, testObj.getHolders().size());
+        write.release();
+        assertTrue(testObj.getHolders().isEmpty());
+    }
+
+    @Test
+    public void testStatisticsByPrefix() {
+        testObj.lockForRead("/a/b/c").release();
+        testObj.lockForWrite("/a/b/d", session, nodeService).release();
+        testObj.lockForDelete("/x").release();
+
+        final List<PathStatistics> contended = testObj.getMostContended(10);
+        assertEquals(2, contended.size());
+        final PathStatistics ab = contended.stream().filter(s -> s.getPrefix().equals("/a/b")).findFirst().get();
+        assertTrue(ab.getRequests() >= 2);
+        assertEquals(0, ab.getWaiters());
+        assertEquals(1, testObj.getMostContended(1).size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPrefixIsForgotten() {
+        when(delegate.lockForRead(any(String.class))).thenReturn(lock);
+        testObj = new InstrumentedPathLockManager(delegate, 1, 2);
+        final String evicted = name(PathLockManager.class, "prefix", "/evicted", "wait");
+
+        testObj.lockForRead("/evicted/x").release();
+        assertTrue(RegistryService.getInstance().getMetrics().getMetrics().containsKey(evicted));
+        testObj.lockForRead("/kept/x").release();
+        testObj.lockForRead("/added/x").release();
+
+        assertEquals(2, testObj.getMostContended(10).size());
+        assertFalse("An evicted prefix's metrics should be unregistered!",
+                RegistryService.getInstance().getMetrics().getMetrics().containsKey(evicted));
+    }
+
+    @Test
+    public void testWaitExcludesExistenceChecks() {
+        when(nodeService.exists(session, "/a/b")).thenAnswer(i -> {
+            Thread.sleep(200);
+            return true;
+        });
+        when(delegate.lockForWrite(eq("/a/b/d"), eq(session), any(NodeService.class))).thenAnswer(i -> {
+            ((NodeService) i.getArguments()[2]).exists(session, "/a/b");
+            return lock;
+        });
+        testObj.lockForWrite("/a/b/d", session, nodeService).release();
+
+        verify(nodeService).exists(session, "/a/b");
+        final PathStatistics ab = testObj.getMostContended(1).get(0);
+        assertTrue("Checking existence should not count as waiting!", ab.getTotalWaitMillis() < 100);
+    }
+}
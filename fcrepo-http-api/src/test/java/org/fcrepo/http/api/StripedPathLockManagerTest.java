@@ -0,0 +1,370 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import org.fcrepo.http.api.PathLockManager.AcquiredLock;
+import org.fcrepo.kernel.api.FedoraSession;
+import org.fcrepo.kernel.api.exception.InterruptedRuntimeException;
+import org.fcrepo.kernel.api.exception.LockTimeoutException;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Unit tests for StripedPathLockManager.
+ * @author agent
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StripedPathLockManagerTest {
+
+    /**
+     * Miliseconds to allow (as a maximum) for running threads to complete.
+     */
+    public static final int WAIT = 1000;
+
+    @Mock
+    private FedoraSession session;
+
+    @Mock
+    private NodeService nodeService;
+
+    @Before
+    public void defaultSetup() {
+        when(nodeService.exists(any(), any())).thenReturn(true);
+    }
+
+    @Test
+    public void testSegments() {
+        assertEquals(asList("a", "b"), StripedPathLockManager.segments("/a/b/"));
+        assertEquals(asList("a", "b"), StripedPathLockManager.segments("a//b"));
+        assertTrue(StripedPathLockManager.segments("/").isEmpty());
+    }
+
+    @Test
+    public void testActivePathCleanup() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        assertEquals("There should no active paths in memory.", 0, m.root.size());
+
+        final AcquiredLock l1 = m.lockForRead("/p1/child");
+        assertEquals("There should be exactly 2 paths in memory.", 2, m.root.size());
+
+        final AcquiredLock l2 = m.lockForWrite("/p2", session, nodeService);
+        assertEquals("There should be exactly 3 paths in memory.", 3, m.root.size());
+
+        l1.release();
+        assertEquals("There should be exactly 1 path in memory.", 1, m.root.size());
+        l2.release();
+
+        assertEquals("There should no active paths in memory.", 0, m.root.size());
+    }
+
+    @Test
+    public void readsShouldNotBlock() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        final String path = "path1";
+        m.lockForRead(path);
+        assertTrue("Concurrent read operations should be allowed!",
+                new Actor(() -> m.lockForRead(path)).canComplete());
+    }
+
+    @Test
+    public void readShouldBlockWhileWriting() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        final String path = "path1";
+        final AcquiredLock l = m.lockForWrite(path, session, nodeService);
+        final Actor r = new Actor(() -> m.lockForRead(path));
+        assertTrue("Read should block while writing to same path!", r.isBlocked());
+        l.release();
+        assertTrue("Read should complete after write!", new Actor(() -> m.lockForRead(path)).canComplete());
+    }
+
+    @Test
+    public void writesShouldBlock() {
+        final StripedPathLockManager m = new StripedPathLockManager(1);
+        final String path = "path1";
+        final AcquiredLock l = m.lockForWrite(path, session, nodeService);
+        final Actor w = new Actor(() -> m.lockForWrite(path, session, nodeService));
+        assertTrue("Concurrent writes to the same path should block!", w.isStillWaiting());
+        l.release();
+        assertTrue("Write should be able to complete sequentially.", w.canComplete());
+    }
+
+    @Test
+    public void siblingWritesShouldNotBlock() {
+        final StripedPathLockManager m = new StripedPathLockManager(1);
+        m.lockForWrite("0/0", session, nodeService);
+        final Actor writer = new Actor(() -> m.lockForWrite("0/1", session, nodeService));
+        assertTrue("Sibling writes should not block!!", writer.canComplete());
+    }
+
+    @Test
+    public void siblingCreatesShouldNotBlock() {
+        when(nodeService.exists(any(), eq("0/0"))).thenReturn(false);
+        when(nodeService.exists(any(), eq("0/1"))).thenReturn(false);
+        final StripedPathLockManager m = new StripedPathLockManager();
+        m.lockForWrite("0/0", session, nodeService);
+        final Actor writer = new Actor(() -> m.lockForWrite("0/1", session, nodeService));
+        assertTrue("Sibling creates should not block!!", writer.canComplete());
+    }
+
+    @Test
+    public void lockAllForWriteShouldHoldEveryPath() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        final AcquiredLock l = m.lockAllForWrite(asList("0/1", "0/0"), session, nodeService);
+        assertTrue("Writes to a path locked in a batch should block!",
+                new Actor(() -> m.lockForWrite("0/0", session, nodeService)).isBlocked());
+        assertTrue("Writes to a path locked in a batch should block!",
+                new Actor(() -> m.lockForWrite("0/1", session, nodeService)).isBlocked());
+        l.release();
+        assertTrue("Writes should complete once the batch is released.",
+                new Actor(() -> m.lockForWrite("0/1", session, nodeService)).canComplete());
+        assertEquals("There should no active paths in memory.", 0, m.root.size());
+    }
+
+    @Test
+    public void implicitlyCreatedAncestorsShouldBeWriteLocked() {
+        when(nodeService.exists(any(), eq("/a/b"))).thenReturn(false);
+        final StripedPathLockManager m = new StripedPathLockManager();
+        final AcquiredLock l = m.lockForWrite("/a/b/c", session, nodeService);
+        assertTrue("Reading an ancestor that is implicitly created should block!",
+                new Actor(() -> m.lockForRead("/a/b")).isBlocked());
+        assertTrue("Reading an existing ancestor should not block!",
+                new Actor(() -> m.lockForRead("/a")).canComplete());
+        l.release();
+    }
+
+    @Test
+    public void deleteShouldBlockAccessToDescendents() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        m.lockForDelete("delete");
+        assertTrue("Reading a path that is being deleted should block until delete is complete!",
+                new Actor(() -> m.lockForRead("delete/some/ancestor")).isBlocked());
+
+        when(nodeService.exists(any(), eq("delete/some/nonexistant/path"))).thenReturn(false);
+        when(nodeService.exists(any(), eq("delete/some/nonexistant"))).thenReturn(false);
+        assertTrue("Creating a node under a node being deleted should block until delete is complete!",
+                new Actor(() -> m.lockForWrite("delete/some/nonexistant/path", session, nodeService))
+                        .isBlocked());
+    }
+
+    @Test
+    public void deleteShouldWaitForDescendents() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        final AcquiredLock l = m.lockForRead("/root/delete/child/grandchild");
+        final Actor d = new Actor(() -> m.lockForDelete("/root/delete"));
+        assertTrue("Delete should wait for locks held on descendants!", d.isStillWaiting());
+        l.release();
+        assertTrue("Delete should complete once descendants are released.", d.canComplete());
+        assertEquals("There should no active paths in memory.", 0, m.root.size());
+    }
+
+    @Test
+    public void deleteShouldNotAffectParentOrPeers() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        m.lockForDelete("root/delete");
+        assertTrue("Writing to parent of node-being-deleted should not block.",
+                new Actor(() -> m.lockForWrite("root", session, nodeService)).canComplete());
+        assertTrue("Writing to peer of node-being-deleted should not block.",
+                new Actor(() -> m.lockForWrite("root/other", session, nodeService)).canComplete());
+    }
+
+    @Test
+    public void writesShouldBlockWithinOneStripe() {
+        final StripedPathLockManager m = new StripedPathLockManager(1);
+        final AcquiredLock l = m.lockForWrite("0/0", session, nodeService);
+        assertTrue("Sibling writes sharing a stripe should not block!",
+                new Actor(() -> m.lockForWrite("0/1", session, nodeService)).canComplete());
+        final Actor w = new Actor(() -> m.lockForWrite("0/0", session, nodeService));
+        assertTrue("Concurrent writes to the same path should block!", w.isStillWaiting());
+        l.release();
+        assertTrue("Write should be able to complete sequentially.", w.canComplete());
+    }
+
+    @Test
+    public void waitingDeleteShouldBlockNewDescendants() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        final AcquiredLock l = m.lockForRead("/a/b");
+        final Actor d = new Actor(() -> m.lockForDelete("/a"));
+        assertTrue("Delete should wait for locks held on descendants!", d.isStillWaiting());
+        final Actor r = new Actor(() -> m.lockForRead("/a/c"));
+        assertTrue("New locks under a waiting delete should wait for it!", r.isStillWaiting());
+        l.release();
+        assertTrue("Delete should complete once descendants are released.", d.canComplete());
+        assertTrue("Blocked locks should complete once the delete is released.", r.canComplete());
+        assertEquals("There should no active paths in memory.", 0, m.root.size());
+    }
+
+    @Test
+    public void waitingDeleteShouldNotBlockThreadsAlreadyInside() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        setField(m, "writeTimeout", (long) WAIT);
+        final AcquiredLock l1 = m.lockForWrite("/a/b", session, nodeService);
+        final Actor d = new Actor(() -> m.lockForDelete("/a"));
+        assertTrue("Delete should wait for locks held on descendants!", d.isStillWaiting());
+        final AcquiredLock l2 = m.lockForWrite("/a/c", session, nodeService);
+        l2.release();
+        l1.release();
+        assertTrue("Delete should complete once descendants are released.", d.canComplete());
+    }
+
+    @Test
+    public void timedOutDeleteShouldUnblockDescendants() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        setField(m, "deleteTimeout", 50L);
+        final AcquiredLock l = m.lockForRead("/a/b");
+        final Actor d = new Actor(() -> m.lockForDelete("/a"));
+        final Actor r = new Actor(() -> m.lockForRead("/a/c"));
+        assertTrue("Delete should time out while a descendant is locked!", d.hasTimedOut());
+        assertTrue("Locks should be granted once the delete gives up.", r.canComplete());
+        l.release();
+        assertEquals("There should no active paths in memory.", 0, m.root.size());
+    }
+
+    @Test
+    public void interruptedRequestShouldCleanUp() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        final AcquiredLock l = m.lockForWrite("/a/b", session, nodeService);
+        assertTrue(new Actor(() -> m.lockForRead("/a/b")).isBlocked());
+        l.release();
+        assertEquals("There should no active paths in memory.", 0, m.root.size());
+    }
+
+    @Test
+    public void writeShouldTimeOut() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        setField(m, "writeTimeout", 10L);
+        final AcquiredLock l = m.lockForWrite("path1", session, nodeService);
+        assertTrue("Concurrent write should time out!",
+                new Actor(() -> m.lockForWrite("path1", session, nodeService)).hasTimedOut());
+        l.release();
+    }
+
+    @Test
+    public void timedOutRequestShouldCleanUp() {
+        final StripedPathLockManager m = new StripedPathLockManager();
+        setField(m, "readTimeout", 10L);
+        setField(m, "deleteTimeout", 10L);
+        final AcquiredLock l = m.lockForWrite("a/b", session, nodeService);
+        assertTrue("Read should time out while writing to same path!",
+                new Actor(() -> m.lockForRead("a/b")).hasTimedOut());
+        assertTrue("Delete should time out while writing to a descendant!",
+                new Actor(() -> m.lockForDelete("a")).hasTimedOut());
+        l.release();
+        assertEquals("There should no active paths in memory.", 0, m.root.size());
+        assertTrue("Delete should complete once the write is released.",
+                new Actor(() -> m.lockForDelete("a")).canComplete());
+    }
+
+    /**
+     * An interface whose single method acquires an AcquiredLock.
+     */
+    private interface Locker {
+        public AcquiredLock acquireLock();
+    }
+
+    /**
+     * A thread that locks as if performing some action.
+     */
+    private class Actor extends Thread {
+
+        private boolean interrupted;
+
+        private boolean timedOut;
+
+        private Locker l;
+
+        public Actor(final Locker l) {
+            this.l = l;
+            this.start();
+        }
+
+        @Override
+        public void run() {
+            AcquiredLock lock = null;
+            try {
+                lock = l.acquireLock();
+            } catch (InterruptedRuntimeException e) {
+                interrupted = true;
+            } catch (LockTimeoutException e) {
+                timedOut = true;
+            }
+            if (lock != null) {
+                lock.release();
+            }
+        }
+
+        /**
+         * Determines if the thread would/was/is blocking by interrupting
+         * and joining it, so once it's called the thread is no longer of use.
+         */
+        private boolean isBlocked() {
+            this.interrupt();
+            try {
+                this.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return interrupted;
+        }
+
+        /**
+         * Determines if the thread is still waiting after a short while,
+         * without disturbing it.
+         */
+        private boolean isStillWaiting() {
+            try {
+                this.join(WAIT / 10);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return this.isAlive();
+        }
+
+        /**
+         * Determines if the thread gave up waiting for its lock.
+         */
+        private boolean hasTimedOut() {
+            return canComplete() && timedOut;
+        }
+
+        /**
+         * Determines if the thread has/can complete (ie, is not blocked).
+         */
+        private boolean canComplete() {
+            try {
+                this.join(WAIT);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return !this.isAlive();
+        }
+
+    }
+
+}
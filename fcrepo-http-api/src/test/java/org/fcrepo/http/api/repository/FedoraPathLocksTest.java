@@ -0,0 +1,112 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.repository;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.ws.rs.core.Response;
+
+import org.fcrepo.http.api.InstrumentedPathLockManager;
+import org.fcrepo.http.api.PathLockManager;
+import org.fcrepo.http.api.PathLockManager.AcquiredLock;
+import org.fcrepo.http.commons.session.HttpSession;
+import org.fcrepo.kernel.modeshape.FedoraSessionImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * @author agent
+ */
+public class FedoraPathLocksTest {
+
+    private FedoraPathLocks testObj;
+
+    @Mock
+    private PathLockManager mockLockManager;
+
+    @Mock
+    private AcquiredLock mockLock;
+
+    @Mock
+    private HttpSession mockSession;
+
+    @Mock
+    private FedoraSessionImpl mockFedoraSession;
+
+    @Mock
+    private Session mockJcrSession;
+
+    @Before
+    public void setUp() throws RepositoryException {
+        initMocks(this);
+        testObj = new FedoraPathLocks();
+        setField(testObj, "session", mockSession);
+        when(mockSession.getFedoraSession()).thenReturn(mockFedoraSession);
+        when(mockFedoraSession.getJcrSession()).thenReturn(mockJcrSession);
+        when(mockJcrSession.hasPermission("/", "monitor")).thenReturn(true);
+    }
+
+    @Test
+    public void testForbiddenWithoutMonitorPermission() throws RepositoryException {
+        when(mockJcrSession.hasPermission("/", "monitor")).thenReturn(false);
+        setField(testObj, "lockManager", new InstrumentedPathLockManager(mockLockManager));
+        assertEquals(FORBIDDEN.getStatusCode(), testObj.getLocks(10).getStatus());
+    }
+
+    @Test
+    public void testNegativeLimit() {
+        setField(testObj, "lockManager", new InstrumentedPathLockManager(mockLockManager));
+        assertEquals(BAD_REQUEST.getStatusCode(), testObj.getLocks(-1).getStatus());
+    }
+
+    @Test
+    public void testNotInstrumented() {
+        setField(testObj, "lockManager", mockLockManager);
+        assertEquals(NOT_FOUND.getStatusCode(), testObj.getLocks(10).getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetLocks() {
+        when(mockLockManager.lockForRead("/some/path")).thenReturn(mockLock);
+        final InstrumentedPathLockManager instrumented = new InstrumentedPathLockManager(mockLockManager);
+        setField(testObj, "lockManager", instrumented);
+        final AcquiredLock lock = instrumented.lockForRead("/some/path");
+
+        final Response response = testObj.getLocks(10);
+        assertEquals(OK.getStatusCode(), response.getStatus());
+        final Map<String, List<?>> report = (Map<String, List<?>>) response.getEntity();
+        assertEquals(1, report.get("holders").size());
+        assertTrue(report.get("contended").size() >= 1);
+        lock.release();
+    }
+}
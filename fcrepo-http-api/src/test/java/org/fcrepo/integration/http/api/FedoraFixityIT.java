@@ -87,6 +87,24 @@ public class FedoraFixityIT extends AbstractResourceIT {
         }
     }
 
+    @Test
+    public void testCheckDatastreamFixityForced() throws IOException {
+        final String id = getRandomUniqueId();
+        createObjectAndClose(id);
+        createDatastream(id, "zxc", "forced fixity");
+
+        for (final String query : new String[] { "", "?force=true" }) {
+            try (final CloseableDataset dataset =
+                    getDataset(new HttpGet(serverAddress + id + "/zxc/fcr:fixity" + query))) {
+                final DatasetGraph graphStore = dataset.asDatasetGraph();
+                assertTrue(graphStore.contains(ANY,
+                        createURI(serverAddress + id + "/zxc"), HAS_FIXITY_RESULT.asNode(), ANY));
+                assertTrue(graphStore.contains(ANY, ANY, HAS_FIXITY_STATE.asNode(), createLiteral("SUCCESS")));
+                assertTrue(graphStore.contains(ANY, ANY, HAS_SIZE.asNode(), createLiteral("13", IntegerType)));
+            }
+        }
+    }
+
     @Test
     public void testCheckDatastreamFixityMD5() throws IOException {
         final String id = getRandomUniqueId();
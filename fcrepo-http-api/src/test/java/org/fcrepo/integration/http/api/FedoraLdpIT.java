@@ -25,7 +25,9 @@ import static java.util.Arrays.stream;
 import static java.util.regex.Pattern.compile;
 import static java.util.stream.Collectors.toList;
 import static javax.ws.rs.core.HttpHeaders.ACCEPT;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
 import static javax.ws.rs.core.HttpHeaders.CONTENT_DISPOSITION;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
 import static javax.ws.rs.core.HttpHeaders.CONTENT_LENGTH;
 import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
 import static javax.ws.rs.core.HttpHeaders.LINK;
@@ -40,7 +42,9 @@ import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static javax.ws.rs.core.Response.Status.NOT_MODIFIED;
 import static javax.ws.rs.core.Response.Status.NO_CONTENT;
 import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.PARTIAL_CONTENT;
 import static javax.ws.rs.core.Response.Status.PRECONDITION_FAILED;
+import static javax.ws.rs.core.Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE;
 import static javax.ws.rs.core.Response.Status.TEMPORARY_REDIRECT;
 import static javax.ws.rs.core.Response.Status.UNSUPPORTED_MEDIA_TYPE;
 import static nu.validator.htmlparser.common.DoctypeExpectation.NO_DOCTYPE_ERRORS;
@@ -61,6 +65,7 @@ import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
 import static org.apache.jena.riot.WebContent.contentTypeN3;
 import static org.apache.jena.riot.WebContent.contentTypeN3Alt2;
 import static org.apache.jena.riot.WebContent.contentTypeNTriples;
+import static org.apache.jena.riot.WebContent.contentTypeRDFThrift;
 import static org.apache.jena.riot.WebContent.contentTypeRDFXML;
 import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
 import static org.apache.jena.riot.WebContent.contentTypeTurtle;
@@ -117,6 +122,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import javax.ws.rs.core.Link;
 import javax.ws.rs.core.Response.Status;
@@ -410,6 +416,7 @@ public class FedoraLdpIT extends AbstractResourceIT {
         assertTrue("POST should support text/n3", postTypes.contains(contentTypeN3Alt2));
         assertTrue("POST should support application/rdf+xml", postTypes.contains(contentTypeRDFXML));
         assertTrue("POST should support application/n-triples", postTypes.contains(contentTypeNTriples));
+        assertTrue("POST should support application/rdf+thrift", postTypes.contains(contentTypeRDFThrift));
         assertTrue("POST should support multipart/form-data", postTypes.contains("multipart/form-data"));
     }
 
@@ -1963,6 +1970,68 @@ public class FedoraLdpIT extends AbstractResourceIT {
         }
     }
 
+    @Test
+    public void testGetObjectGraphCompressed() throws IOException {
+        final String id = getRandomUniqueId();
+        createObjectAndClose(id);
+        for (int i = 0; i < 5; i++) {
+            createObjectAndClose(id + "/child" + i);
+        }
+        try (final CloseableHttpClient rawClient = HttpClientBuilder.create().disableContentCompression().build()) {
+            final HttpGet getObjMethod = new HttpGet(serverAddress + id);
+            getObjMethod.addHeader(ACCEPT, "text/turtle");
+            getObjMethod.addHeader(ACCEPT_ENCODING, "gzip, deflate");
+            try (final CloseableHttpResponse response = rawClient.execute(getObjMethod)) {
+                assertEquals(OK.getStatusCode(), getStatus(response));
+                assertEquals("gzip", response.getFirstHeader(CONTENT_ENCODING).getValue());
+                final Model model = createDefaultModel().read(new GZIPInputStream(response.getEntity().getContent()),
+                        serverAddress + id, "TTL");
+                assertEquals(5, model.listObjectsOfProperty(CONTAINS).toList().size());
+            }
+        }
+    }
+
+    @Test
+    public void testGetBinaryNotCompressed() throws IOException {
+        final String id = getRandomUniqueId();
+        createObjectAndClose(id);
+        final String content = new String(new char[4096]).replace('\0', 'x');
+        createDatastream(id, "binary", content);
+        try (final CloseableHttpClient rawClient = HttpClientBuilder.create().disableContentCompression().build()) {
+            final HttpGet getMethod = new HttpGet(serverAddress + id + "/binary");
+            getMethod.addHeader(ACCEPT_ENCODING, "gzip, deflate");
+            try (final CloseableHttpResponse response = rawClient.execute(getMethod)) {
+                assertEquals(OK.getStatusCode(), getStatus(response));
+                assertFalse("Binary content should not be compressed!", response.containsHeader(CONTENT_ENCODING));
+                assertEquals(content, EntityUtils.toString(response.getEntity()));
+            }
+        }
+    }
+
+    @Test
+    public void testGetBinaryRanges() throws IOException {
+        final String id = getRandomUniqueId();
+        createObjectAndClose(id);
+        createDatastream(id, "binary", "0123456789");
+        final HttpGet getMethod = new HttpGet(serverAddress + id + "/binary");
+        getMethod.addHeader("Range", "bytes=0-1,-3");
+        try (final CloseableHttpResponse response = execute(getMethod)) {
+            assertEquals(PARTIAL_CONTENT.getStatusCode(), getStatus(response));
+            final String contentType = response.getFirstHeader(CONTENT_TYPE).getValue();
+            assertTrue("Should be multipart/byteranges!", contentType.startsWith("multipart/byteranges"));
+            final String parts = EntityUtils.toString(response.getEntity());
+            assertTrue(parts.contains("Content-Range: bytes 0-1/10\r\n\r\n01\r\n"));
+            assertTrue(parts.contains("Content-Range: bytes 7-9/10\r\n\r\n789\r\n"));
+        }
+
+        final HttpGet unsatisfiable = new HttpGet(serverAddress + id + "/binary");
+        unsatisfiable.addHeader("Range", "bytes=10-");
+        try (final CloseableHttpResponse response = execute(unsatisfiable)) {
+            assertEquals(REQUESTED_RANGE_NOT_SATISFIABLE.getStatusCode(), getStatus(response));
+            assertEquals("bytes */10", response.getFirstHeader("Content-Range").getValue());
+        }
+    }
+
     @Test
     public void testDescribeRdfCached() throws IOException {
         try (final CloseableHttpClient cachClient = CachingHttpClientBuilder.create().setCacheConfig(DEFAULT).build()) {
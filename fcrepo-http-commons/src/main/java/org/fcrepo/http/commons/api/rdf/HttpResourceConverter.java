@@ -34,6 +34,7 @@ import static org.springframework.web.context.ContextLoader.getCurrentWebApplica
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +91,21 @@ public class HttpResourceConverter extends IdentifierConverter<Resource,FedoraRe
     private final UriTemplate uriTemplate;
     private final boolean batch;
 
+    /**
+     * The literal start of the URI template when the template ends with its path variable, in which case most
+     * URIs can be built and matched by concatenation and slicing instead of through the template.
+     */
+    private final String pathPrefix;
+
+    private static final String PATH_VARIABLE = "{path: .*}";
+
+    private static final BitSet PLAIN_PATH_CHARACTERS = new BitSet(128);
+
+    static {
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-._~!$&'()*+,;=:@/"
+                .chars().forEach(PLAIN_PATH_CHARACTERS::set);
+    }
+
     /**
      * Create a new identifier converter within the given session with the given URI template
      * @param session the session
@@ -101,26 +117,35 @@ public class HttpResourceConverter extends IdentifierConverter<Resource,FedoraRe
         this.session = session.getFedoraSession();
         this.uriBuilder = uriBuilder;
         this.batch = session.isBatchSession();
-        this.uriTemplate = new UriTemplate(uriBuilder.toTemplate());
+        final String template = uriBuilder.toTemplate();
+        this.uriTemplate = new UriTemplate(template);
+        this.pathPrefix = pathPrefix(template);
 
         resetTranslationChain();
     }
 
+    private static String pathPrefix(final String template) {
+        final int variable = template.length() - PATH_VARIABLE.length();
+        if (template.endsWith(PATH_VARIABLE) && template.indexOf('{') == variable) {
+            return template.substring(0, variable);
+        }
+        return null;
+    }
+
     private UriBuilder uriBuilder() {
         return UriBuilder.fromUri(uriBuilder.toTemplate());
     }
 
     @Override
     protected FedoraResource doForward(final Resource resource) {
-        final Map<String, String> values = new HashMap<>();
-        final String path = asString(resource, values);
+        final String pathVariable = matchPath(resource.getURI());
+        final String path = asString(resource, pathVariable);
         final Session jcrSession = getJcrSession(session);
         try {
             if (path != null) {
                 final Node node = getNode(path);
 
-                final boolean metadata = values.containsKey("path")
-                        && values.get("path").endsWith("/" + FCR_METADATA);
+                final boolean metadata = pathVariable != null && pathVariable.endsWith("/" + FCR_METADATA);
 
                 final FedoraResource fedoraResource = nodeConverter.convert(node);
 
@@ -155,10 +180,7 @@ public class HttpResourceConverter extends IdentifierConverter<Resource,FedoraRe
 
     @Override
     public boolean inDomain(final Resource resource) {
-        final Map<String, String> values = new HashMap<>();
-
-        return uriTemplate.match(resource.getURI(), values) && values.containsKey("path") ||
-            isRootWithoutTrailingSlash(resource);
+        return matchPath(resource.getURI()) != null || isRootWithoutTrailingSlash(resource);
     }
 
     @Override
@@ -173,6 +195,10 @@ public class HttpResourceConverter extends IdentifierConverter<Resource,FedoraRe
             realPath = path;
         }
 
+        if (pathPrefix != null && isPlainPath(realPath)) {
+            return createResource(pathPrefix + realPath);
+        }
+
         final UriBuilder uri = uriBuilder();
 
         if (realPath.contains("#")) {
@@ -190,21 +216,19 @@ public class HttpResourceConverter extends IdentifierConverter<Resource,FedoraRe
 
     @Override
     public String asString(final Resource resource) {
-        final Map<String, String> values = new HashMap<>();
-
-        return asString(resource, values);
+        return asString(resource, matchPath(resource.getURI()));
     }
 
     /**
      * Convert the incoming Resource to a JCR path (but don't attempt to load the node).
      *
      * @param resource Jena Resource to convert
-     * @param values a map that will receive the matching URI template variables for future use.
+     * @param pathVariable the value of the path variable matched in the resource's URI, if it matched
      * @return
      */
-    private String asString(final Resource resource, final Map<String, String> values) {
-        if (uriTemplate.match(resource.getURI(), values) && values.containsKey("path")) {
-            String path = "/" + values.get("path");
+    private String asString(final Resource resource, final String pathVariable) {
+        if (pathVariable != null) {
+            String path = "/" + pathVariable;
 
             final boolean metadata = path.endsWith("/" + FCR_METADATA);
 
@@ -465,9 +489,52 @@ public class HttpResourceConverter extends IdentifierConverter<Resource,FedoraRe
     }
 
     private boolean isRootWithoutTrailingSlash(final Resource resource) {
+        final String path = matchPath(resource.getURI() + "/");
+        return path != null && path.isEmpty();
+    }
+
+    /**
+     * Match a URI against the URI template.
+     *
+     * @param uri the URI
+     * @return the value of the path variable, or null if the URI doesn't match
+     */
+    private String matchPath(final String uri) {
+        if (pathPrefix != null && isPlainUri(uri)) {
+            return uri.startsWith(pathPrefix) ? uri.substring(pathPrefix.length()) : null;
+        }
         final Map<String, String> values = new HashMap<>();
+        return uriTemplate.match(uri, values) ? values.get("path") : null;
+    }
 
-        return uriTemplate.match(resource.getURI() + "/", values) && values.containsKey("path") &&
-            values.get("path").isEmpty();
+    /**
+     * Hash and version URIs, and anything the template's pattern might treat specially, are left to the template.
+     */
+    private static boolean isPlainUri(final String uri) {
+        if (uri.contains(FCR_VERSIONS)) {
+            return false;
+        }
+        for (int i = 0; i < uri.length(); i++) {
+            final char c = uri.charAt(i);
+            if (c == '#' || c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Paths the template would build without encoding anything, and that are neither hash nor version paths.
+     */
+    private static boolean isPlainPath(final String path) {
+        if (path.contains(FCR_VERSIONS)) {
+            return false;
+        }
+        for (int i = 0; i < path.length(); i++) {
+            if (!PLAIN_PATH_CHARACTERS.get(path.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -22,6 +22,7 @@ import static org.apache.jena.riot.WebContent.contentTypeJSONLD;
 import static org.apache.jena.riot.WebContent.contentTypeN3;
 import static org.apache.jena.riot.WebContent.contentTypeN3Alt2;
 import static org.apache.jena.riot.WebContent.contentTypeNTriples;
+import static org.apache.jena.riot.WebContent.contentTypeRDFThrift;
 import static org.apache.jena.riot.WebContent.contentTypeRDFXML;
 import static org.apache.jena.riot.WebContent.contentTypeTurtle;
 import static org.apache.jena.riot.WebContent.contentTypeTurtleAlt2;
@@ -76,17 +77,21 @@ public abstract class RDFMediaType extends MediaType {
 
     public final static MediaType JSON_LD_TYPE = typeFromString(JSON_LD);
 
+    public final static String RDF_THRIFT = contentTypeRDFThrift;
+
+    public final static MediaType RDF_THRIFT_TYPE = typeFromString(RDF_THRIFT);
+
     public final static String TEXT_PLAIN_WITH_CHARSET = TEXT_PLAIN + CHARSET_UTF8;
 
     public final static String TEXT_HTML_WITH_CHARSET = TEXT_HTML + CHARSET_UTF8;
 
     public static final List<Variant> POSSIBLE_RDF_VARIANTS = mediaTypes(
             RDF_XML_TYPE, TURTLE_TYPE, N3_TYPE, N3_ALT2_TYPE, NTRIPLES_TYPE,
-            TEXT_PLAIN_TYPE, TURTLE_X_TYPE, JSON_LD_TYPE).add().build();
+            TEXT_PLAIN_TYPE, TURTLE_X_TYPE, JSON_LD_TYPE, RDF_THRIFT_TYPE).add().build();
 
     public static final String POSSIBLE_RDF_RESPONSE_VARIANTS_STRING[] = {
         TURTLE_WITH_CHARSET, N3_WITH_CHARSET, N3_ALT2_WITH_CHARSET, RDF_XML, NTRIPLES,
-        TEXT_PLAIN_WITH_CHARSET, TURTLE_X, JSON_LD };
+        TEXT_PLAIN_WITH_CHARSET, TURTLE_X, JSON_LD, RDF_THRIFT };
 
     private static MediaType typeFromString(final String type) {
         return new MediaType(type.split("/")[0], type.split("/")[1]);
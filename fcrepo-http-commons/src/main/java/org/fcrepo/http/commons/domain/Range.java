@@ -18,8 +18,13 @@
 package org.fcrepo.http.commons.domain;
 
 import static java.lang.Long.parseLong;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparingLong;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
 import static java.util.regex.Pattern.compile;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,12 +35,21 @@ import java.util.regex.Pattern;
  */
 public class Range {
 
+    /**
+     * The most ranges a header may list to be honored; serving hundreds of tiny parts costs far more than the
+     * whole content, so a header listing more is ignored
+     */
+    public static final int MAX_RANGES = 200;
+
     private final long start;
 
     private final long end;
 
-    private static Pattern rangePattern =
-        compile("^bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)");
+    private final long suffixLength;
+
+    private static Pattern rangesPattern = compile("^\\s*bytes\\s*=(.*)$", CASE_INSENSITIVE);
+
+    private static Pattern rangePattern = compile("^\\s*(\\d*)\\s*-\\s*(\\d*)\\s*$");
 
     /**
      * Unbounded Range
@@ -58,8 +72,30 @@ public class Range {
      * @param end the end
      */
     public Range(final long start, final long end) {
+        this(start, end, -1L);
+    }
+
+    private Range(final long start, final long end, final long suffixLength) {
         this.start = start;
         this.end = end;
+        this.suffixLength = suffixLength;
+    }
+
+    /**
+     * Range of the last bytes of the content, whatever its size
+     * @param length the number of bytes
+     * @return the suffix range
+     */
+    public static Range suffix(final long length) {
+        return new Range(-1L, -1L, length);
+    }
+
+    /**
+     * Is this a range of the last bytes of the content, e.g. bytes=-500
+     * @return true if this is a suffix range
+     */
+    public boolean isSuffix() {
+        return suffixLength != -1;
     }
 
     /**
@@ -67,7 +103,7 @@ public class Range {
      * @return true if the range imposes limits
      */
     public boolean hasRange() {
-        return !(start == 0 && end == -1);
+        return isSuffix() || !(start == 0 && end == -1);
     }
 
     /**
@@ -75,6 +111,9 @@ public class Range {
      * @return length of the range
      */
     public long size() {
+        if (isSuffix()) {
+            return suffixLength;
+        }
         if (end == -1) {
             return -1;
         }
@@ -83,7 +122,7 @@ public class Range {
 
     /**
      * Start of the range
-     * @return start of the range
+     * @return start of the range, or -1 for a suffix range
      */
     public long start() {
         return start;
@@ -97,37 +136,122 @@ public class Range {
         return end;
     }
 
+    /**
+     * Resolve this range against content of a given size, clipping it to the end of the content
+     * @param contentSize the size of the content
+     * @return the bounded range, or null if no part of the content lies in the range
+     */
+    public Range resolve(final long contentSize) {
+        if (isSuffix()) {
+            if (suffixLength == 0 || contentSize == 0) {
+                return null;
+            }
+            return new Range(Math.max(0, contentSize - suffixLength), contentSize - 1);
+        }
+        if (start >= contentSize) {
+            return null;
+        }
+        return new Range(start, end == -1 || end >= contentSize ? contentSize - 1 : end);
+    }
+
+    /**
+     * The value of a Content-Range header for this range, once resolved
+     * @param contentSize the size of the content
+     * @return the Content-Range value
+     */
+    public String contentRange(final long contentSize) {
+        return String.format("bytes %s-%s/%s", start, end, contentSize);
+    }
+
+    /**
+     * Merge resolved ranges that overlap or abut, in order of their start
+     * @param ranges resolved ranges
+     * @return the fewest ranges covering the same bytes
+     */
+    public static List<Range> coalesce(final List<Range> ranges) {
+        final List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(comparingLong(Range::start));
+        final List<Range> coalesced = new ArrayList<>();
+        for (final Range range : sorted) {
+            final int last = coalesced.size() - 1;
+            if (last >= 0 && range.start() <= coalesced.get(last).end() + 1) {
+                final Range previous = coalesced.get(last);
+                coalesced.set(last, new Range(previous.start(), Math.max(previous.end(), range.end())));
+            } else {
+                coalesced.add(range);
+            }
+        }
+        return coalesced;
+    }
+
     /**
      * Convert an HTTP Range header to a Range object
      * @param source the source
-     * @return range object
+     * @return range object, for the first range of the header
      */
     public static Range convert(final String source) {
+        final List<Range> ranges = convertAll(source);
+        return ranges.isEmpty() ? new Range() : ranges.get(0);
+    }
 
-        final Matcher matcher = rangePattern.matcher(source);
+    /**
+     * Convert an HTTP Range header to a Range object for each range it lists, e.g. bytes=0-99,200-,-50
+     * @param source the source
+     * @return the ranges, or an empty list if the header is not a valid byte range request or lists more than
+     *         {@link #MAX_RANGES} ranges
+     */
+    public static List<Range> convertAll(final String source) {
+
+        final Matcher matcher = rangesPattern.matcher(source);
 
         if (!matcher.matches()) {
-            return new Range();
+            return emptyList();
+        }
+
+        final List<Range> ranges = new ArrayList<>();
+        for (final String spec : matcher.group(1).split(",")) {
+            if (spec.trim().isEmpty()) {
+                continue;
+            }
+            final Range range = convertSpec(spec);
+            if (range == null || ranges.size() == MAX_RANGES) {
+                return emptyList();
+            }
+            ranges.add(range);
+        }
+        return ranges;
+    }
+
+    private static Range convertSpec(final String spec) {
+        final Matcher matcher = rangePattern.matcher(spec);
+
+        if (!matcher.matches()) {
+            return null;
         }
 
         final String from = matcher.group(1);
         final String to = matcher.group(2);
 
-        final long start;
+        try {
+            if (from.equals("")) {
+                return to.equals("") ? null : suffix(parseLong(to));
+            }
 
-        if (from.equals("")) {
-            start = 0;
-        } else {
-            start = parseLong(from);
-        }
+            final long start = parseLong(from);
 
-        final long end;
-        if (to.equals("")) {
-            end = -1;
-        } else {
-            end = parseLong(to);
-        }
+            final long end;
+            if (to.equals("")) {
+                end = -1;
+            } else {
+                end = parseLong(to);
+                if (end < start) {
+                    return null;
+                }
+            }
 
-        return new Range(start, end);
+            return new Range(start, end);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,411 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.Double.parseDouble;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
+import static java.util.Arrays.stream;
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
+import static javax.ws.rs.Priorities.ENTITY_CODER;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_LENGTH;
+import static javax.ws.rs.core.HttpHeaders.ETAG;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.annotation.Priority;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+
+/**
+ * Compresses response entities with gzip or deflate, as negotiated by the request's Accept-Encoding header.
+ *
+ * The RDF and HTML views of resources carry weak ETags and are compressed; entities with a strong ETag (the content
+ * of binaries), partial content, and media types that are already compressed are written as they are. The first
+ * bytes of an entity are held back until they exceed the minimum size, so that small entities are never
+ * compressed, even when their length is not known up front. Deflaters are pooled rather than allocated for each
+ * response.
+ *
+ * @author agent
+ */
+@Provider
+@Priority(ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+    private static final Logger LOGGER = getLogger(CompressionInterceptor.class);
+
+    /**
+     * System property setting the size in bytes an entity must exceed to be compressed
+     */
+    static final String MINIMUM_SIZE_PROPERTY = "fcrepo.compression.minimumSize";
+
+    /**
+     * System property setting the deflate compression level, from 1 to 9
+     */
+    static final String LEVEL_PROPERTY = "fcrepo.compression.level";
+
+    /**
+     * System property listing the comma-separated media types, which may be wildcards, that are never compressed
+     */
+    static final String SKIPPED_TYPES_PROPERTY = "fcrepo.compression.skippedTypes";
+
+    private static final String DEFAULT_SKIPPED_TYPES = "image/*,audio/*,video/*,application/zip,application/gzip,"
+            + "application/x-gzip,application/x-bzip2,application/x-xz,application/x-7z-compressed,"
+            + "application/x-rar-compressed,application/pdf";
+
+    /**
+     * The compressed size of an entity as a percentage of its uncompressed size
+     */
+    private static final Histogram ratio = RegistryService.getInstance().getMetrics()
+            .histogram(name(CompressionInterceptor.class, "ratio"));
+
+    /**
+     * The time spent deflating an entity, not counting the time spent writing it out
+     */
+    private static final Timer deflateTimer = RegistryService.getInstance().getMetrics()
+            .timer(name(CompressionInterceptor.class, "deflate"));
+
+    @Context
+    private HttpHeaders headers;
+
+    @Context
+    private HttpServletResponse servletResponse;
+
+    private int minimumSize = parseInt(getProperty(MINIMUM_SIZE_PROPERTY, "1024"));
+
+    private List<MediaType> skippedTypes = stream(getProperty(SKIPPED_TYPES_PROPERTY, DEFAULT_SKIPPED_TYPES)
+            .split(",")).map(String::trim).filter(type -> !type.isEmpty()).map(MediaType::valueOf)
+            .collect(toList());
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+        if (!isCompressible(context)) {
+            context.proceed();
+            return;
+        }
+        if (!variesByEncoding(context.getHeaders())) {
+            context.getHeaders().add(VARY, ACCEPT_ENCODING);
+        }
+
+        final Encoding encoding = negotiate(headers.getHeaderString(ACCEPT_ENCODING));
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        LOGGER.debug("Compressing entities larger than {} bytes of type {} with {}", minimumSize,
+                context.getMediaType(), encoding.token);
+        final CompressingOutputStream output = new CompressingOutputStream(context.getOutputStream(),
+                context.getHeaders(), encoding, minimumSize);
+        context.setOutputStream(output);
+        try {
+            context.proceed();
+            output.finish();
+        } finally {
+            output.release();
+        }
+    }
+
+    private boolean isCompressible(final WriterInterceptorContext context) {
+        final MediaType mediaType = context.getMediaType();
+        if (mediaType == null || skippedTypes.stream().anyMatch(mediaType::isCompatible)) {
+            return false;
+        }
+        final MultivaluedMap<String, Object> responseHeaders = context.getHeaders();
+        if (responseHeaders.containsKey(CONTENT_ENCODING) || responseHeaders.containsKey("Content-Range")) {
+            return false;
+        }
+        final Object etag = responseHeaders.containsKey(ETAG) ? responseHeaders.getFirst(ETAG)
+                : servletResponse.getHeader(ETAG);
+        return etag == null || etag.toString().startsWith("W/");
+    }
+
+    private boolean variesByEncoding(final MultivaluedMap<String, Object> responseHeaders) {
+        final List<Object> vary = responseHeaders.get(VARY);
+        return (vary != null && vary.stream().anyMatch(value -> value.toString().contains(ACCEPT_ENCODING)))
+                || servletResponse.getHeaders(VARY).stream().anyMatch(value -> value.contains(ACCEPT_ENCODING));
+    }
+
+    /**
+     * Choose the content coding to use for a response.
+     *
+     * @param acceptEncoding the request's Accept-Encoding header
+     * @return the preferred of gzip and deflate, or null if the client accepts neither
+     */
+    static Encoding negotiate(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (final String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.split(";");
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                final String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = parseDouble(parameter.substring(2));
+                    } catch (final NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (parts[0].trim().toLowerCase(ENGLISH)) {
+                case "gzip":
+                case "x-gzip":
+                    gzip = quality;
+                    break;
+                case "deflate":
+                    deflate = quality;
+                    break;
+                case "*":
+                    any = quality;
+                    break;
+                default:
+                    break;
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? Encoding.GZIP : Encoding.DEFLATE;
+    }
+
+    /**
+     * The content codings this interceptor can write, each with its own pool of deflaters.
+     */
+    enum Encoding {
+        GZIP("gzip", true), DEFLATE("deflate", false);
+
+        final String token;
+
+        /**
+         * Whether the deflate stream is written without the zlib wrapper, as gzip frames it itself
+         */
+        final boolean nowrap;
+
+        private final BlockingQueue<Deflater> pool =
+                new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+        private final int level = parseInt(getProperty(LEVEL_PROPERTY, String.valueOf(DEFAULT_COMPRESSION)));
+
+        Encoding(final String token, final boolean nowrap) {
+            this.token = token;
+            this.nowrap = nowrap;
+        }
+
+        Deflater borrow() {
+            final Deflater deflater = pool.poll();
+            return deflater != null ? deflater : new Deflater(level, nowrap);
+        }
+
+        void release(final Deflater deflater) {
+            deflater.reset();
+            if (!pool.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Holds back the first bytes of an entity until they exceed the minimum size, then sets the Content-Encoding
+     * header and deflates everything written, framing it as gzip if need be.
+     */
+    static class CompressingOutputStream extends OutputStream {
+
+        private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+        private final OutputStream out;
+
+        private final MultivaluedMap<String, Object> responseHeaders;
+
+        private final Encoding encoding;
+
+        private final byte[] held;
+
+        private int heldCount;
+
+        private final byte[] chunk = new byte[8192];
+
+        private Deflater deflater;
+
+        private final CRC32 crc = new CRC32();
+
+        private long bytesIn;
+
+        private long bytesOut;
+
+        private long deflateNanos;
+
+        private boolean finished;
+
+        CompressingOutputStream(final OutputStream out, final MultivaluedMap<String, Object> responseHeaders,
+                final Encoding encoding, final int minimumSize) {
+            this.out = out;
+            this.responseHeaders = responseHeaders;
+            this.encoding = encoding;
+            this.held = new byte[Math.max(minimumSize, 0)];
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (finished) {
+                throw new IOException("Stream already finished");
+            }
+            if (deflater == null) {
+                if (heldCount + len <= held.length) {
+                    System.arraycopy(b, off, held, heldCount, len);
+                    heldCount += len;
+                    return;
+                }
+                start();
+            }
+            deflate(b, off, len);
+        }
+
+        private void start() throws IOException {
+            responseHeaders.putSingle(CONTENT_ENCODING, encoding.token);
+            responseHeaders.remove(CONTENT_LENGTH);
+            deflater = encoding.borrow();
+            if (encoding.nowrap) {
+                out.write(GZIP_HEADER);
+                bytesOut += GZIP_HEADER.length;
+            }
+            deflate(held, 0, heldCount);
+        }
+
+        private void deflate(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            crc.update(b, off, len);
+            bytesIn += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            final long start = nanoTime();
+            final int length = deflater.deflate(chunk);
+            deflateNanos += nanoTime() - start;
+            if (length > 0) {
+                out.write(chunk, 0, length);
+                bytesOut += length;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (deflater != null) {
+                out.flush();
+            }
+        }
+
+        /**
+         * Write out the rest of the entity, without closing the underlying stream.
+         *
+         * @throws IOException if the entity could not be written
+         */
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (deflater == null) {
+                out.write(held, 0, heldCount);
+                return;
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+            if (encoding.nowrap) {
+                writeTrailerInt(crc.getValue());
+                writeTrailerInt(bytesIn);
+                bytesOut += 8;
+            }
+            ratio.update(bytesOut * 100 / bytesIn);
+            deflateTimer.update(deflateNanos, NANOSECONDS);
+        }
+
+        private void writeTrailerInt(final long value) throws IOException {
+            out.write((int) value);
+            out.write((int) (value >> 8));
+            out.write((int) (value >> 16));
+            out.write((int) (value >> 24));
+        }
+
+        /**
+         * Return the deflater, if any, to its pool.
+         */
+        void release() {
+            if (deflater != null) {
+                encoding.release(deflater);
+                deflater = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                release();
+                out.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.channels.Channels.newChannel;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes a region of a file through a {@link FileChannel}, so that a range starting deep into a large file
+ * is served by position rather than by reading and discarding everything before it.
+ *
+ * @author agent
+ */
+public class FileChannelStreamingOutput implements StreamingOutput {
+
+    private final FileChannel channel;
+
+    private final long position;
+
+    private final long count;
+
+    /**
+     * Open a file for output. The file is opened now, so that a caller can fall back to another way of
+     * reading it if that fails.
+     *
+     * @param file the file to write
+     * @param position the offset of the first byte to write
+     * @param count the number of bytes to write, or -1 for the rest of the file
+     * @throws IOException if the file could not be opened
+     */
+    public FileChannelStreamingOutput(final File file, final long position, final long count)
+            throws IOException {
+        this.channel = FileChannel.open(file.toPath(), READ);
+        this.position = position;
+        this.count = count;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        try {
+            final long end = count == -1 ? channel.size() : Math.min(position + count, channel.size());
+            transfer(channel, position, end, newChannel(output));
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Write the bytes of a file between two positions.
+     *
+     * @param channel the file
+     * @param position the offset of the first byte to write
+     * @param end the offset after the last byte to write
+     * @param target where to write
+     * @throws IOException if the file could not be read, or the target written
+     */
+    static void transfer(final FileChannel channel, final long position, final long end,
+            final WritableByteChannel target) throws IOException {
+        long next = position;
+        // transferTo may move fewer bytes than asked for, e.g. when the target is not a file or socket
+        while (next < end) {
+            final long transferred = channel.transferTo(next, end - next, target);
+            if (transferred == 0 && next >= channel.size()) {
+                throw new IOException("File was truncated while being written");
+            }
+            next += transferred;
+        }
+    }
+}
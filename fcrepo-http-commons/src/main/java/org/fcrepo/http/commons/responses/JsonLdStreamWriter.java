@@ -0,0 +1,161 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
+import static org.apache.jena.datatypes.xsd.XSDDatatype.XSDstring;
+import static org.apache.jena.vocabulary.RDF.type;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes triples as expanded JSON-LD as they arrive, one node object per run of triples with the same subject,
+ * without building a model of the whole graph.
+ *
+ * The document is an array of node objects with full IRIs. A subject whose triples do not arrive together is
+ * written as more than one node object, which expanded JSON-LD allows and processors merge again. Compacted and
+ * flattened JSON-LD need the whole graph and are not written here.
+ *
+ * @author agent
+ */
+final class JsonLdStreamWriter {
+
+    private static final JsonFactory jsonFactory = new JsonFactory().disable(AUTO_CLOSE_TARGET);
+
+    private static final Node RDF_TYPE = type.asNode();
+
+    private final OutputStream output;
+
+    private final Map<Node, String> blankNodes = new HashMap<>();
+
+    private JsonGenerator json;
+
+    /**
+     * @param output the stream to write to
+     */
+    JsonLdStreamWriter(final OutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Write a stream of triples as a JSON-LD document.
+     *
+     * @param triples the triples
+     * @throws IOException if the output cannot be written
+     */
+    void write(final Stream<Triple> triples) throws IOException {
+        json = jsonFactory.createGenerator(output);
+        json.writeStartArray();
+
+        final Map<Node, List<Node>> properties = new LinkedHashMap<>();
+        final Node[] subject = new Node[1];
+        try {
+            triples.forEach(t -> {
+                if (!t.getSubject().equals(subject[0])) {
+                    writeNode(subject[0], properties);
+                    properties.clear();
+                    subject[0] = t.getSubject();
+                }
+                properties.computeIfAbsent(t.getPredicate(), p -> new ArrayList<>()).add(t.getObject());
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeNode(subject[0], properties);
+
+        json.writeEndArray();
+        json.flush();
+    }
+
+    private void writeNode(final Node subject, final Map<Node, List<Node>> properties) {
+        if (subject == null) {
+            return;
+        }
+        try {
+            json.writeStartObject();
+            json.writeStringField("@id", id(subject));
+            final List<Node> types = properties.get(RDF_TYPE);
+            final boolean typeKeyword = types != null && types.stream().noneMatch(Node::isLiteral);
+            if (typeKeyword) {
+                json.writeFieldName("@type");
+                writeValues(types, true);
+            }
+            for (final Map.Entry<Node, List<Node>> property : properties.entrySet()) {
+                if (!typeKeyword || !property.getKey().equals(RDF_TYPE)) {
+                    json.writeFieldName(id(property.getKey()));
+                    writeValues(property.getValue(), false);
+                }
+            }
+            json.writeEndObject();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeValues(final List<Node> values, final boolean types) throws IOException {
+        json.writeStartArray();
+        for (final Node value : values) {
+            if (types) {
+                json.writeString(id(value));
+            } else {
+                writeValue(value);
+            }
+        }
+        json.writeEndArray();
+    }
+
+    private void writeValue(final Node value) throws IOException {
+        if (!value.isLiteral()) {
+            json.writeStartObject();
+            json.writeStringField("@id", id(value));
+            json.writeEndObject();
+            return;
+        }
+        final String language = value.getLiteralLanguage();
+        final String datatype = value.getLiteralDatatypeURI();
+        json.writeStartObject();
+        json.writeStringField("@value", value.getLiteralLexicalForm());
+        if (!language.isEmpty()) {
+            json.writeStringField("@language", language);
+        } else if (datatype != null && !datatype.equals(XSDstring.getURI())) {
+            json.writeStringField("@type", datatype);
+        }
+        json.writeEndObject();
+    }
+
+    private String id(final Node node) {
+        if (node.isBlank()) {
+            return blankNodes.computeIfAbsent(node, n -> "_:b" + blankNodes.size());
+        }
+        return node.getURI();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.channels.Channels.newChannel;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.UUID.randomUUID;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.fcrepo.http.commons.domain.Range;
+
+/**
+ * Writes several ranges of some content as a multipart/byteranges entity. The ranges are read by position
+ * from a file where there is one, and otherwise in a single pass over a stream, so they must be resolved
+ * and in ascending order, as given by {@link Range#coalesce}.
+ *
+ * @author agent
+ */
+public class MultipartByteRangesStreamingOutput implements StreamingOutput {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final List<Range> ranges;
+
+    private final long contentSize;
+
+    private final String contentType;
+
+    private final String boundary = randomUUID().toString();
+
+    private final FileChannel channel;
+
+    private final InputStream stream;
+
+    /**
+     * Write ranges of a file. The file is opened now, so that a caller can fall back to another way of
+     * reading it if that fails.
+     *
+     * @param ranges resolved ranges, in ascending order
+     * @param contentSize the size of the content
+     * @param contentType the media type of the content
+     * @param file the file holding the content
+     * @throws IOException if the file could not be opened
+     */
+    public MultipartByteRangesStreamingOutput(final List<Range> ranges, final long contentSize,
+            final String contentType, final File file) throws IOException {
+        this.ranges = ranges;
+        this.contentSize = contentSize;
+        this.contentType = contentType;
+        this.channel = FileChannel.open(file.toPath(), READ);
+        this.stream = null;
+    }
+
+    /**
+     * Write ranges of a stream.
+     *
+     * @param ranges resolved ranges, in ascending order
+     * @param contentSize the size of the content
+     * @param contentType the media type of the content
+     * @param stream the content
+     */
+    public MultipartByteRangesStreamingOutput(final List<Range> ranges, final long contentSize,
+            final String contentType, final InputStream stream) {
+        this.ranges = ranges;
+        this.contentSize = contentSize;
+        this.contentType = contentType;
+        this.channel = null;
+        this.stream = stream;
+    }
+
+    /**
+     * @return the media type of the entity, including its boundary
+     */
+    public MediaType getMediaType() {
+        return MediaType.valueOf("multipart/byteranges; boundary=" + boundary);
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        try {
+            final WritableByteChannel target = newChannel(output);
+            long position = 0;
+            for (final Range range : ranges) {
+                final StringBuilder headers = new StringBuilder("\r\n--").append(boundary).append("\r\n");
+                if (contentType != null) {
+                    headers.append("Content-Type: ").append(contentType).append("\r\n");
+                }
+                headers.append("Content-Range: ").append(range.contentRange(contentSize)).append("\r\n\r\n");
+                output.write(headers.toString().getBytes(US_ASCII));
+
+                if (channel != null) {
+                    FileChannelStreamingOutput.transfer(channel, range.start(), range.end() + 1, target);
+                } else {
+                    skip(range.start() - position);
+                    copy(range.size(), output);
+                    position = range.end() + 1;
+                }
+            }
+            output.write(("\r\n--" + boundary + "--\r\n").getBytes(US_ASCII));
+        } finally {
+            if (channel != null) {
+                channel.close();
+            } else {
+                stream.close();
+            }
+        }
+    }
+
+    private void skip(final long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            final long skipped = stream.skip(remaining);
+            if (skipped > 0) {
+                remaining -= skipped;
+            } else if (stream.read() == -1) {
+                throw new EOFException("Content ended before the requested range");
+            } else {
+                remaining--;
+            }
+        }
+    }
+
+    private void copy(final long count, final OutputStream output) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = count;
+        while (remaining > 0) {
+            final int n = stream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n == -1) {
+                throw new EOFException("Content ended before the requested range");
+            }
+            output.write(buffer, 0, n);
+            remaining -= n;
+        }
+    }
+}
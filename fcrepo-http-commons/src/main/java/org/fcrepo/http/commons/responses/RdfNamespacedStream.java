@@ -35,6 +35,10 @@ public class RdfNamespacedStream implements AutoCloseable {
 
     public final Map<String, String> namespaces;
 
+    public final RepresentationCache cache;
+
+    public final RepresentationCache.Key cacheKey;
+
     /**
      * Creates an object to hold an RdfStream and an associated namespace mapping.
      *
@@ -42,10 +46,26 @@ public class RdfNamespacedStream implements AutoCloseable {
      * @param namespaces the namespace mapping
      */
     public RdfNamespacedStream(final RdfStream stream, final Map<String, String> namespaces) {
+        this(stream, namespaces, null, null);
+    }
+
+    /**
+     * Creates an object to hold an RdfStream and an associated namespace mapping, whose serialization may be
+     * served from, or recorded in, a representation cache.
+     *
+     * @param stream the RdfStream
+     * @param namespaces the namespace mapping
+     * @param cache the representation cache, or null
+     * @param cacheKey the key of the representation, apart from its media type
+     */
+    public RdfNamespacedStream(final RdfStream stream, final Map<String, String> namespaces,
+            final RepresentationCache cache, final RepresentationCache.Key cacheKey) {
         requireNonNull(stream);
         requireNonNull(namespaces);
         this.stream = stream;
         this.namespaces = namespaces;
+        this.cache = cache;
+        this.cacheKey = cacheKey;
     }
 
     @Override
@@ -23,14 +23,17 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
 import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_THRIFT;
 import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
@@ -47,7 +50,7 @@ import org.slf4j.Logger;
  * @since Nov 19, 2013
  */
 @Provider
-@Produces({TURTLE, N3, N3_ALT2, RDF_XML, NTRIPLES, TEXT_PLAIN, TURTLE_X, JSON_LD})
+@Produces({TURTLE, N3, N3_ALT2, RDF_XML, NTRIPLES, TEXT_PLAIN, TURTLE_X, JSON_LD, RDF_THRIFT})
 public class RdfStreamProvider implements MessageBodyWriter<RdfNamespacedStream> {
 
     private static final Logger LOGGER = getLogger(RdfStreamProvider.class);
@@ -84,7 +87,24 @@ public class RdfStreamProvider implements MessageBodyWriter<RdfNamespacedStream>
         final Type genericType, final Annotation[] annotations,
         final MediaType mediaType,
         final MultivaluedMap<String, Object> httpHeaders,
-        final OutputStream entityStream) {
+        final OutputStream entityStream) throws IOException {
+
+        if (nsStream.cache != null && nsStream.cacheKey != null) {
+            final RepresentationCache.Key key = nsStream.cacheKey.withMediaType(mediaType);
+            final ByteBuffer cached = nsStream.cache.get(key);
+            if (cached != null) {
+                LOGGER.debug("Serving a cached representation as mimeType: {}", mediaType);
+                nsStream.close();
+                RepresentationCache.writeTo(cached, entityStream);
+                return;
+            }
+            LOGGER.debug("Serializing an RdfStream to mimeType: {}, recording it in the cache", mediaType);
+            final RepresentationCache.Recording recording = nsStream.cache.record(key, entityStream);
+            new RdfStreamStreamingOutput(nsStream.stream, nsStream.namespaces, mediaType).write(recording);
+            recording.flush();
+            recording.finish();
+            return;
+        }
 
         LOGGER.debug("Serializing an RdfStream to mimeType: {}", mediaType);
         final RdfStreamStreamingOutput streamOutput = new RdfStreamStreamingOutput(nsStream.stream,
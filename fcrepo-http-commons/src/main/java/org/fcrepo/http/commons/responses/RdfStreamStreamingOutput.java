@@ -19,13 +19,13 @@ package org.fcrepo.http.commons.responses;
 
 import static javax.ws.rs.core.Response.Status.NOT_ACCEPTABLE;
 import static org.apache.jena.riot.Lang.JSONLD;
+import static org.apache.jena.riot.Lang.N3;
 import static org.apache.jena.riot.Lang.RDFXML;
 import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
 import static org.apache.jena.riot.RDFLanguages.getRegisteredLanguages;
-import static org.apache.jena.riot.RDFFormat.RDFXML_PLAIN;
 import static org.apache.jena.riot.RDFFormat.JSONLD_COMPACT_FLAT;
-import static org.apache.jena.riot.RDFFormat.JSONLD_EXPAND_FLAT;
 import static org.apache.jena.riot.RDFFormat.JSONLD_FLATTEN_FLAT;
+import static org.apache.jena.riot.RDFFormat.TURTLE_BLOCKS;
 import static org.apache.jena.riot.system.StreamRDFWriter.defaultSerialization;
 import static org.apache.jena.riot.system.StreamRDFWriter.getWriterStream;
 import static org.fcrepo.kernel.api.RdfCollectors.toModel;
@@ -120,9 +120,9 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
                        final MediaType dataMediaType,
                        final Map<String, String> nsPrefixes) throws IOException {
 
-        final RDFFormat format = defaultSerialization(dataFormat);
+        final RDFFormat format = N3.equals(dataFormat) ? TURTLE_BLOCKS : defaultSerialization(dataFormat);
 
-        // For formats that can be block-streamed (n-triples, turtle)
+        // For formats that can be block-streamed (n-triples, turtle, and n3 written as turtle)
         if (format != null) {
             LOGGER.debug("Stream-based serialization of {}", dataFormat.toString());
             final StreamRDF stream = getWriterStream(output, format);
@@ -131,30 +131,40 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
             rdfStream.forEach(stream::triple);
             stream.finish();
 
-        // For formats that require analysis of the entire model and cannot be streamed directly (rdfxml, n3)
+        // RDF/XML is written one rdf:Description at a time as the triples arrive
+        } else if (RDFXML.equals(dataFormat)) {
+            LOGGER.debug("Stream-based serialization of {}", dataFormat.toString());
+            new RdfXmlStreamWriter(output, nsPrefixes).write(rdfStream);
+
+        // Expanded JSON-LD is written node by node as the triples arrive
+        } else if (JSONLD.equals(dataFormat) && getJsonLdFormat(dataMediaType) == null) {
+            LOGGER.debug("Stream-based serialization of {}", dataFormat.toString());
+            new JsonLdStreamWriter(output).write(rdfStream);
+
+        // For any other format, which requires analysis of the entire model (compacted and flattened JSON-LD)
         } else {
             LOGGER.debug("Non-stream serialization of {}", dataFormat.toString());
             final Model model = rdfStream.collect(toModel());
             model.setNsPrefixes(nsPrefixes);
-            // use block output streaming for RDFXML
-            if (RDFXML.equals(dataFormat)) {
-                RDFDataMgr.write(output, model.getGraph(), RDFXML_PLAIN);
-            } else if (JSONLD.equals(dataFormat)) {
-                final RDFFormat jsonldFormat = getFormatFromMediaType(dataMediaType);
-                RDFDataMgr.write(output, model.getGraph(), jsonldFormat);
+            if (JSONLD.equals(dataFormat)) {
+                RDFDataMgr.write(output, model.getGraph(), getJsonLdFormat(dataMediaType));
             } else {
                 RDFDataMgr.write(output, model.getGraph(), dataFormat);
             }
         }
     }
 
-    private static RDFFormat getFormatFromMediaType(final MediaType mediaType) {
+    /**
+     * @param mediaType the requested JSON-LD media type
+     * @return the format for the compacted or flattened profile, or null for expanded JSON-LD
+     */
+    private static RDFFormat getJsonLdFormat(final MediaType mediaType) {
         final String profile = mediaType.getParameters().getOrDefault("profile", "");
         if (profile.equals(JSONLD_COMPACTED)) {
             return JSONLD_COMPACT_FLAT;
         } else if (profile.equals(JSONLD_FLATTENED)) {
             return JSONLD_FLATTEN_FLAT;
         }
-        return JSONLD_EXPAND_FLAT;
+        return null;
     }
 }
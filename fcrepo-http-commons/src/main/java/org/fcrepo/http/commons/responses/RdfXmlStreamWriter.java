@@ -0,0 +1,211 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.jena.rdf.model.impl.Util.splitNamespaceXML;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * Writes triples as RDF/XML as they arrive, one rdf:Description per run of triples with the same subject, without
+ * building a model of the whole graph. The known namespace prefixes are all declared on the rdf:RDF element; a
+ * predicate in any other namespace declares its namespace on its own property element.
+ *
+ * @author agent
+ */
+final class RdfXmlStreamWriter {
+
+    private static final String RDF_NS = RDF.getURI();
+
+    private static final String LOCAL_PREFIX = "j.0";
+
+    private final OutputStream output;
+
+    private final Map<String, String> prefixes = new HashMap<>();
+
+    private final Map<Node, String> blankNodes = new HashMap<>();
+
+    private Writer writer;
+
+    /**
+     * @param output the stream to write to
+     * @param namespaces the namespace prefixes
+     */
+    RdfXmlStreamWriter(final OutputStream output, final Map<String, String> namespaces) {
+        this.output = output;
+        prefixes.put(RDF_NS, "rdf");
+        namespaces.forEach((prefix, namespace) -> {
+            if (isDeclarable(prefix) && !prefix.equals("rdf") && !prefix.equals(LOCAL_PREFIX)
+                    && !namespace.isEmpty()) {
+                prefixes.putIfAbsent(namespace, prefix);
+            }
+        });
+    }
+
+    /**
+     * Write a stream of triples as an RDF/XML document.
+     *
+     * @param triples the triples
+     * @throws IOException if the output cannot be written
+     */
+    void write(final Stream<Triple> triples) throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        writer.write("<rdf:RDF");
+        for (final Map.Entry<String, String> prefix : prefixes.entrySet()) {
+            writer.write("\n    xmlns:");
+            writer.write(prefix.getValue());
+            writer.write("=\"");
+            writer.write(escape(prefix.getKey(), true));
+            writer.write("\"");
+        }
+        writer.write(">\n");
+
+        final Node[] subject = new Node[1];
+        try {
+            triples.forEach(t -> {
+                try {
+                    if (!t.getSubject().equals(subject[0])) {
+                        if (subject[0] != null) {
+                            writer.write("  </rdf:Description>\n");
+                        }
+                        subject[0] = t.getSubject();
+                        writer.write("  <rdf:Description ");
+                        writer.write(reference(subject[0], "rdf:about"));
+                        writer.write(">\n");
+                    }
+                    writeProperty(t.getPredicate(), t.getObject());
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (subject[0] != null) {
+            writer.write("  </rdf:Description>\n");
+        }
+        writer.write("</rdf:RDF>\n");
+        writer.flush();
+    }
+
+    private void writeProperty(final Node predicate, final Node object) throws IOException {
+        final String uri = predicate.getURI();
+        final int split = splitNamespaceXML(uri);
+        if (split == uri.length()) {
+            throw new RiotException("Predicate " + uri + " cannot be written as an RDF/XML property element");
+        }
+        final String namespace = uri.substring(0, split);
+        final String prefix = prefixes.get(namespace);
+        final String element = (prefix == null ? LOCAL_PREFIX : prefix) + ":" + uri.substring(split);
+
+        writer.write("    <");
+        writer.write(element);
+        if (prefix == null) {
+            writer.write(" xmlns:" + LOCAL_PREFIX + "=\"");
+            writer.write(escape(namespace, true));
+            writer.write("\"");
+        }
+        if (!object.isLiteral()) {
+            writer.write(" ");
+            writer.write(reference(object, "rdf:resource"));
+            writer.write("/>\n");
+            return;
+        }
+        final String language = object.getLiteralLanguage();
+        if (!language.isEmpty()) {
+            writer.write(" xml:lang=\"");
+            writer.write(escape(language, true));
+            writer.write("\"");
+        } else if (object.getLiteralDatatypeURI() != null && !object.getLiteralDatatypeURI().equals(
+                "http://www.w3.org/2001/XMLSchema#string")) {
+            writer.write(" rdf:datatype=\"");
+            writer.write(escape(object.getLiteralDatatypeURI(), true));
+            writer.write("\"");
+        }
+        writer.write(">");
+        writer.write(escape(object.getLiteralLexicalForm(), false));
+        writer.write("</");
+        writer.write(element);
+        writer.write(">\n");
+    }
+
+    private String reference(final Node node, final String attribute) {
+        if (node.isBlank()) {
+            return "rdf:nodeID=\"" + blankNodes.computeIfAbsent(node, n -> "b" + blankNodes.size()) + "\"";
+        }
+        return attribute + "=\"" + escape(node.getURI(), true) + "\"";
+    }
+
+    private static boolean isDeclarable(final String prefix) {
+        if (prefix.isEmpty() || prefix.toLowerCase().startsWith("xml") || !isNameStart(prefix.charAt(0))) {
+            return false;
+        }
+        return prefix.chars().allMatch(c -> isNameStart(c) || c == '-' || c == '.' || Character.isDigit(c));
+    }
+
+    private static boolean isNameStart(final int c) {
+        return c == '_' || Character.isLetter(c);
+    }
+
+    private static String escape(final String text, final boolean attribute) {
+        final StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                case '"':
+                    escaped.append(attribute ? "&quot;" : "\"");
+                    break;
+                case '\r':
+                    escaped.append("&#xD;");
+                    break;
+                case '\n':
+                    escaped.append(attribute ? "&#xA;" : "\n");
+                    break;
+                case '\t':
+                    escaped.append(attribute ? "&#x9;" : "\t");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.cache.RemovalCause.REPLACED;
+import static com.google.common.cache.RemovalCause.SIZE;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.hash;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.ws.rs.core.MediaType;
+
+import org.fcrepo.kernel.api.observer.FedoraEvent;
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Meter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * A size-bounded, least-recently-used cache of serialized RDF representations, so that a GET of an unchanged
+ * resource is answered from the bytes of an earlier response instead of re-deriving every triple.
+ *
+ * Representations are keyed by the resource's path and ETag, by the identity of the principals the response was
+ * authorized for, by everything else about the request that shapes the response (its URI, Prefer and Limit), and
+ * by the negotiated media type. As the ETag changes whenever the resource, its containment or its membership is
+ * modified, a changed resource is simply never matched again; events on the internal bus also drop the entries of
+ * the resource and of the container whose embedded triples it appears in, which the ETag does not cover. That
+ * container is the first ancestor that is not a pairtree node: walking up from the resource, the first ancestor
+ * with cached representations is taken for it, since pairtree nodes are never cached. Representations evicted
+ * for size may be kept in an optional disk tier, and are served from it memory-mapped.
+ *
+ * @author agent
+ */
+public class RepresentationCache {
+
+    private static final Logger LOGGER = getLogger(RepresentationCache.class);
+
+    private static final RegistryService registryService = RegistryService.getInstance();
+
+    static final Meter hits = registryService.getMetrics().meter(name(RepresentationCache.class, "hits"));
+
+    static final Meter misses = registryService.getMetrics().meter(name(RepresentationCache.class, "misses"));
+
+    /**
+     * The number of invalidations so far, which orders the start of a rendering against the invalidations of its
+     * path: a representation rendered while its path was invalidated may already be stale, and is not cached.
+     */
+    private static final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The most paths whose last invalidation is remembered.
+     */
+    private static final int MAX_INVALIDATED_PATHS = 10000;
+
+    @Inject
+    private EventBus eventBus;
+
+    private final long maxEntryBytes;
+
+    private final Cache<Key, byte[]> memory;
+
+    private final Cache<Key, DiskEntry> disk;
+
+    private final Path directory;
+
+    /**
+     * The keys of the representations held in either tier, by path, so that those of a resource can be dropped
+     * without scanning the whole cache. Guarded by itself; a key is indexed before it is cached.
+     */
+    private final Map<String, Set<Key>> index = new HashMap<>();
+
+    /**
+     * The generation of the last invalidation of recently invalidated paths. Guarded by the index.
+     */
+    private final Cache<String, Long> invalidated = CacheBuilder.newBuilder()
+            .maximumSize(MAX_INVALIDATED_PATHS)
+            .removalListener(this::forget)
+            .build();
+
+    /**
+     * A generation no earlier than the last invalidation of any path that is not remembered. Guarded by the index.
+     */
+    private long forgotten;
+
+
+    /**
+     * Create a cache held in memory only.
+     *
+     * @param maxBytes the most bytes of representations to keep in memory
+     */
+    public RepresentationCache(final long maxBytes) {
+        this(maxBytes, null, 0);
+    }
+
+    /**
+     * Create a cache that moves representations evicted from memory to a directory on disk.
+     *
+     * @param maxBytes the most bytes of representations to keep in memory
+     * @param directory the directory of the disk tier, or null or empty for none
+     * @param maxDiskBytes the most bytes of representations to keep on disk
+     */
+    public RepresentationCache(final long maxBytes, final String directory, final long maxDiskBytes) {
+        this.maxEntryBytes = maxBytes / 8;
+        this.directory = directory == null || directory.isEmpty() ? null : Paths.get(directory);
+        this.disk = this.directory == null ? null : CacheBuilder.newBuilder()
+                .maximumWeight(maxDiskBytes)
+                .weigher((final Key k, final DiskEntry v) -> v.length)
+                .removalListener(this::removeFile)
+                .build();
+        this.memory = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((final Key k, final byte[] v) -> v.length)
+                .removalListener(this::evict)
+                .build();
+    }
+
+    /**
+     * Register for repository events and prepare the disk tier.
+     *
+     * @throws IOException if the disk tier directory cannot be created
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (directory != null) {
+            createDirectories(directory);
+        }
+        if (eventBus != null) {
+            eventBus.register(this);
+        }
+    }
+
+    /**
+     * Stop listening for events and drop every representation.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (eventBus != null) {
+            eventBus.unregister(this);
+        }
+        invalidateAll();
+    }
+
+    /**
+     * Get a cached representation.
+     *
+     * @param key the key of the representation
+     * @return the serialized representation, or null if it is not cached
+     */
+    public ByteBuffer get(final Key key) {
+        final byte[] bytes = memory.getIfPresent(key);
+        if (bytes != null) {
+            hits.mark();
+            return ByteBuffer.wrap(bytes);
+        }
+        final DiskEntry entry = disk == null ? null : disk.getIfPresent(key);
+        if (entry != null) {
+            try (final FileChannel channel = FileChannel.open(entry.path, READ)) {
+                final ByteBuffer mapped = channel.map(READ_ONLY, 0, entry.length);
+                hits.mark();
+                return mapped;
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to read cached representation {}: {}", entry.path, e.getMessage());
+                disk.invalidate(key);
+            }
+        }
+        misses.mark();
+        return null;
+    }
+
+    /**
+     * Write a cached representation to a stream.
+     *
+     * @param representation the serialized representation
+     * @param out the stream
+     * @throws IOException if the representation cannot be written
+     */
+    public static void writeTo(final ByteBuffer representation, final OutputStream out) throws IOException {
+        if (representation.hasArray()) {
+            out.write(representation.array(), representation.arrayOffset() + representation.position(),
+                    representation.remaining());
+        } else {
+            Channels.newChannel(out).write(representation.duplicate());
+        }
+        out.flush();
+    }
+
+    /**
+     * Wrap a stream so that what is written through it is cached under the given key once it is finished.
+     *
+     * @param key the key of the representation
+     * @param out the stream to which the representation is written
+     * @return the wrapped stream
+     */
+    public Recording record(final Key key, final OutputStream out) {
+        return new Recording(key, out);
+    }
+
+    /**
+     * Drop the representations of the resource of an event and of the container it is embedded in.
+     *
+     * @param event the event
+     */
+    @Subscribe
+    public void onEvent(final FedoraEvent event) {
+        final String path = event.getPath();
+        if (path == null) {
+            return;
+        }
+        invalidate(path);
+        for (String ancestor = parentOf(path); ancestor != null; ancestor = parentOf(ancestor)) {
+            if (invalidate(ancestor)) {
+                break;
+            }
+        }
+    }
+
+    private static String parentOf(final String path) {
+        if (path.equals("/")) {
+            return null;
+        }
+        final int slash = path.lastIndexOf('/');
+        return slash > 0 ? path.substring(0, slash) : "/";
+    }
+
+    /**
+     * Drop every representation.
+     */
+    public void invalidateAll() {
+        synchronized (index) {
+            forgotten = generation.incrementAndGet();
+            invalidated.invalidateAll();
+            index.clear();
+        }
+        memory.invalidateAll();
+        if (disk != null) {
+            disk.invalidateAll();
+        }
+    }
+
+    /*
+     * Drop the representations of a path, answering whether there were any.
+     */
+    private boolean invalidate(final String path) {
+        final Set<Key> keys;
+        synchronized (index) {
+            invalidated.put(path, generation.incrementAndGet());
+            keys = index.remove(path);
+        }
+        if (keys == null) {
+            return false;
+        }
+        memory.invalidateAll(keys);
+        if (disk != null) {
+            disk.invalidateAll(keys);
+        }
+        return true;
+    }
+
+    private void put(final Key key, final byte[] representation) {
+        synchronized (index) {
+            final Long last = invalidated.getIfPresent(key.path);
+            if ((last == null ? forgotten : last) > key.generation) {
+                LOGGER.debug("Representation of {} may be stale, and is not cached", key.path);
+                return;
+            }
+            index.computeIfAbsent(key.path, p -> new HashSet<>()).add(key);
+            memory.put(key, representation);
+        }
+    }
+
+    /*
+     * Remember that a path evicted from the invalidated paths may have been invalidated as late as it was.
+     */
+    private void forget(final RemovalNotification<String, Long> removed) {
+        if (removed.getCause() == SIZE) {
+            forgotten = Math.max(forgotten, removed.getValue());
+        }
+    }
+
+    /*
+     * Forget a key that is held in neither tier.
+     */
+    private void unindex(final Key key) {
+        synchronized (index) {
+            if (memory.asMap().containsKey(key) || disk != null && disk.asMap().containsKey(key)) {
+                return;
+            }
+            final Set<Key> keys = index.get(key.path);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                index.remove(key.path);
+            }
+        }
+    }
+
+    private void evict(final RemovalNotification<Key, byte[]> evicted) {
+        if (evicted.getCause() == REPLACED) {
+            return;
+        }
+        if (disk == null || evicted.getCause() != SIZE) {
+            unindex(evicted.getKey());
+            return;
+        }
+        try {
+            final Path file = createTempFile(directory, "representation", ".bin");
+            write(file, evicted.getValue());
+            disk.put(evicted.getKey(), new DiskEntry(file, evicted.getValue().length));
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to move cached representation to disk: {}", e.getMessage());
+            unindex(evicted.getKey());
+        }
+    }
+
+    private void removeFile(final RemovalNotification<Key, DiskEntry> removed) {
+        try {
+            deleteIfExists(removed.getValue().path);
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to delete cached representation {}: {}", removed.getValue().path, e.getMessage());
+        }
+        if (removed.getCause() != REPLACED) {
+            unindex(removed.getKey());
+        }
+    }
+
+    /**
+     * A stream recording what is written through it, to be cached once the representation is complete.
+     */
+    public class Recording extends FilterOutputStream {
+
+        private final Key key;
+
+        private ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+        private Recording(final Key key, final OutputStream out) {
+            super(out);
+            this.key = key;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            if (recorded != null) {
+                recorded.write(b);
+                checkSize();
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            if (recorded != null) {
+                recorded.write(b, off, len);
+                checkSize();
+            }
+        }
+
+        private void checkSize() {
+            if (recorded.size() > maxEntryBytes) {
+                LOGGER.debug("Representation of {} is too large to cache", key.path);
+                recorded = null;
+            }
+        }
+
+        /**
+         * Cache the representation written so far, which must be complete.
+         */
+        public void finish() {
+            if (recorded != null) {
+                put(key, recorded.toByteArray());
+                recorded = null;
+            }
+        }
+    }
+
+    private static class DiskEntry {
+
+        private final Path path;
+
+        private final int length;
+
+        private DiskEntry(final Path path, final int length) {
+            this.path = path;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The identity of a representation.
+     */
+    public static final class Key {
+
+        private final String path;
+
+        private final String etag;
+
+        private final Object principals;
+
+        private final String variant;
+
+        private final String mediaType;
+
+        private final long generation;
+
+        /**
+         * Identify a representation that is about to be rendered, which is cached only if its path is not
+         * invalidated in the meantime.
+         *
+         * @param path the path of the resource
+         * @param etag the ETag of the resource
+         * @param principals the identity of the principals the representation is authorized for
+         * @param variant everything else about the request that shapes the response
+         */
+        public Key(final String path, final String etag, final Object principals, final String variant) {
+            this(path, etag, principals, variant, null, RepresentationCache.generation.get());
+        }
+
+        private Key(final String path, final String etag, final Object principals, final String variant,
+                final String mediaType, final long generation) {
+            this.path = path;
+            this.etag = etag;
+            this.principals = principals;
+            this.variant = variant;
+            this.mediaType = mediaType;
+            this.generation = generation;
+        }
+
+        /**
+         * @param negotiated the media type of the representation
+         * @return this key, for the given media type
+         */
+        public Key withMediaType(final MediaType negotiated) {
+            return new Key(path, etag, principals, variant, negotiated.toString(), generation);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return path.equals(other.path) && etag.equals(other.etag) && principals.equals(other.principals)
+                    && variant.equals(other.variant) && Objects.equals(mediaType, other.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash(path, etag, principals, variant, mediaType);
+        }
+    }
+}
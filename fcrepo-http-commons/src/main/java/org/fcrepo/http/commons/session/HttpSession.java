@@ -17,8 +17,13 @@
  */
 package org.fcrepo.http.commons.session;
 
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
 import org.fcrepo.kernel.api.FedoraSession;
 
+import com.google.common.base.Suppliers;
+
 /**
  * Provide a batch-aware HTTP session
  * @author acoburn
@@ -29,6 +34,10 @@ public class HttpSession {
 
     private final FedoraSession session;
 
+    private final Consumer<FedoraSession> release;
+
+    private Supplier<Object> identity = () -> null;
+
     /**
      * Create an HTTP session from a Fedora session
      * @param session the Fedora session
@@ -37,7 +46,35 @@ public class HttpSession {
      * a batch operation.
      */
     public HttpSession(final FedoraSession session) {
+        this(session, null);
+    }
+
+    /**
+     * Create an HTTP session from a Fedora session that is handed back,
+     * rather than expired, once the request is complete
+     * @param session the Fedora session
+     * @param release the action that takes the session back
+     */
+    public HttpSession(final FedoraSession session, final Consumer<FedoraSession> release) {
         this.session = session;
+        this.release = release;
+    }
+
+    /**
+     * Set the means of identifying the principals on whose behalf this session acts
+     * @param identity supplies the identity, or null if it cannot be determined
+     */
+    public void setIdentity(final Supplier<Object> identity) {
+        this.identity = Suppliers.memoize(identity::get)::get;
+    }
+
+    /**
+     * Identify the principals on whose behalf this session acts, such that sessions with
+     * equal identities are authorized identically
+     * @return the identity, or null if it cannot be determined
+     */
+    public Object getIdentity() {
+        return identity.get();
     }
 
     /**
@@ -61,7 +98,11 @@ public class HttpSession {
      */
     public void expire() {
         if (!isBatchSession()) {
-            session.expire();
+            if (release == null) {
+                session.expire();
+            } else {
+                release.accept(session);
+            }
         }
     }
 
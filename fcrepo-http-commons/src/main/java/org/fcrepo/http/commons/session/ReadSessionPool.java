@@ -0,0 +1,247 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.session;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.System.currentTimeMillis;
+import static org.fcrepo.kernel.api.observer.OptionalValues.BASE_URL;
+import static org.fcrepo.kernel.api.observer.OptionalValues.USER_AGENT;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.servlet.ServletRequest;
+
+import org.fcrepo.kernel.api.FedoraSession;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.modeshape.FedoraSessionImpl;
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A bounded pool of idle sessions for read-only requests, keyed by the identity
+ * on whose behalf the sessions were created.  A borrowed session is refreshed
+ * so that it sees the latest persisted state; a session that has been idle for
+ * longer than the configured time is logged out.  A session whose attributes hold
+ * the request it was logged in for is never retained, since that request is
+ * recycled by the container once it completes.
+ *
+ * @author agent
+ */
+public class ReadSessionPool {
+
+    private static final Logger LOGGER = getLogger(ReadSessionPool.class);
+
+    private static final RegistryService registryService = RegistryService.getInstance();
+
+    static final Meter hits = registryService.getMetrics().meter(name(ReadSessionPool.class, "hits"));
+
+    static final Meter misses = registryService.getMetrics().meter(name(ReadSessionPool.class, "misses"));
+
+    static final Meter evictions = registryService.getMetrics().meter(name(ReadSessionPool.class, "evictions"));
+
+    static final Counter idleSessions = registryService.getMetrics().counter(name(ReadSessionPool.class, "idle"));
+
+    private final int maxIdle;
+
+    private final long idleTimeout;
+
+    private final Map<Object, Deque<IdleSession>> idle = new HashMap<>();
+
+    private int size;
+
+    private long lastEviction = currentTimeMillis();
+
+    private static class IdleSession {
+
+        private final FedoraSession session;
+
+        private final long since = currentTimeMillis();
+
+        private IdleSession(final FedoraSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * Create a pool of read sessions
+     * @param maxIdle the maximum number of idle sessions retained
+     * @param idleTimeout the time in milliseconds after which an idle session is logged out
+     */
+    public ReadSessionPool(final int maxIdle, final long idleTimeout) {
+        this.maxIdle = maxIdle;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Borrow an idle session for the given key, or log in a new one if there is none.
+     * @param key the identity on whose behalf the session is used
+     * @param login the means of creating a new session
+     * @return a session, to be handed back with {@link #release(Object, FedoraSession)}
+     */
+    public FedoraSession borrow(final Object key, final Supplier<FedoraSession> login) {
+        while (true) {
+            final IdleSession candidate;
+            final List<IdleSession> expired;
+            synchronized (this) {
+                expired = evictIdle();
+                final Deque<IdleSession> sessions = idle.get(key);
+                candidate = sessions == null ? null : sessions.pollFirst();
+                if (candidate != null) {
+                    if (sessions.isEmpty()) {
+                        idle.remove(key);
+                    }
+                    size--;
+                    idleSessions.dec();
+                }
+            }
+            expired.forEach(s -> logout(s.session));
+            if (candidate == null) {
+                misses.mark();
+                return login.get();
+            }
+            if (refresh(candidate.session)) {
+                hits.mark();
+                return candidate.session;
+            }
+            logout(candidate.session);
+        }
+    }
+
+    /**
+     * Hand back a borrowed session, which is retained for reuse if the pool has room.
+     * @param key the identity on whose behalf the session was used
+     * @param session the session
+     */
+    public void release(final Object key, final FedoraSession session) {
+        // the next borrower must not inherit the data describing this request
+        session.removeSessionData(USER_AGENT);
+        session.removeSessionData(BASE_URL);
+        if (holdsRequest(session)) {
+            LOGGER.debug("Not pooling a session that holds its request");
+            logout(session);
+            return;
+        }
+        synchronized (this) {
+            if (size < maxIdle) {
+                idle.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(new IdleSession(session));
+                size++;
+                idleSessions.inc();
+                return;
+            }
+        }
+        evictions.mark();
+        logout(session);
+    }
+
+    /**
+     * Log out every idle session.
+     */
+    public void clear() {
+        final List<IdleSession> sessions = new ArrayList<>();
+        synchronized (this) {
+            idle.values().forEach(sessions::addAll);
+            idle.clear();
+            idleSessions.dec(size);
+            size = 0;
+        }
+        sessions.forEach(s -> logout(s.session));
+    }
+
+    @VisibleForTesting
+    synchronized int size() {
+        return size;
+    }
+
+    /*
+     * Remove the sessions that have been idle too long, at most once a second.
+     * Must be invoked while synchronized on this instance.
+     */
+    private List<IdleSession> evictIdle() {
+        final long now = currentTimeMillis();
+        final List<IdleSession> expired = new ArrayList<>();
+        if (now - lastEviction < 1000) {
+            return expired;
+        }
+        lastEviction = now;
+        for (final Iterator<Deque<IdleSession>> it = idle.values().iterator(); it.hasNext();) {
+            final Deque<IdleSession> sessions = it.next();
+            // the least recently used sessions are at the end of each deque
+            while (!sessions.isEmpty() && now - sessions.peekLast().since > idleTimeout) {
+                expired.add(sessions.pollLast());
+            }
+            if (sessions.isEmpty()) {
+                it.remove();
+            }
+        }
+        size -= expired.size();
+        idleSessions.dec(expired.size());
+        evictions.mark(expired.size());
+        return expired;
+    }
+
+    /*
+     * Discard any pending changes and pick up the latest persisted state.
+     */
+    private static boolean refresh(final FedoraSession session) {
+        if (!(session instanceof FedoraSessionImpl)) {
+            return true;
+        }
+        final Session jcrSession = ((FedoraSessionImpl) session).getJcrSession();
+        try {
+            if (jcrSession.isLive()) {
+                jcrSession.refresh(false);
+                return true;
+            }
+        } catch (final RepositoryException e) {
+            LOGGER.debug("Could not refresh pooled session: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private static boolean holdsRequest(final FedoraSession session) {
+        if (!(session instanceof FedoraSessionImpl)) {
+            return false;
+        }
+        final Session jcrSession = ((FedoraSessionImpl) session).getJcrSession();
+        return Arrays.stream(jcrSession.getAttributeNames()).map(jcrSession::getAttribute)
+                .anyMatch(ServletRequest.class::isInstance);
+    }
+
+    private static void logout(final FedoraSession session) {
+        try {
+            session.expire();
+        } catch (final RepositoryRuntimeException e) {
+            LOGGER.debug("Could not expire pooled session: {}", e.getMessage());
+        }
+    }
+}
@@ -17,12 +17,22 @@
  */
 package org.fcrepo.http.commons.session;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toSet;
+import static org.fcrepo.kernel.api.FedoraSession.IDENTITY;
+import static org.fcrepo.http.commons.session.SessionPrincipalsProvider.POOLED_LOGIN;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 
@@ -33,6 +43,9 @@ import org.fcrepo.kernel.api.services.CredentialsService;
 import org.fcrepo.kernel.api.services.BatchService;
 
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.google.common.base.Suppliers;
 
 /**
  * Factory for generating sessions for HTTP requests, taking
@@ -69,6 +82,29 @@ public class SessionFactory {
     @Inject
     private CredentialsService credentialsService;
 
+    /**
+     * The number of idle read-only sessions retained for reuse; 0 disables pooling
+     */
+    @Value("${fcrepo.http.session.pool.size:0}")
+    private int readSessionPoolSize;
+
+    /**
+     * The time in milliseconds after which an idle pooled session is logged out
+     */
+    @Value("${fcrepo.http.session.pool.idle:300000}")
+    private long readSessionPoolIdle;
+
+    /**
+     * Reports the principals authentication will attach to a session; without it,
+     * only unauthenticated requests share pooled sessions
+     */
+    @Inject
+    private Optional<SessionPrincipalsProvider> sessionPrincipalsProvider = Optional.empty();
+
+    private ReadSessionPool readSessionPool;
+
+    private static final List<String> READ_METHODS = asList("GET", "HEAD", "OPTIONS");
+
     /**
      * Default constructor
      */
@@ -92,6 +128,19 @@ public class SessionFactory {
     @PostConstruct
     public void init() {
         requireNonNull(repo, "SessionFactory requires a Repository instance!");
+        if (readSessionPoolSize > 0) {
+            readSessionPool = new ReadSessionPool(readSessionPoolSize, readSessionPoolIdle);
+        }
+    }
+
+    /**
+     * Log out any pooled sessions
+     */
+    @PreDestroy
+    public void destroy() {
+        if (readSessionPool != null) {
+            readSessionPool.clear();
+        }
     }
 
     /**
@@ -138,8 +187,65 @@ public class SessionFactory {
      */
     protected HttpSession createSession(final HttpServletRequest servletRequest) {
 
+        if (readSessionPool != null && READ_METHODS.contains(servletRequest.getMethod())) {
+            final Object key = getIdentity(servletRequest);
+            if (key != null) {
+                LOGGER.debug("Returning a pooled read session in the default workspace");
+                final HttpSession session = new HttpSession(readSessionPool.borrow(key,
+                        () -> pooledLogin(servletRequest, () -> key)), s -> readSessionPool.release(key, s));
+                session.setIdentity(() -> key);
+                return session;
+            }
+        }
         LOGGER.debug("Returning an authenticated session in the default workspace");
-        return  new HttpSession(repo.login(credentialsService.getCredentials(servletRequest)));
+        final Supplier<Object> identity = Suppliers.memoize(() -> getIdentity(servletRequest))::get;
+        final HttpSession session = new HttpSession(login(servletRequest, identity));
+        session.setIdentity(identity);
+        return session;
+    }
+
+    private FedoraSession pooledLogin(final HttpServletRequest servletRequest, final Supplier<Object> identity) {
+        servletRequest.setAttribute(POOLED_LOGIN, true);
+        try {
+            return login(servletRequest, identity);
+        } finally {
+            servletRequest.removeAttribute(POOLED_LOGIN);
+        }
+    }
+
+    /*
+     * Log in, offering authentication the identity of the session as the IDENTITY request attribute, for it to
+     * attach to the session.
+     */
+    private FedoraSession login(final HttpServletRequest servletRequest, final Supplier<Object> identity) {
+        servletRequest.setAttribute(IDENTITY, identity);
+        try {
+            return repo.login(credentialsService.getCredentials(servletRequest));
+        } finally {
+            servletRequest.removeAttribute(IDENTITY);
+        }
+    }
+
+    /**
+     * Identify the principals on whose behalf a session is created, such that requests
+     * with the same identity may share a pooled session and cached representations
+     *
+     * @param servletRequest the servlet request
+     * @return the identity, or null if what the session may see cannot be determined
+     */
+    protected Object getIdentity(final HttpServletRequest servletRequest) {
+        final Principal userPrincipal = servletRequest.getUserPrincipal();
+        if (!sessionPrincipalsProvider.isPresent()) {
+            return userPrincipal == null ? singletonList(null) : null;
+        }
+        final Set<Principal> principals = sessionPrincipalsProvider.get().getSessionPrincipals(servletRequest);
+        if (principals == null) {
+            // an unrestricted session, which is distinguished only by the name recorded against its changes
+            return asList(true, userPrincipal == null ? null : userPrincipal.getName());
+        }
+        // compare by type and name, since principal implementations need not define equality
+        return asList(false, principals.stream().map(p -> p.getClass().getName() + ":" + p.getName())
+                .collect(toSet()));
     }
 
     /**
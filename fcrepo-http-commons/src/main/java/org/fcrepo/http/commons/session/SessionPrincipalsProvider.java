@@ -0,0 +1,48 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.session;
+
+import java.security.Principal;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Reports the principals that authentication will attach to a session created
+ * for a request, so that sessions may be shared between requests only when
+ * they would be authorized identically.
+ *
+ * @author agent
+ */
+public interface SessionPrincipalsProvider {
+
+    /**
+     * The request attribute set while a session that may be pooled is logged in.  Such a
+     * session serves later requests as well, so authentication must not keep this request
+     * in it.
+     */
+    String POOLED_LOGIN = SessionPrincipalsProvider.class.getName() + ".pooledLogin";
+
+    /**
+     * Get the principals a session created for the given request will carry.
+     *
+     * @param request the servlet request
+     * @return the effective principals, or null if the session will not be subject to authorization
+     */
+    Set<Principal> getSessionPrincipals(HttpServletRequest request);
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.api.rdf;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
+import static org.mockito.Mockito.mock;
+
+import javax.jcr.Session;
+import javax.ws.rs.core.UriBuilder;
+
+import org.apache.jena.rdf.model.Resource;
+import org.fcrepo.http.commons.session.HttpSession;
+import org.fcrepo.kernel.modeshape.FedoraSessionImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Microbenchmark of the URI translations of {@link HttpResourceConverter}, with the compiled path prefix and
+ * through the URI template alone. Build the tests with the benchmark profile (mvn -Pbenchmark test-compile),
+ * then run {@link #main} from the module's test classpath.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HttpResourceConverterBenchmark {
+
+    private static final String TEMPLATE = "http://localhost:8080/rest/{path: .*}";
+
+    private static final String PATH = "/collections/books/0a/1b/2c/3d/0a1b2c3d-4e5f-6a7b-8c9d-0e1f2a3b4c5d";
+
+    @Param({"compiled", "template"})
+    public String translation;
+
+    private HttpResourceConverter converter;
+
+    private Resource resource;
+
+    @Setup
+    public void setUp() {
+        final HttpSession session = new HttpSession(new FedoraSessionImpl(mock(Session.class)));
+        converter = new HttpResourceConverter(session, UriBuilder.fromUri(TEMPLATE));
+        if (translation.equals("template")) {
+            setField(converter, "pathPrefix", null);
+        }
+        resource = converter.toDomain(PATH);
+    }
+
+    @Benchmark
+    public Resource toDomain() {
+        return converter.toDomain(PATH);
+    }
+
+    @Benchmark
+    public String asString() {
+        return converter.asString(resource);
+    }
+
+    @Benchmark
+    public boolean inDomain() {
+        return converter.inDomain(resource);
+    }
+
+    /**
+     * @param args ignored
+     * @throws RunnerException if the benchmark fails
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HttpResourceConverterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -36,6 +36,9 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
 import javax.jcr.Property;
@@ -47,6 +50,7 @@ import javax.jcr.version.VersionHistory;
 import javax.jcr.version.VersionManager;
 import javax.ws.rs.core.UriBuilder;
 
+import static java.util.Arrays.asList;
 import static org.apache.jena.rdf.model.ResourceFactory.createResource;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_NON_RDF_SOURCE_DESCRIPTION;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FROZEN_NODE;
@@ -123,6 +127,31 @@ public class HttpResourceConverterTest {
         assertEquals(node, getJcrNode(converted));
     }
 
+    @Test
+    public void testCompiledTranslationMatchesTemplate() {
+        final HttpResourceConverter templated =
+                new HttpResourceConverter(testHttpSession, UriBuilder.fromUri(uriTemplate));
+        setField(templated, "pathPrefix", null);
+
+        final List<String> paths = new ArrayList<>(asList("", "/", path, "/" + path, path + "/fcr:metadata",
+                path + "#hash", path + "/fcr:versions/x", "a b", "a%20b", "caf\u00e9", "a?b", "[a]"));
+        for (char c = ' '; c < 127; c++) {
+            paths.add("a" + c + "b");
+        }
+        for (final String p : paths) {
+            final Resource expected = templated.toDomain(p);
+            assertEquals("Wrong URI for " + p, expected, converter.toDomain(p));
+            assertEquals("Wrong match for " + expected, templated.inDomain(expected), converter.inDomain(expected));
+            assertEquals("Wrong path for " + expected, templated.asString(expected), converter.asString(expected));
+        }
+        for (final String uri : asList("http://localhost:8080/some", "http://localhost:8080/some/",
+                "http://localhost:8080/other/" + path, "http://localhost:8080/some/" + path + "#hash")) {
+            final Resource r = createResource(uri);
+            assertEquals("Wrong match for " + uri, templated.inDomain(r), converter.inDomain(r));
+            assertEquals("Wrong path for " + uri, templated.asString(r), converter.asString(r));
+        }
+    }
+
     @Test
     public void testDoForwardWithDatastreamContent() throws Exception {
         when(node.isNodeType(FEDORA_NON_RDF_SOURCE_DESCRIPTION)).thenReturn(true);
@@ -17,10 +17,14 @@
  */
 package org.fcrepo.http.commons.domain;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+
 import org.junit.Test;
 
 /**
@@ -60,14 +64,69 @@ public class RangeTest {
     }
 
     @Test
-    public void testUnboundedLowerRangeParsing() {
+    public void testSuffixRangeParsing() {
         final Range range = Range.convert("bytes=-50");
 
-        assertEquals(0L, range.start());
-        assertEquals(50L, range.end());
-        assertEquals(51L, range.size());
+        assertTrue(range.isSuffix());
+        assertEquals(50L, range.size());
         assertTrue(range.hasRange());
 
+        final Range resolved = range.resolve(1000);
+        assertEquals(950L, resolved.start());
+        assertEquals(999L, resolved.end());
+        assertEquals(20L, range.resolve(20).size());
+    }
+
+    @Test
+    public void testMultipleRangeParsing() {
+        final List<Range> ranges = Range.convertAll("bytes=0-99, 200-,-50");
+
+        assertEquals(3, ranges.size());
+        assertEquals(0L, ranges.get(0).start());
+        assertEquals(99L, ranges.get(0).end());
+        assertEquals(200L, ranges.get(1).start());
+        assertEquals(-1L, ranges.get(1).end());
+        assertTrue(ranges.get(2).isSuffix());
+        assertEquals(50L, ranges.get(2).size());
+    }
+
+    @Test
+    public void testInvalidRangeParsing() {
+        assertTrue(Range.convertAll("bytes=5-2").isEmpty());
+        assertTrue(Range.convertAll("bytes=0-1,-").isEmpty());
+        assertTrue(Range.convertAll("bytes=99999999999999999999-").isEmpty());
+        assertTrue(Range.convertAll("items=0-1").isEmpty());
+    }
+
+    @Test
+    public void testTooManyRangesAreIgnored() {
+        final StringBuilder header = new StringBuilder("bytes=0-0");
+        for (int i = 1; i < Range.MAX_RANGES; i++) {
+            header.append(',').append(i * 2).append('-').append(i * 2);
+        }
+        assertEquals(Range.MAX_RANGES, Range.convertAll(header.toString()).size());
+        assertTrue(Range.convertAll(header.append(",1000-1000").toString()).isEmpty());
+    }
+
+    @Test
+    public void testResolve() {
+        final Range range = new Range(5, 500).resolve(100);
+        assertEquals(5L, range.start());
+        assertEquals(99L, range.end());
+        assertEquals("bytes 5-99/100", range.contentRange(100));
+        assertNull(new Range(100).resolve(100));
+        assertNull(Range.suffix(0).resolve(100));
+    }
+
+    @Test
+    public void testCoalesce() {
+        final List<Range> ranges = Range.coalesce(asList(new Range(50, 60), new Range(0, 9), new Range(10, 19),
+                new Range(55, 70), new Range(80, 90)));
+
+        assertEquals(3, ranges.size());
+        assertEquals("bytes 0-19/100", ranges.get(0).contentRange(100));
+        assertEquals("bytes 50-70/100", ranges.get(1).contentRange(100));
+        assertEquals("bytes 80-90/100", ranges.get(2).contentRange(100));
     }
 
     @Test
@@ -0,0 +1,50 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.exceptionhandlers;
+
+import static javax.ws.rs.core.HttpHeaders.RETRY_AFTER;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static org.junit.Assert.assertEquals;
+
+import javax.ws.rs.core.Response;
+
+import org.fcrepo.kernel.api.exception.LockTimeoutException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class LockTimeoutExceptionMapperTest {
+
+    private LockTimeoutExceptionMapper testObj;
+
+    @Before
+    public void setUp() {
+        testObj = new LockTimeoutExceptionMapper();
+    }
+
+    @Test
+    public void testToResponse() {
+        final LockTimeoutException input = new LockTimeoutException("Timed out waiting to write /a", 5);
+        final Response actual = testObj.toResponse(input);
+        assertEquals(SERVICE_UNAVAILABLE.getStatusCode(), actual.getStatus());
+        assertEquals("5", actual.getHeaderString(RETRY_AFTER));
+    }
+}
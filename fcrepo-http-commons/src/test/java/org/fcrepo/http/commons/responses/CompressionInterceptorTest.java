@@ -0,0 +1,177 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.ETAG;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+import static org.apache.commons.io.IOUtils.toByteArray;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_TYPE;
+import static org.fcrepo.http.commons.responses.CompressionInterceptor.negotiate;
+import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.fcrepo.http.commons.responses.CompressionInterceptor.Encoding;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * @author agent
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CompressionInterceptorTest {
+
+    private static final byte[] ENTITY = new String(new char[200]).replace("\0",
+            "<info:subject> <info:predicate> \"object\" .\n").getBytes(UTF_8);
+
+    @Mock
+    private HttpHeaders mockHeaders;
+
+    @Mock
+    private HttpServletResponse mockResponse;
+
+    @Mock
+    private WriterInterceptorContext mockContext;
+
+    private final CompressionInterceptor testObj = new CompressionInterceptor();
+
+    private final MultivaluedMap<String, Object> responseHeaders = new MultivaluedHashMap<>();
+
+    private final ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+    private OutputStream entityStream = response;
+
+    private byte[] entity = ENTITY;
+
+    @Before
+    public void setUp() throws IOException {
+        setField(testObj, "headers", mockHeaders);
+        setField(testObj, "servletResponse", mockResponse);
+        when(mockResponse.getHeaders(VARY)).thenReturn(emptyList());
+        when(mockContext.getHeaders()).thenReturn(responseHeaders);
+        when(mockContext.getMediaType()).thenReturn(TURTLE_TYPE);
+        when(mockContext.getOutputStream()).thenAnswer(invocation -> entityStream);
+        doAnswer(invocation -> {
+            entityStream = (OutputStream) invocation.getArguments()[0];
+            return null;
+        }).when(mockContext).setOutputStream(any(OutputStream.class));
+        doAnswer(invocation -> {
+            entityStream.write(entity);
+            return null;
+        }).when(mockContext).proceed();
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        when(mockHeaders.getHeaderString(ACCEPT_ENCODING)).thenReturn("gzip, deflate");
+        testObj.aroundWriteTo(mockContext);
+        assertEquals("gzip", responseHeaders.getFirst(CONTENT_ENCODING));
+        assertEquals(ACCEPT_ENCODING, responseHeaders.getFirst(VARY));
+        assertArrayEquals(ENTITY, toByteArray(new GZIPInputStream(new ByteArrayInputStream(response.toByteArray()))));
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        when(mockHeaders.getHeaderString(ACCEPT_ENCODING)).thenReturn("deflate");
+        testObj.aroundWriteTo(mockContext);
+        assertEquals("deflate", responseHeaders.getFirst(CONTENT_ENCODING));
+        assertArrayEquals(ENTITY, toByteArray(new InflaterInputStream(new ByteArrayInputStream(
+                response.toByteArray()))));
+    }
+
+    @Test
+    public void testSmallEntityIsNotCompressed() throws IOException {
+        when(mockHeaders.getHeaderString(ACCEPT_ENCODING)).thenReturn("gzip");
+        setField(testObj, "minimumSize", ENTITY.length);
+        testObj.aroundWriteTo(mockContext);
+        assertFalse(responseHeaders.containsKey(CONTENT_ENCODING));
+        assertArrayEquals(ENTITY, response.toByteArray());
+
+        entity = new byte[0];
+        entityStream = response;
+        response.reset();
+        testObj.aroundWriteTo(mockContext);
+        assertEquals(0, response.size());
+    }
+
+    @Test
+    public void testStrongETagIsNotCompressed() throws IOException {
+        when(mockHeaders.getHeaderString(ACCEPT_ENCODING)).thenReturn("gzip");
+        when(mockResponse.getHeader(ETAG)).thenReturn("\"abc\"");
+        testObj.aroundWriteTo(mockContext);
+        verify(mockContext, never()).setOutputStream(any(OutputStream.class));
+        assertArrayEquals(ENTITY, response.toByteArray());
+    }
+
+    @Test
+    public void testWeakETagIsCompressed() throws IOException {
+        when(mockHeaders.getHeaderString(ACCEPT_ENCODING)).thenReturn("gzip");
+        when(mockResponse.getHeader(ETAG)).thenReturn("W/\"abc\"");
+        testObj.aroundWriteTo(mockContext);
+        assertEquals("gzip", responseHeaders.getFirst(CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testCompressedTypeIsNotCompressed() throws IOException {
+        when(mockHeaders.getHeaderString(ACCEPT_ENCODING)).thenReturn("gzip");
+        when(mockContext.getMediaType()).thenReturn(MediaType.valueOf("image/jpeg"));
+        testObj.aroundWriteTo(mockContext);
+        verify(mockContext, never()).setOutputStream(any(OutputStream.class));
+        assertNull(responseHeaders.getFirst(VARY));
+    }
+
+    @Test
+    public void testNegotiate() {
+        assertNull(negotiate(null));
+        assertNull(negotiate("identity"));
+        assertNull(negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(negotiate("*;q=0"));
+        assertEquals(Encoding.GZIP, negotiate("*"));
+        assertEquals(Encoding.GZIP, negotiate("deflate, gzip"));
+        assertEquals(Encoding.DEFLATE, negotiate("gzip;q=0.4, deflate;q=0.5"));
+        assertEquals(Encoding.DEFLATE, negotiate("gzip;q=0, *"));
+    }
+}
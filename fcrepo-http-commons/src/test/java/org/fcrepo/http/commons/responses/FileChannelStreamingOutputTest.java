@@ -0,0 +1,81 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.io.FileUtils.write;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * <p>FileChannelStreamingOutputTest class.</p>
+ *
+ * @author agent
+ */
+public class FileChannelStreamingOutputTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = tmpDir.newFile();
+        write(file, "0123456789", UTF_8);
+    }
+
+    @Test
+    public void shouldWriteTheWholeFile() throws IOException {
+        assertEquals("0123456789", output(0, -1));
+    }
+
+    @Test
+    public void shouldWriteARange() throws IOException {
+        assertEquals("567", output(5, 3));
+    }
+
+    @Test
+    public void shouldWriteTheEndOfTheFile() throws IOException {
+        assertEquals("89", output(8, -1));
+    }
+
+    @Test
+    public void shouldStopAtTheEndOfTheFile() throws IOException {
+        assertEquals("89", output(8, 5));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailToOpenAMissingFile() throws IOException {
+        new FileChannelStreamingOutput(new File(tmpDir.getRoot(), "missing"), 0, -1);
+    }
+
+    private String output(final long position, final long count) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new FileChannelStreamingOutput(file, position, count).write(out);
+        return out.toString(UTF_8.name());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.jena.datatypes.xsd.XSDDatatype.XSDinteger;
+import static org.apache.jena.graph.NodeFactory.createBlankNode;
+import static org.apache.jena.graph.NodeFactory.createLiteral;
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.apache.jena.graph.Triple.create;
+import static org.apache.jena.riot.Lang.JSONLD;
+import static org.apache.jena.vocabulary.RDF.type;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * JsonLdStreamWriterTest class.
+ *
+ * @author agent
+ */
+public class JsonLdStreamWriterTest {
+
+    private static final String EX = "http://example.org/ns#";
+
+    private static final Node subject = createURI("info:fedora/a");
+
+    private static final Node child = createURI("info:fedora/a/b");
+
+    private static final Node blank = createBlankNode();
+
+    private static final List<Triple> triples = ImmutableList.of(
+            create(subject, type.asNode(), createURI(EX + "Container")),
+            create(subject, type.asNode(), createURI(EX + "Resource")),
+            create(subject, createURI(EX + "title"), createLiteral("A title")),
+            create(subject, createURI(EX + "title"), createLiteral("Un titre", "fr")),
+            create(subject, createURI(EX + "size"), createLiteral("42", XSDinteger)),
+            create(subject, createURI(EX + "contains"), child),
+            create(subject, createURI(EX + "related"), blank),
+            create(blank, createURI(EX + "label"), createLiteral("blank")),
+            create(child, createURI(EX + "title"), createLiteral("A child")),
+            create(subject, createURI(EX + "note"), createLiteral("out of order")));
+
+    @Test
+    public void testExpanded() throws IOException {
+        final String json = write();
+        assertTrue("Expanded JSON-LD should be an array!", json.startsWith("["));
+        assertTrue("Expanded JSON-LD should use full IRIs!", json.contains("\"" + EX + "title\""));
+        assertRoundTrips(json);
+    }
+
+    private static String write() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonLdStreamWriter(output).write(triples.stream());
+        return new String(output.toByteArray(), UTF_8);
+    }
+
+    private static void assertRoundTrips(final String json) {
+        final Graph expected = GraphFactory.createDefaultGraph();
+        triples.forEach(expected::add);
+        final Graph actual = GraphFactory.createDefaultGraph();
+        RDFDataMgr.read(actual, new ByteArrayInputStream(json.getBytes(UTF_8)), JSONLD);
+        assertTrue("Should read back the same graph from " + json, expected.isIsomorphicWith(actual));
+    }
+}
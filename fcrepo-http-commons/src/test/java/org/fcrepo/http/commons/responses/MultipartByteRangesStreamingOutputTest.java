@@ -0,0 +1,89 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.fcrepo.http.commons.domain.Range;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * <p>MultipartByteRangesStreamingOutputTest class.</p>
+ *
+ * @author agent
+ */
+public class MultipartByteRangesStreamingOutputTest {
+
+    private static final String CONTENT = "0123456789";
+
+    private static final List<Range> RANGES = asList(new Range(1, 2), new Range(7, 9));
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteRangesOfAFile() throws IOException {
+        final File file = tmpDir.newFile();
+        write(file, CONTENT, UTF_8);
+        assertParts(new MultipartByteRangesStreamingOutput(RANGES, 10, "text/plain", file));
+    }
+
+    @Test
+    public void shouldWriteRangesOfAStream() throws IOException {
+        assertParts(new MultipartByteRangesStreamingOutput(RANGES, 10, "text/plain",
+                new ByteArrayInputStream(CONTENT.getBytes(UTF_8))));
+    }
+
+    @Test(expected = EOFException.class)
+    public void shouldFailOnAShortStream() throws IOException {
+        new MultipartByteRangesStreamingOutput(RANGES, 10, "text/plain",
+                new ByteArrayInputStream("012".getBytes(UTF_8))).write(new ByteArrayOutputStream());
+    }
+
+    private static void assertParts(final MultipartByteRangesStreamingOutput output) throws IOException {
+        final String boundary = output.getMediaType().getParameters().get("boundary");
+        assertEquals("multipart", output.getMediaType().getType());
+        assertEquals("byteranges", output.getMediaType().getSubtype());
+        assertTrue(boundary != null && !boundary.isEmpty());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+        assertEquals("\r\n--" + boundary + "\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Range: bytes 1-2/10\r\n\r\n" +
+                "12" +
+                "\r\n--" + boundary + "\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Range: bytes 7-9/10\r\n\r\n" +
+                "789" +
+                "\r\n--" + boundary + "--\r\n", out.toString(UTF_8.name()));
+    }
+}
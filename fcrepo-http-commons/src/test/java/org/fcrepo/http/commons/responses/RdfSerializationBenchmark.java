@@ -0,0 +1,132 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static javax.ws.rs.core.MediaType.valueOf;
+import static org.apache.jena.graph.NodeFactory.createLiteral;
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.apache.jena.graph.Triple.create;
+import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.MediaType;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Microbenchmark of writing a large container with {@link RdfStreamStreamingOutput} and of reading it back the
+ * way a PUT or POST body is read, in RDF Thrift, Turtle and N-Triples. Build the tests with the benchmark profile
+ * (mvn -Pbenchmark test-compile), then run {@link #main} from the module's test classpath.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RdfSerializationBenchmark {
+
+    private static final String CONTAINER = "http://localhost:8080/rest/collections/books";
+
+    private static final Node CONTAINS = createURI("http://www.w3.org/ns/ldp#contains");
+
+    private static final Node TITLE = createURI("http://purl.org/dc/elements/1.1/title");
+
+    private static final Node CREATED = createURI("http://fedora.info/definitions/v4/repository#created");
+
+    @Param({"application/rdf+thrift", "text/turtle", "application/n-triples"})
+    public String format;
+
+    @Param({"10000"})
+    public int children;
+
+    private MediaType mediaType;
+
+    private List<Triple> triples;
+
+    private final Map<String, String> namespaces = new HashMap<>();
+
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        mediaType = valueOf(format);
+        namespaces.put("ldp", "http://www.w3.org/ns/ldp#");
+        namespaces.put("dc", "http://purl.org/dc/elements/1.1/");
+        namespaces.put("fedora", "http://fedora.info/definitions/v4/repository#");
+        final Node container = createURI(CONTAINER);
+        triples = range(0, children).boxed().flatMap(i -> {
+            final Node child = createURI(CONTAINER + "/" + i);
+            return Stream.of(create(container, CONTAINS, child),
+                    create(child, TITLE, createLiteral("Book number " + i)),
+                    create(child, CREATED, createLiteral("2017-06-01T12:00:00.000Z")));
+        }).collect(toList());
+        serialized = write().toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new RdfStreamStreamingOutput(new DefaultRdfStream(createURI(CONTAINER), triples.stream()), namespaces,
+                mediaType).write(output);
+        return output;
+    }
+
+    @Benchmark
+    public Model read() {
+        return createDefaultModel().read(new ByteArrayInputStream(serialized), CONTAINER,
+                contentTypeToLang(format).getName().toUpperCase());
+    }
+
+    /**
+     * @param args ignored
+     * @throws RunnerException if the benchmark fails
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RdfSerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
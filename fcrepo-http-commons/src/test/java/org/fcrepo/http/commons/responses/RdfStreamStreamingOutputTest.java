@@ -28,6 +28,9 @@ import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
 import static org.apache.jena.rdf.model.ResourceFactory.createProperty;
 import static org.apache.jena.rdf.model.ResourceFactory.createResource;
 import static org.apache.jena.rdf.model.ResourceFactory.createTypedLiteral;
+import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_THRIFT_TYPE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_TYPE;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -129,6 +132,54 @@ public class RdfStreamStreamingOutputTest {
         }
     }
 
+    @Test
+    public void testWriteExpandedJsonLd() throws IOException {
+        try (final RdfStream input = new DefaultRdfStream(triple.getSubject(), of(triple));
+                final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            new RdfStreamStreamingOutput(input, testNamespaces, valueOf(JSON_LD)).write(output);
+            final String s = output.toString("UTF-8");
+            assertTrue(s.startsWith("["));
+            assertTrue(s.contains("\"@id\":\"" + triple.getSubject().getURI() + "\""));
+        }
+    }
+
+    @Test
+    public void testWriteCompactedJsonLd() throws IOException {
+        final Map<String, String> namespaces = new HashMap<>();
+        namespaces.put("a", "info:a");
+        final MediaType compacted = valueOf(JSON_LD + ";profile=\"http://www.w3.org/ns/json-ld#compacted\"");
+        try (final RdfStream input = new DefaultRdfStream(triple.getSubject(), of(triple));
+                final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            new RdfStreamStreamingOutput(input, namespaces, compacted).write(output);
+            final String s = output.toString("UTF-8");
+            assertTrue(s, s.contains("\"@context\""));
+        }
+    }
+
+    @Test
+    public void testWriteN3() throws IOException {
+        try (final RdfStream input = new DefaultRdfStream(triple.getSubject(), of(triple));
+                final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            new RdfStreamStreamingOutput(input, testNamespaces, N3_TYPE).write(output);
+            try (final InputStream resultStream = new ByteArrayInputStream(output.toByteArray())) {
+                final Model result = createDefaultModel().read(resultStream, null, "N3");
+                assertTrue("Didn't find our test triple!", result.contains(result.asStatement(triple)));
+            }
+        }
+    }
+
+    @Test
+    public void testWriteThrift() throws IOException {
+        try (final RdfStream input = new DefaultRdfStream(triple.getSubject(), of(triple));
+                final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            new RdfStreamStreamingOutput(input, testNamespaces, RDF_THRIFT_TYPE).write(output);
+            try (final InputStream resultStream = new ByteArrayInputStream(output.toByteArray())) {
+                final Model result = createDefaultModel().read(resultStream, null, "RDF-THRIFT");
+                assertTrue("Didn't find our test triple!", result.contains(result.asStatement(triple)));
+            }
+        }
+    }
+
     @Test
     public void testWriteWithTypedObject() throws IOException {
         assertOutputContainsTriple(create(createURI("info:testSubject"),
@@ -0,0 +1,110 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.jena.datatypes.xsd.XSDDatatype.XSDinteger;
+import static org.apache.jena.graph.NodeFactory.createBlankNode;
+import static org.apache.jena.graph.NodeFactory.createLiteral;
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.apache.jena.graph.Triple.create;
+import static org.apache.jena.riot.Lang.RDFXML;
+import static org.apache.jena.vocabulary.RDF.type;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * RdfXmlStreamWriterTest class.
+ *
+ * @author agent
+ */
+public class RdfXmlStreamWriterTest {
+
+    private static final String EX = "http://example.org/ns#";
+
+    private static final Node subject = createURI("info:fedora/a");
+
+    private static final Node child = createURI("info:fedora/a/b?c=1&d=\"2\"");
+
+    private static final Node blank = createBlankNode();
+
+    private static final List<Triple> triples = ImmutableList.of(
+            create(subject, type.asNode(), createURI(EX + "Container")),
+            create(subject, createURI(EX + "title"), createLiteral("A <title> & more")),
+            create(subject, createURI(EX + "title"), createLiteral("Un titre", "fr")),
+            create(subject, createURI(EX + "size"), createLiteral("42", XSDinteger)),
+            create(subject, createURI(EX + "contains"), child),
+            create(subject, createURI("http://example.org/other/related"), blank),
+            create(blank, createURI(EX + "label"), createLiteral("line\nbreak")),
+            create(child, createURI(EX + "title"), createLiteral("A child")),
+            create(subject, createURI(EX + "note"), createLiteral("out of order")));
+
+    private final Map<String, String> namespaces = new HashMap<>();
+
+    @Test
+    public void testWrite() throws IOException {
+        namespaces.put("ex", EX);
+        final String xml = write(triples.stream());
+        assertTrue("Known prefixes should be declared up front!", xml.contains("xmlns:ex=\"" + EX + "\""));
+        assertTrue("Known prefixes should be used!", xml.contains("<ex:title>"));
+        assertRoundTrips(xml);
+    }
+
+    @Test
+    public void testWriteWithoutPrefixes() throws IOException {
+        namespaces.put("", EX);
+        namespaces.put("xmlfoo", EX);
+        assertRoundTrips(write(triples.stream()));
+    }
+
+    @Test(expected = RiotException.class)
+    public void testWriteUnsplittablePredicate() throws IOException {
+        write(Stream.of(create(subject, createURI("http://example.org/1"), child)));
+    }
+
+    private String write(final Stream<Triple> input) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new RdfXmlStreamWriter(output, namespaces).write(input);
+        return new String(output.toByteArray(), UTF_8);
+    }
+
+    private static void assertRoundTrips(final String xml) {
+        final Graph expected = GraphFactory.createDefaultGraph();
+        triples.forEach(expected::add);
+        final Graph actual = GraphFactory.createDefaultGraph();
+        RDFDataMgr.read(actual, new ByteArrayInputStream(xml.getBytes(UTF_8)), RDFXML);
+        assertTrue("Should read back the same graph from " + xml, expected.isIsomorphicWith(actual));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.fcrepo.http.commons.responses.RepresentationCache.Key;
+import org.fcrepo.http.commons.responses.RepresentationCache.Recording;
+import org.fcrepo.kernel.api.observer.FedoraEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * @author agent
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RepresentationCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private FedoraEvent mockEvent;
+
+    private final Key key = new Key("/a/b", "etag", "alice", "variant").withMediaType(TEXT_PLAIN_TYPE);
+
+    @Test
+    public void testRecordedRepresentationIsServed() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(1024);
+        assertNull(cache.get(key));
+        final ByteArrayOutputStream response = new ByteArrayOutputStream();
+        record(cache, key, "representation", response);
+        assertEquals("representation", response.toString("UTF-8"));
+
+        assertEquals("representation", read(cache.get(key)));
+        assertNull("Another ETag should not match",
+                cache.get(new Key("/a/b", "other", "alice", "variant").withMediaType(TEXT_PLAIN_TYPE)));
+    }
+
+    @Test
+    public void testRepresentationIsServedOnlyToSamePrincipals() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(1024);
+        record(cache, key, "representation", new ByteArrayOutputStream());
+        assertNull("Other principals should not match",
+                cache.get(new Key("/a/b", "etag", "bob", "variant").withMediaType(TEXT_PLAIN_TYPE)));
+    }
+
+    @Test
+    public void testRepresentationRenderedDuringInvalidationIsNotCached() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(1024);
+        final Key rendering = new Key("/a/b", "etag", "alice", "variant");
+        when(mockEvent.getPath()).thenReturn("/a/b/child");
+        cache.onEvent(mockEvent);
+        record(cache, rendering.withMediaType(TEXT_PLAIN_TYPE), "representation", new ByteArrayOutputStream());
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testRepresentationRenderedDuringUnrelatedInvalidationIsCached() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(1024);
+        final Key rendering = new Key("/a/b", "etag", "alice", "variant");
+        when(mockEvent.getPath()).thenReturn("/c/d");
+        cache.onEvent(mockEvent);
+        record(cache, rendering.withMediaType(TEXT_PLAIN_TYPE), "representation", new ByteArrayOutputStream());
+        assertEquals("representation", read(cache.get(key)));
+    }
+
+    @Test
+    public void testRepresentationRenderedBeforeInvalidateAllIsNotCached() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(1024);
+        final Key rendering = new Key("/a/b", "etag", "alice", "variant");
+        cache.invalidateAll();
+        record(cache, rendering.withMediaType(TEXT_PLAIN_TYPE), "representation", new ByteArrayOutputStream());
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testUnfinishedRepresentationIsNotCached() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(1024);
+        cache.record(key, new ByteArrayOutputStream()).write("partial".getBytes(UTF_8));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testLargeRepresentationIsNotCached() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(64);
+        record(cache, key, "a representation larger than an eighth of the cache", new ByteArrayOutputStream());
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testEventsOnChildrenInvalidate() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(1024);
+        record(cache, key, "representation", new ByteArrayOutputStream());
+        when(mockEvent.getPath()).thenReturn("/a/c");
+        cache.onEvent(mockEvent);
+        assertEquals("representation", read(cache.get(key)));
+
+        when(mockEvent.getPath()).thenReturn("/a/b/child");
+        cache.onEvent(mockEvent);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testEventsBelowPairtreesInvalidateContainer() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(1024);
+        final Key grandparent = new Key("/a", "etag", "alice", "variant").withMediaType(TEXT_PLAIN_TYPE);
+        record(cache, key, "representation", new ByteArrayOutputStream());
+        record(cache, grandparent, "representation", new ByteArrayOutputStream());
+
+        // /a/b/pt1 and /a/b/pt1/pt2 are pairtree nodes, which are never cached
+        when(mockEvent.getPath()).thenReturn("/a/b/pt1/pt2/child");
+        cache.onEvent(mockEvent);
+        assertNull(cache.get(key));
+        assertEquals("Only the nearest container should be invalidated", "representation",
+                read(cache.get(grandparent)));
+    }
+
+    @Test
+    public void testEvictedRepresentationIsServedFromDisk() throws IOException {
+        final RepresentationCache cache = new RepresentationCache(160, folder.getRoot().getPath(), 4096);
+        cache.init();
+        record(cache, key, "representation", new ByteArrayOutputStream());
+        for (int i = 0; i < 50; i++) {
+            record(cache, new Key("/other" + i, "etag", "alice", "variant").withMediaType(TEXT_PLAIN_TYPE), "filler",
+                    new ByteArrayOutputStream());
+        }
+        final ByteBuffer cached = cache.get(key);
+        assertEquals("representation", read(cached));
+
+        cache.invalidateAll();
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private static void record(final RepresentationCache cache, final Key key, final String representation,
+            final ByteArrayOutputStream out) throws IOException {
+        final Recording recording = cache.record(key, out);
+        recording.write(representation.getBytes(UTF_8));
+        recording.finish();
+    }
+
+    private static String read(final ByteBuffer representation) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RepresentationCache.writeTo(representation, out);
+        return out.toString("UTF-8");
+    }
+}
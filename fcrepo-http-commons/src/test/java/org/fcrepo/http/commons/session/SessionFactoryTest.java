@@ -17,16 +17,31 @@
  */
 package org.fcrepo.http.commons.session;
 
+import static org.fcrepo.http.commons.session.SessionPrincipalsProvider.POOLED_LOGIN;
 import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
+import static org.fcrepo.kernel.api.FedoraSession.IDENTITY;
+import static org.fcrepo.kernel.api.observer.OptionalValues.BASE_URL;
+import static org.fcrepo.kernel.api.observer.OptionalValues.USER_AGENT;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.security.Principal;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import javax.jcr.Credentials;
+import javax.jcr.Session;
 import javax.servlet.http.HttpServletRequest;
 
 import org.fcrepo.kernel.api.FedoraRepository;
@@ -34,6 +49,7 @@ import org.fcrepo.kernel.api.FedoraSession;
 import org.fcrepo.kernel.api.exception.SessionMissingException;
 import org.fcrepo.kernel.api.services.BatchService;
 import org.fcrepo.kernel.api.services.CredentialsService;
+import org.fcrepo.kernel.modeshape.FedoraSessionImpl;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -42,6 +58,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.modeshape.jcr.api.ServletCredentials;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
 
 /**
  * <p>SessionFactoryTest class.</p>
@@ -77,6 +94,18 @@ public class SessionFactoryTest {
     @Mock
     private Principal mockUser;
 
+    @Mock
+    private Principal mockGroup;
+
+    @Mock
+    private SessionPrincipalsProvider mockPrincipalsProvider;
+
+    @Mock
+    private FedoraSessionImpl mockSessionImpl;
+
+    @Mock
+    private Session mockJcrSession;
+
     @Before
     public void setUp() {
         testObj = new SessionFactory(mockRepo, mockTxService);
@@ -134,4 +163,146 @@ public class SessionFactoryTest {
         assertEquals("txId should be 123", "123", txId);
     }
 
+    private void enablePool() {
+        setField(testObj, "readSessionPoolSize", 2);
+        setField(testObj, "readSessionPoolIdle", 60000L);
+        testObj.init();
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession, txSession);
+    }
+
+    @Test
+    public void testPooledReadSessionIsReused() {
+        enablePool();
+        when(mockRequest.getMethod()).thenReturn("GET");
+        final HttpSession first = testObj.createSession(mockRequest);
+        first.expire();
+        final HttpSession second = testObj.createSession(mockRequest);
+        assertSame(first.getFedoraSession(), second.getFedoraSession());
+        verify(mockRepo).login(any(Credentials.class));
+        verify(mockSession, never()).expire();
+
+        testObj.destroy();
+        second.expire();
+        testObj.destroy();
+        verify(mockSession).expire();
+    }
+
+    @Test
+    public void testWriteSessionIsNotPooled() {
+        enablePool();
+        when(mockRequest.getMethod()).thenReturn("PUT");
+        testObj.createSession(mockRequest).expire();
+        testObj.createSession(mockRequest);
+        verify(mockRepo, times(2)).login(any(Credentials.class));
+        verify(mockSession).expire();
+    }
+
+    @Test
+    public void testAuthenticatedSessionIsNotPooledWithoutPrincipals() {
+        enablePool();
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRequest.getUserPrincipal()).thenReturn(mockUser);
+        when(mockUser.getName()).thenReturn("alice");
+        testObj.createSession(mockRequest).expire();
+        testObj.createSession(mockRequest);
+        verify(mockRepo, times(2)).login(any(Credentials.class));
+        verify(mockSession).expire();
+    }
+
+    @Test
+    public void testPooledSessionsAreKeyedByPrincipals() {
+        enablePool();
+        setField(testObj, "sessionPrincipalsProvider", Optional.of(mockPrincipalsProvider));
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRequest.getUserPrincipal()).thenReturn(mockUser);
+        when(mockUser.getName()).thenReturn("alice");
+        when(mockGroup.getName()).thenReturn("staff");
+        when(mockPrincipalsProvider.getSessionPrincipals(mockRequest)).thenReturn(ImmutableSet.of(mockUser));
+        final HttpSession first = testObj.createSession(mockRequest);
+        first.expire();
+        // the same user with another group must not share the session
+        when(mockPrincipalsProvider.getSessionPrincipals(mockRequest))
+                .thenReturn(ImmutableSet.of(mockUser, mockGroup));
+        final HttpSession second = testObj.createSession(mockRequest);
+        assertNotSame(first.getFedoraSession(), second.getFedoraSession());
+        second.expire();
+        final HttpSession third = testObj.createSession(mockRequest);
+        assertSame(second.getFedoraSession(), third.getFedoraSession());
+        verify(mockRepo, times(2)).login(any(Credentials.class));
+    }
+
+    @Test
+    public void testUnrestrictedSessionsAreKeyedByUser() {
+        enablePool();
+        setField(testObj, "sessionPrincipalsProvider", Optional.of(mockPrincipalsProvider));
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRequest.getUserPrincipal()).thenReturn(mockUser);
+        when(mockUser.getName()).thenReturn("alice");
+        when(mockPrincipalsProvider.getSessionPrincipals(mockRequest)).thenReturn(ImmutableSet.of(mockUser));
+        testObj.createSession(mockRequest).expire();
+        when(mockPrincipalsProvider.getSessionPrincipals(mockRequest)).thenReturn(null);
+        final HttpSession admin = testObj.createSession(mockRequest);
+        assertSame(txSession, admin.getFedoraSession());
+    }
+
+    @Test
+    public void testPooledSessionForgetsRequestData() {
+        enablePool();
+        when(mockRequest.getMethod()).thenReturn("GET");
+        testObj.createSession(mockRequest).expire();
+        verify(mockSession).removeSessionData(USER_AGENT);
+        verify(mockSession).removeSessionData(BASE_URL);
+    }
+
+    @Test
+    public void testPooledLoginIsMarked() {
+        enablePool();
+        when(mockRequest.getMethod()).thenReturn("GET");
+        testObj.createSession(mockRequest);
+        verify(mockRequest).setAttribute(POOLED_LOGIN, true);
+        verify(mockRequest).removeAttribute(POOLED_LOGIN);
+    }
+
+    @Test
+    public void testLoginIsOfferedIdentity() {
+        when(mockRequest.getMethod()).thenReturn("POST");
+        testObj.createSession(mockRequest);
+        verify(mockRequest).setAttribute(eq(IDENTITY), any(Supplier.class));
+        verify(mockRequest).removeAttribute(IDENTITY);
+    }
+
+    @Test
+    public void testSessionHoldingRequestIsNotPooled() {
+        enablePool();
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSessionImpl);
+        when(mockSessionImpl.getJcrSession()).thenReturn(mockJcrSession);
+        when(mockJcrSession.getAttributeNames()).thenReturn(new String[] { "request" });
+        when(mockJcrSession.getAttribute("request")).thenReturn(mockRequest);
+        when(mockRequest.getMethod()).thenReturn("GET");
+
+        testObj.createSession(mockRequest).expire();
+        verify(mockSessionImpl).expire();
+        testObj.createSession(mockRequest);
+        verify(mockRepo, times(2)).login(any(Credentials.class));
+    }
+
+    @Test
+    public void testSessionIdentity() {
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession);
+        final Object anonymous = testObj.createSession(mockRequest).getIdentity();
+        assertNotNull("Anonymous sessions are identical", anonymous);
+        assertEquals(anonymous, testObj.createSession(mockRequest).getIdentity());
+
+        when(mockRequest.getUserPrincipal()).thenReturn(mockUser);
+        assertNull("Without their principals, authenticated sessions cannot be compared",
+                testObj.createSession(mockRequest).getIdentity());
+
+        setField(testObj, "sessionPrincipalsProvider", Optional.of(mockPrincipalsProvider));
+        when(mockPrincipalsProvider.getSessionPrincipals(mockRequest)).thenReturn(ImmutableSet.of(mockUser));
+        when(mockUser.getName()).thenReturn("alice");
+        final HttpSession session = testObj.createSession(mockRequest);
+        assertEquals(session.getIdentity(), testObj.createSession(mockRequest).getIdentity());
+        assertNotEquals(anonymous, session.getIdentity());
+    }
 }
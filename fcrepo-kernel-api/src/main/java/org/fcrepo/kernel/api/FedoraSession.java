@@ -30,6 +30,13 @@ import java.util.Optional;
  */
 public interface FedoraSession {
 
+    /**
+     * The attribute of a repository session that supplies the identity of the principals on whose behalf it acts,
+     * such that sessions with equal identities are authorized identically. The identity, or the attribute itself,
+     * is null if it cannot be determined.
+     */
+    String IDENTITY = "fedora-identity";
+
     /**
      * Expire the session
      */
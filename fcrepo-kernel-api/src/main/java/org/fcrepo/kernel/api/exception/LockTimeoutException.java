@@ -0,0 +1,51 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fcrepo.kernel.api.exception;
+
+/**
+ * Indicates that the locks needed to operate on a resource could not be
+ * acquired within the time allowed, because of contention with other
+ * operations on the same resources.
+ *
+ * @author agent
+ */
+public class LockTimeoutException extends RepositoryRuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfter;
+
+    /**
+     * Ordinary constructor
+     *
+     * @param message the message
+     * @param retryAfter the number of seconds after which the operation may reasonably be retried
+     */
+    public LockTimeoutException(final String message, final long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the number of seconds after which the operation may reasonably be retried
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
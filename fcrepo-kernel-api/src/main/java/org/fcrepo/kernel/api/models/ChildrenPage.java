@@ -0,0 +1,58 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.api.models;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+
+/**
+ * One page of the children of a resource, together with the opaque cursor
+ * from which the following page may be read.
+ *
+ * @author agent
+ */
+public final class ChildrenPage {
+
+    private final List<FedoraResource> children;
+
+    private final String nextCursor;
+
+    /**
+     * @param children the children on this page
+     * @param nextCursor the cursor of the following page, or null if this is the last page
+     */
+    public ChildrenPage(final List<FedoraResource> children, final String nextCursor) {
+        this.children = unmodifiableList(children);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return the children on this page
+     */
+    public List<FedoraResource> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return the cursor of the following page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
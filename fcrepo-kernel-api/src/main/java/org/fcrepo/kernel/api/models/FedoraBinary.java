@@ -23,6 +23,7 @@ import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
 import org.fcrepo.kernel.api.RdfStream;
 import org.fcrepo.kernel.api.services.policy.StoragePolicyDecisionPoint;
 
+import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.Collection;
@@ -38,6 +39,16 @@ public interface FedoraBinary extends FedoraResource {
      */
     InputStream getContent();
 
+    /**
+     * Get the file in which the binary store keeps this content, for callers that can read it more
+     * efficiently than through {@link #getContent()}, e.g. by position.
+     *
+     * @return the local file holding the content, or null if the content is not stored in a file
+     */
+    default File getContentFile() {
+        return null;
+    }
+
     /**
      * Sets the content of this Datastream.
      *
@@ -82,6 +93,17 @@ public interface FedoraBinary extends FedoraResource {
      */
     RdfStream getFixity(IdentifierConverter<Resource, FedoraResource> idTranslator);
 
+    /**
+     * Get the fixity of this datastream compared to metadata stored in the repository. By default, fixity is
+     * always computed afresh.
+     * @param idTranslator the id translator
+     * @param force whether to re-read the content even if its fixity was recently computed
+     * @return the fixity of this datastream compared to metadata stored in the repository
+     */
+    default RdfStream getFixity(IdentifierConverter<Resource, FedoraResource> idTranslator, boolean force) {
+        return getFixity(idTranslator);
+    }
+
     /**
      * Get the fixity of this datastream in a given repository's binary store.
      * @param idTranslator the id translator
@@ -17,6 +17,9 @@
  */
 package org.fcrepo.kernel.api.models;
 
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+
 import java.net.URI;
 import java.time.Instant;
 
@@ -62,6 +65,35 @@ public interface FedoraResource {
      */
     Stream<FedoraResource> getChildren(Boolean recursive);
 
+    /**
+     * Get one page of the children of this resource, starting after the
+     * position recorded in the given cursor.
+     *
+     * Implementations should resume from the cursor rather than re-reading
+     * the children before it; this default merely skips over them.
+     *
+     * @param cursor a cursor returned with a previous page, or null for the first page
+     * @param limit the largest number of children to return
+     * @return the page of children
+     * @throws IllegalArgumentException if the cursor cannot be read
+     */
+    default ChildrenPage getChildren(final String cursor, final int limit) {
+        final long offset;
+        try {
+            offset = cursor == null ? 0 : Long.parseLong(cursor);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid children cursor: " + cursor, e);
+        }
+        if (limit <= 0 || offset < 0) {
+            return new ChildrenPage(emptyList(), null);
+        }
+        final List<FedoraResource> children = getChildren().skip(offset).limit(limit + 1L).collect(toList());
+        if (children.size() > limit) {
+            return new ChildrenPage(children.subList(0, limit), String.valueOf(offset + limit));
+        }
+        return new ChildrenPage(children, null);
+    }
+
     /**
      * Get the container of this resource
      * @return the container of this resource
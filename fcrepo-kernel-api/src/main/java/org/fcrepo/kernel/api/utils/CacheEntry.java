@@ -34,6 +34,17 @@ public interface CacheEntry {
      */
     Collection<FixityResult> checkFixity(final String algorithm);
 
+    /**
+     * Check the fixity of a {@link CacheEntry}, optionally re-reading content
+     * whose fixity was recently computed. By default, fixity is always checked afresh.
+     * @param algorithm the given algorithm
+     * @param force whether to re-read the content even if a recent result is available
+     * @return a {@link FixityResult} containing the relevant data
+     */
+    default Collection<FixityResult> checkFixity(final String algorithm, final boolean force) {
+        return checkFixity(algorithm);
+    }
+
     /**
      * Get a raw input stream from the underlying store
      * @return the content for this entry
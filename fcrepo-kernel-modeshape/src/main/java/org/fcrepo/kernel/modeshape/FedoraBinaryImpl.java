@@ -30,14 +30,18 @@ import org.fcrepo.kernel.api.models.FedoraBinary;
 import org.fcrepo.kernel.api.models.FedoraResource;
 import org.fcrepo.kernel.api.services.policy.StoragePolicyDecisionPoint;
 import org.fcrepo.kernel.api.RdfStream;
-import org.fcrepo.kernel.api.utils.CacheEntry;
 import org.fcrepo.kernel.api.utils.ContentDigest;
 import org.fcrepo.kernel.api.utils.FixityResult;
 import org.fcrepo.kernel.modeshape.rdf.impl.FixityRdfContext;
+import org.fcrepo.kernel.modeshape.utils.FixityInputStream;
 import org.fcrepo.kernel.modeshape.utils.impl.CacheEntryFactory;
 import org.fcrepo.metrics.RegistryService;
+import org.modeshape.jcr.JcrRepository;
+import org.modeshape.jcr.RepositoryConfiguration.BinaryStorage;
 import org.modeshape.jcr.api.Binary;
 import org.modeshape.jcr.api.ValueFactory;
+import org.modeshape.jcr.value.binary.FileSystemBinaryStore;
+import org.modeshape.jcr.value.binary.StoredBinaryValue;
 import org.slf4j.Logger;
 
 import javax.jcr.Node;
@@ -45,8 +49,11 @@ import javax.jcr.PathNotFoundException;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 import javax.jcr.Value;
+import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -73,6 +80,8 @@ public class FedoraBinaryImpl extends FedoraResourceImpl implements FedoraBinary
     private static final Logger LOGGER = getLogger(FedoraBinaryImpl.class);
 
 
+    private static final String FILE_BINARY_STORAGE = "file";
+
     static final RegistryService registryService = RegistryService.getInstance();
     static final Counter fixityCheckCounter
             = registryService.getMetrics().counter(name(FedoraBinary.class, "fixity-check-counter"));
@@ -125,6 +134,45 @@ public class FedoraBinaryImpl extends FedoraResourceImpl implements FedoraBinary
         }
     }
 
+    /*
+     * (non-Javadoc)
+     * @see org.fcrepo.kernel.api.models.FedoraBinary#getContentFile()
+     */
+    @Override
+    public File getContentFile() {
+        final javax.jcr.Binary binary = getBinaryContent();
+        // small values are kept inline and others may be in a database, the cloud, etc.
+        if (!(binary instanceof StoredBinaryValue)) {
+            return null;
+        }
+        try {
+            final BinaryStorage storage = ((JcrRepository) getSession().getRepository()).getConfiguration()
+                    .getBinaryStorage();
+            if (!FILE_BINARY_STORAGE.equalsIgnoreCase(storage.getType())) {
+                return null;
+            }
+            final File directory = ((FileSystemBinaryStore) storage.getBinaryStore()).getDirectory();
+            final File file = contentFile(directory, ((StoredBinaryValue) binary).getKey().toString());
+            return file.isFile() && file.length() == binary.getSize() ? file : null;
+        } catch (final Exception e) {
+            LOGGER.debug("Could not locate the file for {}: {}", getPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The location of a binary within a file system binary store, which nests it under the first three
+     * pairs of characters of its key.
+     *
+     * @param directory of the binary store
+     * @param key of the binary
+     * @return the file for the binary
+     */
+    static File contentFile(final File directory, final String key) {
+        return new File(new File(new File(new File(directory, key.substring(0, 2)), key.substring(2, 4)),
+                key.substring(4, 6)), key);
+    }
+
     /**
      * Retrieve the JCR Binary object
      * @return a JCR-wrapped Binary object
@@ -173,9 +221,15 @@ public class FedoraBinaryImpl extends FedoraResourceImpl implements FedoraBinary
             if (storagePolicyDecisionPoint != null) {
                 hint = storagePolicyDecisionPoint.evaluatePolicies(this);
             }
+            // Digests other than ModeShape's own SHA-1 are computed as the content is stored
+            final Collection<URI> nonNullChecksums = (null == checksums) ? new HashSet<>() : checksums;
+            final Map<URI, MessageDigest> digests = requestedDigests(nonNullChecksums);
+            final InputStream stream = digests.isEmpty() ? content
+                    : new FixityInputStream(content, new HashSet<>(digests.values()));
+
             final ValueFactory modevf =
                     (ValueFactory) node.getSession().getValueFactory();
-            final Binary binary = modevf.createBinary(content, hint);
+            final Binary binary = modevf.createBinary(stream, hint);
 
         /*
          * This next line of code deserves explanation. If we chose for the
@@ -193,8 +247,7 @@ public class FedoraBinaryImpl extends FedoraResourceImpl implements FedoraBinary
             final Property dataProperty = contentNode.setProperty(JCR_DATA, binary);
 
             // Ensure provided checksums are valid
-            final Collection<URI> nonNullChecksums = (null == checksums) ? new HashSet<>() : checksums;
-            verifyChecksums(nonNullChecksums, dataProperty);
+            verifyChecksums(nonNullChecksums, digests, dataProperty);
 
             decorateContentNode(contentNode, nonNullChecksums);
             touch();
@@ -207,50 +260,66 @@ public class FedoraBinaryImpl extends FedoraResourceImpl implements FedoraBinary
         }
     }
 
+    /**
+     * Create one digest for each distinct algorithm among the arg checksums, other than SHA-1, which ModeShape
+     * computes itself. Checksums sharing an algorithm share a digest.
+     *
+     * @param checksums that the user provided
+     * @return the digest to verify each checksum against
+     */
+    private static Map<URI, MessageDigest> requestedDigests(final Collection<URI> checksums) {
+        final Map<String, MessageDigest> byAlgorithm = new HashMap<>();
+        final Map<URI, MessageDigest> digests = new HashMap<>();
+        for (final URI checksum : checksums) {
+            final String algorithm = ContentDigest.getAlgorithm(checksum);
+            if (!algorithm.equals(SHA1.algorithm)) {
+                try {
+                    if (!byAlgorithm.containsKey(algorithm)) {
+                        byAlgorithm.put(algorithm, MessageDigest.getInstance(algorithm));
+                    }
+                } catch (final NoSuchAlgorithmException e) {
+                    throw new RepositoryRuntimeException(e);
+                }
+                digests.put(checksum, byAlgorithm.get(algorithm));
+            }
+        }
+        return digests;
+    }
+
     /**
      * This method ensures that the arg checksums are valid against the binary associated with the arg dataProperty.
      * If one or more of the checksums are invalid, an InvalidChecksumException is thrown.
      *
      * @param checksums that the user provided
+     * @param digests computed while storing the binary, for the checksums not using SHA-1
      * @param dataProperty containing the binary against which the checksums will be verified
      * @throws InvalidChecksumException
      * @throws RepositoryException
      */
-    private void verifyChecksums(final Collection<URI> checksums, final Property dataProperty)
-            throws InvalidChecksumException, RepositoryException {
+    private static void verifyChecksums(final Collection<URI> checksums, final Map<URI, MessageDigest> digests,
+            final Property dataProperty) throws InvalidChecksumException, RepositoryException {
 
         final Map<URI, URI> checksumErrors = new HashMap<>();
+        final Map<MessageDigest, URI> computed = new HashMap<>();
 
         // Loop through provided checksums validating against computed values
-        checksums.forEach(checksum -> {
+        for (final URI checksum : checksums) {
             final String algorithm = ContentDigest.getAlgorithm(checksum);
-            try {
-                // The case internally supported by ModeShape
-                if (algorithm.equals(SHA1.algorithm)) {
-                    final String dsSHA1 = ((Binary) dataProperty.getBinary()).getHexHash();
-                    final URI dsSHA1Uri = ContentDigest.asURI(SHA1.algorithm, dsSHA1);
-
-                    if (!dsSHA1Uri.equals(checksum)) {
-                        LOGGER.debug("Failed checksum test");
-                        checksumErrors.put(checksum, dsSHA1Uri);
-                    }
-
-                // The case that requires re-computing the checksum
-                } else {
-                    final CacheEntry cacheEntry = CacheEntryFactory.forProperty(dataProperty);
-                    cacheEntry.checkFixity(algorithm).stream().findFirst().ifPresent(
-                            fixityResult -> {
-                                if (!fixityResult.matches(checksum)) {
-                                    LOGGER.debug("Failed checksum test");
-                                    checksumErrors.put(checksum, fixityResult.getComputedChecksum());
-                                }
-                            }
-                    );
-                }
-            } catch (RepositoryException e) {
-                throw new RepositoryRuntimeException(e);
+            final URI computedUri;
+            // The case internally supported by ModeShape
+            if (algorithm.equals(SHA1.algorithm)) {
+                computedUri = ContentDigest.asURI(SHA1.algorithm, ((Binary) dataProperty.getBinary()).getHexHash());
+
+            // The case computed as the binary was stored
+            } else {
+                computedUri = computed.computeIfAbsent(digests.get(checksum),
+                        digest -> ContentDigest.asURI(algorithm, digest.digest()));
+            }
+            if (!computedUri.equals(checksum)) {
+                LOGGER.debug("Failed checksum test");
+                checksumErrors.put(checksum, computedUri);
             }
-        });
+        }
 
         // Throw an exception if any checksum errors occurred
         if (!checksumErrors.isEmpty()) {
@@ -352,13 +421,26 @@ public class FedoraBinaryImpl extends FedoraResourceImpl implements FedoraBinary
 
     @Override
     public RdfStream getFixity(final IdentifierConverter<Resource, FedoraResource> idTranslator) {
-        return getFixity(idTranslator, getContentDigest(), getContentSize());
+        return getFixity(idTranslator, false);
+    }
+
+    @Override
+    public RdfStream getFixity(final IdentifierConverter<Resource, FedoraResource> idTranslator,
+                               final boolean force) {
+        return getFixity(idTranslator, getContentDigest(), getContentSize(), force);
     }
 
     @Override
     public RdfStream getFixity(final IdentifierConverter<Resource, FedoraResource> idTranslator,
                                final URI digestUri,
                                final long size) {
+        return getFixity(idTranslator, digestUri, size, false);
+    }
+
+    private RdfStream getFixity(final IdentifierConverter<Resource, FedoraResource> idTranslator,
+                                final URI digestUri,
+                                final long size,
+                                final boolean force) {
 
         fixityCheckCounter.inc();
 
@@ -371,7 +453,7 @@ public class FedoraBinaryImpl extends FedoraResourceImpl implements FedoraBinary
             final long contentSize = size < 0 ? getBinaryContent().getSize() : size;
 
             final Collection<FixityResult> fixityResults
-                    = CacheEntryFactory.forProperty(getProperty(JCR_DATA)).checkFixity(algorithm);
+                    = CacheEntryFactory.forProperty(getProperty(JCR_DATA)).checkFixity(algorithm, force);
 
             return new FixityRdfContext(this, idTranslator, fixityResults, digestUri, contentSize);
         } catch (final RepositoryException e) {
@@ -42,6 +42,21 @@ public final class FedoraJcrConstants {
 
     public static final String FROZEN_PRIMARY_TYPE = "jcr:frozenPrimaryType";
 
+    /**
+     * When the background fixity service last checked a binary
+     */
+    public static final String FEDORA_FIXITY_LAST_CHECKED = "fedora:fixityLastChecked";
+
+    /**
+     * The fixity states found by the background fixity service's last check of a binary
+     */
+    public static final String FEDORA_FIXITY_RESULT = "fedora:fixityResult";
+
+    /**
+     * Session data key marking a save as fixity bookkeeping, which is not reported as a modification
+     */
+    public static final String FIXITY_AUDIT = "fixityAudit";
+
     public static final String ROOT = "mode:root";
 
     public static final String VERSIONABLE = "mix:versionable";
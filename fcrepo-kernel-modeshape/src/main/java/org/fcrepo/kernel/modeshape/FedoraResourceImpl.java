@@ -17,9 +17,14 @@
  */
 package org.fcrepo.kernel.modeshape;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.time.Instant.ofEpochMilli;
 import static java.util.Arrays.asList;
+import static java.util.Base64.getUrlDecoder;
+import static java.util.Base64.getUrlEncoder;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
+import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.concat;
@@ -43,6 +48,7 @@ import static org.fcrepo.kernel.api.RequiredRdfContext.PROPERTIES;
 import static org.fcrepo.kernel.api.RequiredRdfContext.SERVER_MANAGED;
 import static org.fcrepo.kernel.api.RequiredRdfContext.VERSIONS;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FROZEN_MIXIN_TYPES;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FROZEN_NODE;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.JCR_CREATED;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.JCR_LASTMODIFIED;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.ROOT;
@@ -59,7 +65,9 @@ import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.isInternalNode;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.ldpInsertedContentProperty;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.resourceToProperty;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.touchLdpMembershipResource;
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.getNamespaceGeneration;
 import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.getNamespaceRegistry;
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.getNamespaceURI;
 import static org.fcrepo.kernel.modeshape.utils.StreamUtils.iteratorToStream;
 import static org.fcrepo.kernel.modeshape.utils.UncheckedFunction.uncheck;
 import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
@@ -67,24 +75,30 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.jcr.ItemNotFoundException;
 import javax.jcr.NamespaceRegistry;
 import javax.jcr.Node;
+import javax.jcr.NodeIterator;
 import javax.jcr.PathNotFoundException;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
@@ -106,6 +120,7 @@ import org.fcrepo.kernel.api.exception.MalformedRdfException;
 import org.fcrepo.kernel.api.exception.PathNotFoundRuntimeException;
 import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.api.models.ChildrenPage;
 import org.fcrepo.kernel.api.models.FedoraResource;
 import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
 import org.fcrepo.kernel.api.utils.GraphDifferencer;
@@ -113,6 +128,7 @@ import org.fcrepo.kernel.modeshape.rdf.converters.PropertyConverter;
 import org.fcrepo.kernel.modeshape.rdf.impl.AclRdfContext;
 import org.fcrepo.kernel.modeshape.rdf.impl.ChildrenRdfContext;
 import org.fcrepo.kernel.modeshape.rdf.impl.ContentRdfContext;
+import org.fcrepo.kernel.modeshape.rdf.impl.EmbeddedResourcesRdfContext;
 import org.fcrepo.kernel.modeshape.rdf.impl.HashRdfContext;
 import org.fcrepo.kernel.modeshape.rdf.impl.LdpContainerRdfContext;
 import org.fcrepo.kernel.modeshape.rdf.impl.LdpIsMemberOfRdfContext;
@@ -143,6 +159,8 @@ import org.modeshape.jcr.api.JcrTools;
 import org.slf4j.Logger;
 
 import com.google.common.base.Converter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
@@ -183,8 +201,9 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
         return min.reduce(empty(), Stream::concat);
     });
 
-    private static RdfGenerator getEmbeddedResourceTriples = resource -> translator -> uncheck(minimal ->
-            resource.getChildren().flatMap(child -> child.getTriples(translator, PROPERTIES)));
+    private static RdfGenerator getEmbeddedResourceTriples = resource -> translator -> uncheck(_minimal -> {
+        return new EmbeddedResourcesRdfContext(resource, translator);
+    });
 
     private static RdfGenerator getInboundTriples = resource -> translator -> uncheck(_minimal -> {
         return new ReferencesRdfContext(resource, translator);
@@ -233,6 +252,27 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
 
     protected Node node;
 
+    /*
+     * Metadata read from the node at most once in the life of this object, which is normally a single request. They
+     * are forgotten when this object changes its node, and not used while the session holds unsaved changes.
+     */
+    private final Memo<Instant> createdDate = new Memo<>(this::readCreatedDate);
+
+    private final Memo<Instant> lastModifiedDate = new Memo<>(this::readLastModifiedDate);
+
+    private final Memo<String> etagValue = new Memo<>(this::readEtagValue);
+
+    private final Memo<List<URI>> types = new Memo<>(this::readTypes);
+
+    private final Map<String, Boolean> hasTypes = new HashMap<>();
+
+    /*
+     * The RDF types of nodes, keyed by the namespace generation and their set of node types, which are few and
+     * shared by many nodes.
+     */
+    private static final Cache<List<Object>, List<URI>> typeSummaries = CacheBuilder.newBuilder()
+            .maximumSize(1000).build();
+
     /*
      * A terminating slash means ModeShape has trouble extracting the localName, e.g., for http://myurl.org/.
      * 
@@ -340,6 +380,168 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
                         of(nodeToObjectBinaryConverter.convert(child))));
     }
 
+    /* (non-Javadoc)
+     * @see org.fcrepo.kernel.api.models.FedoraResource#getChildren(String, int)
+     */
+    @Override
+    public ChildrenPage getChildren(final String cursor, final int limit) {
+        if (limit <= 0) {
+            return new ChildrenPage(emptyList(), null);
+        }
+        try {
+            final Deque<ChildPosition> positions = resumeChildren(node, cursor);
+            final List<FedoraResource> children = new ArrayList<>(limit);
+            while (children.size() < limit && !positions.isEmpty()) {
+                final ChildPosition top = positions.peek();
+                if (!top.children.hasNext()) {
+                    positions.pop();
+                    continue;
+                }
+                final Node child = top.next();
+                if (nastyChildren.test(child)) {
+                    continue;
+                }
+                if (child.isNodeType(FEDORA_PAIRTREE)) {
+                    positions.push(new ChildPosition(child));
+                } else {
+                    children.add(nodeToObjectBinaryConverter.convert(child));
+                }
+            }
+            final boolean more = positions.stream().anyMatch(p -> p.children.hasNext());
+            return new ChildrenPage(children, more ? toCursor(positions) : null);
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
+    /**
+     * Position a stack of child iterators just after the child recorded in a cursor. Each level of the cursor
+     * is the index and name of the last child read from one iterator, the deeper levels belonging to pairtree
+     * nodes. The iterators skip straight to the recorded index, and only fall back to searching by name if
+     * children were added or removed since the cursor was issued.
+     */
+    private static Deque<ChildPosition> resumeChildren(final Node parent, final String cursor)
+            throws RepositoryException {
+        final Deque<ChildPosition> positions = new ArrayDeque<>();
+        positions.push(new ChildPosition(parent));
+        if (cursor == null) {
+            return positions;
+        }
+        final String[] levels = fromCursor(cursor);
+        for (int i = 0; i < levels.length; i++) {
+            final int separator = levels[i].indexOf(':');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Invalid children cursor: " + cursor);
+            }
+            final long index;
+            try {
+                index = Long.parseLong(levels[i].substring(0, separator));
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid children cursor: " + cursor, e);
+            }
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid children cursor: " + cursor);
+            }
+            final String name = levels[i].substring(separator + 1);
+            final ChildPosition level = positions.peek();
+            final Node last = level.seek(index, name);
+            if (last == null || i == levels.length - 1) {
+                break;
+            }
+            if (!last.isNodeType(FEDORA_PAIRTREE)) {
+                throw new IllegalArgumentException("Invalid children cursor: " + cursor);
+            }
+            positions.push(new ChildPosition(last));
+        }
+        return positions;
+    }
+
+    private static String toCursor(final Deque<ChildPosition> positions) {
+        final StringBuilder cursor = new StringBuilder();
+        positions.descendingIterator().forEachRemaining(p -> {
+            if (cursor.length() > 0) {
+                cursor.append('/');
+            }
+            cursor.append(p.index).append(':').append(p.name);
+        });
+        return getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(UTF_8));
+    }
+
+    private static String[] fromCursor(final String cursor) {
+        try {
+            return new String(getUrlDecoder().decode(cursor), UTF_8).split("/");
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid children cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * An iterator over the child nodes of one node, remembering the last child read from it.
+     */
+    private static class ChildPosition {
+
+        private final Node parent;
+
+        private NodeIterator children;
+
+        private long index = -1;
+
+        private String name;
+
+        private ChildPosition(final Node parent) throws RepositoryException {
+            this.parent = parent;
+            this.children = parent.getNodes();
+        }
+
+        private Node next() throws RepositoryException {
+            final Node child = children.nextNode();
+            index++;
+            name = child.getName();
+            return child;
+        }
+
+        /**
+         * Advance to the child at the given index, expecting it to have the given name. If it does not, the
+         * children have changed since: look the name up from the start instead, or if it has gone, carry on
+         * from the same index.
+         *
+         * @return the child read, or null if the expected child was not found
+         */
+        private Node seek(final long target, final String expected) throws RepositoryException {
+            if (skip(target) && children.hasNext()) {
+                final Node child = next();
+                if (child.getName().equals(expected)) {
+                    return child;
+                }
+            }
+            restart();
+            while (children.hasNext()) {
+                final Node child = next();
+                if (child.getName().equals(expected)) {
+                    return child;
+                }
+            }
+            restart();
+            skip(target);
+            return null;
+        }
+
+        private boolean skip(final long count) {
+            try {
+                children.skip(count);
+                index += count;
+                return true;
+            } catch (final NoSuchElementException e) {
+                return false;
+            }
+        }
+
+        private void restart() throws RepositoryException {
+            children = parent.getNodes();
+            index = -1;
+        }
+    }
+
     /**
      * Get all children recursively, and flatten into a single Stream.
      */
@@ -412,6 +614,7 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
             final Optional<Node> containingNode = getContainingNode(getNode());
 
             node.remove();
+            invalidate();
 
             if (parent != null) {
                 createTombstone(parent, name);
@@ -495,6 +698,10 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
      */
     @Override
     public Instant getCreatedDate() {
+        return createdDate.get();
+    }
+
+    private Instant readCreatedDate() {
         try {
             if (hasProperty(JCR_CREATED)) {
                 return ofEpochMilli(getTimestamp(JCR_CREATED, NO_TIME));
@@ -528,7 +735,10 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
      */
     @Override
     public Instant getLastModifiedDate() {
+        return lastModifiedDate.get();
+    }
 
+    private Instant readLastModifiedDate() {
         final Instant createdDate = getCreatedDate();
         try {
             final long created = createdDate == null ? NO_TIME : createdDate.toEpochMilli();
@@ -567,10 +777,18 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
      */
     public void touch() {
         FedoraTypesUtils.touch(getNode());
+        invalidate();
     }
 
     @Override
     public boolean hasType(final String type) {
+        if (!isMemoizable()) {
+            return readHasType(type);
+        }
+        return hasTypes.computeIfAbsent(type, this::readHasType);
+    }
+
+    private boolean readHasType(final String type) {
         try {
             if (type.equals(FEDORA_REPOSITORY_ROOT)) {
                 return node.isNodeType(ROOT);
@@ -588,33 +806,24 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
 
     @Override
     public List<URI> getTypes() {
-        try {
-            final List<NodeType> nodeTypes = new ArrayList<>();
-            final NodeType primaryNodeType = node.getPrimaryNodeType();
-            nodeTypes.add(primaryNodeType);
-            nodeTypes.addAll(asList(primaryNodeType.getSupertypes()));
-            final List<NodeType> mixinTypes = asList(node.getMixinNodeTypes());
-
-            nodeTypes.addAll(mixinTypes);
-            mixinTypes.stream()
-                .map(NodeType::getSupertypes)
-                .flatMap(Arrays::stream)
-                .forEach(nodeTypes::add);
-
-            final List<URI> types = nodeTypes.stream()
-                .map(uncheck(NodeType::getName))
-                .filter(hasInternalNamespace.negate())
-                .distinct()
-                .map(nodeTypeNameToURI)
-                .peek(x -> LOGGER.debug("node has rdf:type {}", x))
-                .collect(Collectors.toList());
+        return new ArrayList<>(types.get());
+    }
 
-            if (isFrozenResource()) {
-                types.add(URI.create(REPOSITORY_NAMESPACE + "Version"));
+    private List<URI> readTypes() {
+        final boolean frozen = isFrozenResource();
+        try {
+            final List<Object> typeSet = new ArrayList<>();
+            typeSet.add(getNamespaceGeneration());
+            typeSet.add(frozen ? FROZEN_NODE : "");
+            typeSet.add(node.getPrimaryNodeType().getName());
+            Arrays.stream(node.getMixinNodeTypes()).map(NodeType::getName).sorted().forEach(typeSet::add);
+            final List<URI> summary = typeSummaries.getIfPresent(typeSet);
+            if (summary != null) {
+                return summary;
             }
-
-            return types;
-
+            final List<URI> computed = unmodifiableList(summarizeTypes(frozen));
+            typeSummaries.put(typeSet, computed);
+            return computed;
         } catch (final PathNotFoundException e) {
             throw new PathNotFoundRuntimeException(e);
         } catch (final RepositoryException e) {
@@ -622,10 +831,45 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
         }
     }
 
+    /**
+     * Find the RDF types of the node, by walking its primary type and mixins and their supertypes.
+     *
+     * @param frozen whether the node is a frozen version of a resource
+     * @return the types
+     * @throws RepositoryException if repository exception occurred
+     */
+    private List<URI> summarizeTypes(final boolean frozen) throws RepositoryException {
+        final List<NodeType> nodeTypes = new ArrayList<>();
+        final NodeType primaryNodeType = node.getPrimaryNodeType();
+        nodeTypes.add(primaryNodeType);
+        nodeTypes.addAll(asList(primaryNodeType.getSupertypes()));
+        final List<NodeType> mixinTypes = asList(node.getMixinNodeTypes());
+
+        nodeTypes.addAll(mixinTypes);
+        mixinTypes.stream()
+            .map(NodeType::getSupertypes)
+            .flatMap(Arrays::stream)
+            .forEach(nodeTypes::add);
+
+        final List<URI> types = nodeTypes.stream()
+            .map(uncheck(NodeType::getName))
+            .filter(hasInternalNamespace.negate())
+            .distinct()
+            .map(nodeTypeNameToURI)
+            .peek(x -> LOGGER.debug("node has rdf:type {}", x))
+            .collect(Collectors.toList());
+
+        if (frozen) {
+            types.add(URI.create(REPOSITORY_NAMESPACE + "Version"));
+        }
+
+        return types;
+    }
+
     private final Function<String, URI> nodeTypeNameToURI = uncheck(name -> {
         final String prefix = name.split(":")[0];
         final String typeName = name.split(":")[1];
-        final String namespace = getSession().getWorkspace().getNamespaceRegistry().getURI(prefix);
+        final String namespace = getNamespaceURI(getSession(), prefix);
         return URI.create(getRDFNamespaceForJcrNamespace(namespace) + typeName);
     });
 
@@ -810,7 +1054,7 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
                         final boolean hasUserTypes = Arrays.stream(n.getMixinNodeTypes())
                             .map(uncheck(NodeType::getName)).filter(hasInternalNamespace.negate())
                             .map(uncheck(type ->
-                                getSession().getWorkspace().getNamespaceRegistry().getURI(type.split(":")[0])))
+                                getNamespaceURI(getSession(), type.split(":")[0])))
                             .anyMatch(isManagedNamespace.negate());
 
                         if (!hasUserProps && !hasUserTypes && !n.getWeakReferences().hasNext() &&
@@ -833,6 +1077,10 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
      */
     @Override
     public String getEtagValue() {
+        return etagValue.get();
+    }
+
+    private String readEtagValue() {
         final Instant lastModifiedDate = getLastModifiedDate();
 
         if (lastModifiedDate != null) {
@@ -845,6 +1093,7 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
     public void enableVersioning() {
         try {
             node.addMixin("mix:versionable");
+            invalidate();
         } catch (final RepositoryException e) {
             throw new RepositoryRuntimeException(e);
         }
@@ -854,6 +1103,7 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
     public void disableVersioning() {
         try {
             node.removeMixin("mix:versionable");
+            invalidate();
         } catch (final RepositoryException e) {
             throw new RepositoryRuntimeException(e);
         }
@@ -1113,6 +1363,66 @@ public class FedoraResourceImpl extends JcrTools implements FedoraTypes, FedoraR
         return getNode().hashCode();
     }
 
+    /**
+     * Forget the metadata read from the node, after this object changes it.
+     */
+    protected void invalidate() {
+        createdDate.clear();
+        lastModifiedDate.clear();
+        etagValue.clear();
+        types.clear();
+        hasTypes.clear();
+    }
+
+    /**
+     * Metadata may be memoized only while the session holds no unsaved changes, which may have been made to the
+     * node through some other object.
+     *
+     * @return whether memoized metadata may be used
+     */
+    private boolean isMemoizable() {
+        final Session session = getSession();
+        try {
+            if (session != null && !session.hasPendingChanges()) {
+                return true;
+            }
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+        invalidate();
+        return false;
+    }
+
+    /**
+     * A value read from the node, remembered until the metadata of this resource are invalidated.
+     *
+     * @param <T> the type of the value
+     */
+    private final class Memo<T> {
+
+        private final Supplier<T> read;
+
+        private Optional<T> value;
+
+        private Memo(final Supplier<T> read) {
+            this.read = read;
+        }
+
+        private T get() {
+            if (!isMemoizable()) {
+                return read.get();
+            }
+            if (value == null) {
+                value = Optional.ofNullable(read.get());
+            }
+            return value.orElse(null);
+        }
+
+        private void clear() {
+            value = null;
+        }
+    }
+
     protected Session getSession() {
         try {
             return getNode().getSession();
@@ -21,18 +21,26 @@ import static com.google.common.collect.ImmutableSet.of;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_BINARY;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_RESOURCE;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FIXITY_AUDIT;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.ROOT;
 import static org.fcrepo.kernel.modeshape.observer.FedoraEventImpl.getResourceTypes;
 
+import javax.jcr.RepositoryException;
 import javax.jcr.observation.Event;
 
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+
+import java.io.IOException;
 import java.util.Set;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * {@link EventFilter} that passes only events emitted from nodes with a Fedora
  * JCR type, or properties attached to them, except in the case of a node
  * removal. In that case, since we cannot test the node for its types, we assume
- * that any non-JCR namespaced node is fair game.
+ * that any non-JCR namespaced node is fair game. Saves made by the background
+ * fixity service to record its results are not passed.
  *
  * @author ajs6f
  * @author barmintor
@@ -47,8 +55,22 @@ public class DefaultFilter implements EventFilter {
     private static final Set<String> fedoraMixins =
             of(FEDORA_BINARY, FEDORA_CONTAINER, FEDORA_RESOURCE, ROOT);
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     @Override
     public boolean test(final Event event) {
-        return getResourceTypes(event).anyMatch(fedoraMixins::contains);
+        return !isFixityAudit(event) && getResourceTypes(event).anyMatch(fedoraMixins::contains);
+    }
+
+    private static boolean isFixityAudit(final Event event) {
+        try {
+            // the user data also carries values sent by clients, so only its keys are examined
+            final String userData = event.getUserData();
+            return userData != null && !userData.isEmpty() && MAPPER.readTree(userData).has(FIXITY_AUDIT);
+        } catch (final IOException ex) {
+            return false;
+        } catch (final RepositoryException ex) {
+            throw new RepositoryRuntimeException("Error reading event user data", ex);
+        }
     }
 }
@@ -34,6 +34,7 @@ import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getClosestExist
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getJcrNode;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getPropertyType;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.isReferenceProperty;
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.invalidateNamespaces;
 import static org.modeshape.jcr.api.JcrConstants.NT_FOLDER;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -233,6 +234,7 @@ public class JcrRdfTools {
             type.setMixin(true);
             type.setQueryable(true);
             mgr.registerNodeType(type, false);
+            invalidateNamespaces();
         }
 
         if (node.isNodeType(mixinName)) {
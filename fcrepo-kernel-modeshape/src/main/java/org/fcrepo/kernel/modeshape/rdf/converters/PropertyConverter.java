@@ -39,6 +39,7 @@ import static org.fcrepo.kernel.modeshape.rdf.JcrRdfTools.getRDFNamespaceForJcrN
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getReferencePropertyOriginalName;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.isInternalReferenceProperty;
 import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.getNamespaceRegistry;
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.invalidateNamespaces;
 import static org.slf4j.LoggerFactory.getLogger;
 
 
@@ -154,6 +155,7 @@ public class PropertyConverter extends Converter<javax.jcr.Property, Property> {
             } else {
                 prefix = namespaceRegistry.registerNamespace(namespace);
             }
+            invalidateNamespaces();
         }
 
         final String propertyName = prefix + ":" + rdfLocalname;
@@ -0,0 +1,234 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.modeshape.rdf.impl;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.currentThread;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static java.util.stream.Stream.of;
+import static org.apache.jena.rdf.model.ResourceFactory.createTypedLiteral;
+import static org.fcrepo.kernel.api.RdfLexicon.LAST_MODIFIED_DATE;
+import static org.fcrepo.kernel.api.RequiredRdfContext.PROPERTIES;
+import static org.fcrepo.kernel.modeshape.rdf.impl.PropertiesRdfContext.isExposedOn;
+import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getJcrNode;
+import static org.fcrepo.kernel.modeshape.utils.StreamUtils.iteratorToStream;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Resource;
+import org.fcrepo.kernel.api.exception.InterruptedRuntimeException;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.modeshape.FedoraResourceImpl;
+import org.fcrepo.kernel.modeshape.rdf.impl.mappings.PropertyToTriple;
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+
+/**
+ * {@link NodeRdfContext} for the properties of the children of a resource, as embedded in its representation.
+ *
+ * By default each child is described in turn, exactly as {@link FedoraResource#getTriples} would. When the
+ * {@value #PARALLELISM_PROPERTY} system property is greater than one, the children are instead described in two
+ * phases: everything that reads from the (thread-confined) JCR session is fetched on the calling thread, and the
+ * conversion of the fetched property values to triples is then shared out over a bounded {@link ForkJoinPool}.
+ * The triples of each child are kept together, and the children keep their order.
+ *
+ * @author agent
+ */
+public class EmbeddedResourcesRdfContext extends NodeRdfContext {
+
+    private static final Logger LOGGER = getLogger(EmbeddedResourcesRdfContext.class);
+
+    /**
+     * System property setting the number of threads converting embedded children, or zero to convert them on
+     * the calling thread
+     */
+    static final String PARALLELISM_PROPERTY = "fcrepo.embed.parallelism";
+
+    static ForkJoinPool pool = createPool(parseInt(getProperty(PARALLELISM_PROPERTY, "0")));
+
+    private static final Timer fetchTimer = RegistryService.getInstance().getMetrics()
+            .timer(name(EmbeddedResourcesRdfContext.class, "fetch"));
+
+    private static final Timer convertTimer = RegistryService.getInstance().getMetrics()
+            .timer(name(EmbeddedResourcesRdfContext.class, "convert"));
+
+    /**
+     * The time the conversions would have taken one after another, as a percentage of the time they took
+     */
+    private static final Histogram speedup = RegistryService.getInstance().getMetrics()
+            .histogram(name(EmbeddedResourcesRdfContext.class, "speedup"));
+
+    /**
+     * Default constructor.
+     *
+     * @param resource the resource
+     * @param idTranslator the id translator
+     * @throws RepositoryException if repository exception occurred
+     */
+    public EmbeddedResourcesRdfContext(final FedoraResource resource,
+                                       final IdentifierConverter<Resource, FedoraResource> idTranslator)
+            throws RepositoryException {
+        super(resource, idTranslator);
+        if (pool == null) {
+            concat(resource.getChildren().flatMap(child -> child.getTriples(idTranslator, PROPERTIES)));
+        } else {
+            concat(of(resource).flatMap(r -> embed()));
+        }
+    }
+
+    static ForkJoinPool createPool(final int parallelism) {
+        if (parallelism > 1) {
+            LOGGER.info("Converting embedded resources with {} threads", parallelism);
+            return new ForkJoinPool(parallelism);
+        }
+        return null;
+    }
+
+    private Stream<Triple> embed() {
+        final List<Fetched> children;
+        try (final Timer.Context context = fetchTimer.time()) {
+            children = resource().getChildren().map(this::fetch).collect(toList());
+        }
+        return convertAll(children).stream().flatMap(List::stream);
+    }
+
+    /**
+     * Convert fetched children on the pool.
+     *
+     * @param children the fetched children
+     * @return the triples of each child, in the order of the children
+     */
+    static List<List<Triple>> convertAll(final List<? extends Supplier<List<Triple>>> children) {
+        final long[] nanos = new long[children.size()];
+        final List<List<Triple>> converted;
+        final long start = nanoTime();
+        try (final Timer.Context context = convertTimer.time()) {
+            converted = pool.submit(() -> range(0, children.size()).parallel().mapToObj(i -> {
+                final long begin = nanoTime();
+                final List<Triple> triples = children.get(i).get();
+                nanos[i] = nanoTime() - begin;
+                return triples;
+            }).collect(toList())).get();
+        } catch (final InterruptedException e) {
+            currentThread().interrupt();
+            throw new InterruptedRuntimeException(e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RepositoryRuntimeException(e.getCause());
+        }
+        final long elapsed = nanoTime() - start;
+        if (elapsed > 0) {
+            speedup.update(100 * LongStream.of(nanos).sum() / elapsed);
+        }
+        return converted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fetched fetch(final FedoraResource child) {
+        if (!(child instanceof FedoraResourceImpl)) {
+            return new Fetched(child.getTriples(translator(), PROPERTIES).collect(toList()), emptyList(),
+                    emptyList(), null, null);
+        }
+        try {
+            final PropertyToTriple propertyToTriple =
+                    new PropertyToTriple(getJcrNode(child).getSession(), translator());
+            final List<Triple> types = new TypeRdfContext(child, translator()).collect(toList());
+            final Stream<Property> jcrProperties = iteratorToStream(getJcrNode(child).getProperties());
+            final List<Supplier<Triple>> properties = jcrProperties.filter(isExposedOn(child))
+                    .flatMap(p -> propertyToTriple.defer(p).stream()).collect(toList());
+            final List<Triple> extra = Stream.concat(new HashRdfContext(child, translator()),
+                    new SkolemNodeRdfContext(child, translator())).collect(toList());
+            return new Fetched(types, properties, extra, uriFor(child), child.getLastModifiedDate());
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
+    /**
+     * The session-independent state of a child, converted to triples on demand.
+     */
+    private static final class Fetched implements Supplier<List<Triple>> {
+
+        private static final Node LAST_MODIFIED = LAST_MODIFIED_DATE.asNode();
+
+        private final List<Triple> types;
+
+        private final List<Supplier<Triple>> properties;
+
+        private final List<Triple> extra;
+
+        private final Node subject;
+
+        private final Instant lastModified;
+
+        private Fetched(final List<Triple> types, final List<Supplier<Triple>> properties, final List<Triple> extra,
+                final Node subject, final Instant lastModified) {
+            this.types = types;
+            this.properties = properties;
+            this.extra = extra;
+            this.subject = subject;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public List<Triple> get() {
+            final List<Triple> triples = new ArrayList<>(types.size() + properties.size() + extra.size());
+            triples.addAll(types);
+            properties.forEach(p -> triples.add(fixDate(p.get())));
+            triples.addAll(extra);
+            return triples;
+        }
+
+        /**
+         * @see org.fcrepo.kernel.modeshape.FedoraResourceImpl#fixDatesIfNecessary
+         */
+        private Triple fixDate(final Triple t) {
+            if (lastModified != null && t.getPredicate().equals(LAST_MODIFIED) && t.getSubject().equals(subject)) {
+                final Calendar c = new Calendar.Builder().setInstant(lastModified.toEpochMilli()).build();
+                return new Triple(t.getSubject(), t.getPredicate(), createTypedLiteral(c).asNode());
+            }
+            return t;
+        }
+    }
+}
@@ -29,12 +29,14 @@ import org.fcrepo.kernel.modeshape.utils.UncheckedPredicate;
 
 import org.slf4j.Logger;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import javax.jcr.Node;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.empty;
 import static java.util.stream.Stream.of;
 import static org.apache.jena.graph.NodeFactory.createURI;
@@ -121,12 +123,25 @@ public class LdpContainerRdfContext extends NodeRdfContext {
             insertedContainerProperty = MEMBER_SUBJECT.getURI();
         }
 
+        return MembershipIndex.members(container, resource(), () -> uriFor(container).getURI(),
+                () -> members(container, insertedContainerProperty))
+            .stream().map(member -> create(subject(), memberRelation, member));
+    }
+
+    /**
+     * Get the objects of the membership triples contributed by the children of the given container
+     * @param container
+     * @param insertedContainerProperty
+     * @return
+     */
+    private List<org.apache.jena.graph.Node> members(final FedoraResource container,
+            final String insertedContainerProperty) {
         return container.getChildren().flatMap(
-            UncheckedFunction.<FedoraResource, Stream<Triple>>uncheck(child -> {
+            UncheckedFunction.<FedoraResource, Stream<org.apache.jena.graph.Node>>uncheck(child -> {
                 final org.apache.jena.graph.Node childSubject = uriFor(child.getDescribedResource());
 
                 if (insertedContainerProperty.equals(MEMBER_SUBJECT.getURI())) {
-                    return of(create(subject(), memberRelation, childSubject));
+                    return of(childSubject);
                 }
                 String insertedContentProperty = getPropertyNameFromPredicate(getJcrNode(resource()),
                         createResource(insertedContainerProperty), null);
@@ -145,8 +160,8 @@ public class LdpContainerRdfContext extends NodeRdfContext {
 
                 return iteratorToStream(new PropertyValueIterator(
                         getJcrNode(child).getProperty(insertedContentProperty)))
-                    .map(uncheck(v -> create(subject(), memberRelation,
-                        new ValueConverter(getJcrNode(container).getSession(), translator()).convert(v).asNode())));
-            }));
+                    .map(uncheck(v ->
+                        new ValueConverter(getJcrNode(container).getSession(), translator()).convert(v).asNode()));
+            })).collect(toList());
     }
 }
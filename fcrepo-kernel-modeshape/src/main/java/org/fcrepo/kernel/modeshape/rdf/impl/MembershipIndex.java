@@ -0,0 +1,140 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.modeshape.rdf.impl;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.Long.parseLong;
+import static java.lang.System.getProperty;
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static org.fcrepo.kernel.api.FedoraSession.IDENTITY;
+import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getJcrNode;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.apache.jena.graph.Node;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Meter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A shared index of the members contributed by each direct or indirect container, so that the membership
+ * triples of a resource are not rebuilt by walking every child of every container on each request.
+ *
+ * Entries are stamped with the last-modified dates of the container and of its membership resource. Creating,
+ * deleting or moving a member, or changing its inserted content, touches the membership resource, and changing
+ * the container's own membership predicates touches the container, so an outdated entry is never matched again
+ * and simply ages out. Last-modified dates have only millisecond resolution, so changes made within the same
+ * millisecond as an entry was computed from may go unnoticed until the next change to either resource.
+ *
+ * Entries are keyed by the container's URI as seen by the requesting translator and by the identity of the
+ * principals of the requesting session, and are only recorded from sessions without pending changes, so neither
+ * uncommitted members nor members hidden from differently authorized sessions are ever shared. Sessions whose
+ * identity is unknown do not use the index.
+ *
+ * @author agent
+ */
+final class MembershipIndex {
+
+    private static final Logger LOGGER = getLogger(MembershipIndex.class);
+
+    /**
+     * System property bounding the total number of members held in the index
+     */
+    static final String SIZE_PROPERTY = "fcrepo.membership.index.size";
+
+    private static final String DEFAULT_SIZE = "500000";
+
+    private static final Cache<List<Object>, List<Node>> index = CacheBuilder.newBuilder()
+            .maximumWeight(parseLong(getProperty(SIZE_PROPERTY, DEFAULT_SIZE)))
+            .weigher((final List<Object> key, final List<Node> members) -> members.size() + 1)
+            .build();
+
+    private static final Meter hits = RegistryService.getInstance().getMetrics()
+            .meter(name(MembershipIndex.class, "hits"));
+
+    private static final Meter misses = RegistryService.getInstance().getMetrics()
+            .meter(name(MembershipIndex.class, "misses"));
+
+    private MembershipIndex() {
+        // static utility class
+    }
+
+    /**
+     * Get the members contributed by a container to its membership resource, computing and recording them if
+     * they are not already indexed.
+     *
+     * @param container the direct or indirect container
+     * @param membershipResource the membership resource of the container
+     * @param containerUri the container's URI, as produced by the requesting translator
+     * @param compute computes the members from the repository
+     * @return the objects of the container's membership triples
+     * @throws RepositoryException if repository exception occurred
+     */
+    static List<Node> members(final FedoraResource container, final FedoraResource membershipResource,
+            final Supplier<String> containerUri, final Supplier<List<Node>> compute) throws RepositoryException {
+        final Session session = getJcrNode(container).getSession();
+        final Object identity = session == null ? null : identity(session);
+        final Instant containerModified = container.getLastModifiedDate();
+        final Instant membershipModified = membershipResource.getLastModifiedDate();
+        if (identity == null || containerModified == null || membershipModified == null) {
+            return compute.get();
+        }
+
+        final String uri = containerUri.get();
+        final List<Object> key = asList(uri, identity, containerModified, membershipModified);
+        final List<Node> indexed = index.getIfPresent(key);
+        if (indexed != null) {
+            hits.mark();
+            return indexed;
+        }
+        misses.mark();
+
+        final List<Node> members = unmodifiableList(compute.get());
+        if (!session.hasPendingChanges()) {
+            LOGGER.debug("Indexing {} members of {}", members.size(), uri);
+            index.put(key, members);
+        }
+        return members;
+    }
+
+    /*
+     * The identity of the principals of a session, or null if it is unknown.
+     */
+    private static Object identity(final Session session) {
+        final Object identity = session.getAttribute(IDENTITY);
+        return identity instanceof Supplier ? ((Supplier<?>) identity).get() : null;
+    }
+
+    /**
+     * Drop every indexed member.
+     */
+    static void clear() {
+        index.invalidateAll();
+    }
+}
@@ -27,9 +27,11 @@ import static org.fcrepo.kernel.modeshape.utils.StreamUtils.iteratorToStream;
 import static org.fcrepo.kernel.modeshape.utils.UncheckedPredicate.uncheck;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import javax.jcr.Node;
+import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 
 import com.google.common.base.Converter;
@@ -74,10 +76,17 @@ public class PropertiesRdfContext extends NodeRdfContext {
                                                         final PropertyToTriple propertyToTriple)
             throws RepositoryException {
         LOGGER.trace("Creating triples for node: {}", n);
-        return iteratorToStream(getJcrNode(n).getProperties())
-            .filter(isInternalProperty.negate().or(uncheck(prop ->
-                prop.getName().equals(JCR_LASTMODIFIED) && !n.hasProperty(FEDORA_LASTMODIFIED))))
+        return iteratorToStream(getJcrNode(n).getProperties()).filter(isExposedOn(n))
             .flatMap(propertyToTriple).map(fixDatesIfNecessary(n, translator));
     }
 
+    /**
+     * @param n the resource
+     * @return a test for whether a property of that resource is exposed as RDF
+     */
+    static Predicate<Property> isExposedOn(final FedoraResource n) {
+        return isInternalProperty.negate().or(uncheck(prop ->
+                prop.getName().equals(JCR_LASTMODIFIED) && !n.hasProperty(FEDORA_LASTMODIFIED)));
+    }
+
 }
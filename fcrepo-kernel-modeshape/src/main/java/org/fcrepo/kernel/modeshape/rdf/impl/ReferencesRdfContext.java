@@ -17,9 +17,22 @@
  */
 package org.fcrepo.kernel.modeshape.rdf.impl;
 
+import static java.util.stream.Stream.empty;
+import static java.util.stream.Stream.of;
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.apache.jena.graph.Triple.create;
+import static org.apache.jena.rdf.model.ResourceFactory.createResource;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_BASIC_CONTAINER;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_HAS_MEMBER_RELATION;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_INDIRECT_CONTAINER;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_INSERTED_CONTENT_RELATION;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_MEMBER_RESOURCE;
+import static org.fcrepo.kernel.api.RdfLexicon.LDP_MEMBER;
 import static org.fcrepo.kernel.modeshape.identifiers.NodeResourceConverter.nodeConverter;
-import static org.fcrepo.kernel.modeshape.rdf.converters.ValueConverter.nodeForValue;
+import static org.fcrepo.kernel.modeshape.rdf.converters.PropertyConverter.getPropertyNameFromPredicate;
+import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getContainingNode;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getJcrNode;
+import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getReferencePropertyName;
 import static org.fcrepo.kernel.modeshape.utils.StreamUtils.iteratorToStream;
 import static org.fcrepo.kernel.modeshape.utils.UncheckedFunction.uncheck;
 import static java.util.Arrays.asList;
@@ -32,15 +45,13 @@ import org.apache.jena.rdf.model.Resource;
 import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
 import org.fcrepo.kernel.api.models.FedoraResource;
 import org.fcrepo.kernel.modeshape.rdf.impl.mappings.PropertyToTriple;
-import org.fcrepo.kernel.modeshape.rdf.impl.mappings.PropertyValueIterator;
 
 import javax.jcr.Node;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
-import javax.jcr.Value;
 
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 /**
@@ -71,27 +82,57 @@ public class ReferencesRdfContext extends NodeRdfContext {
         concat(putReferencesIntoContext(getJcrNode(resource)));
     }
 
-    private final Predicate<Triple> INBOUND = t -> {
-        return t.getObject().getURI().equals(uriFor(resource()).getURI());
-    };
-
     /* References from LDP indirect containers are generated dynamically by LdpContainerRdfContext, so they won't
-       show up in getReferences()/getWeakReferences().  Instead, we should check referencers to see if they are
-       members of an IndirectContainer and generate the appropriate inbound references. */
+       show up in getReferences()/getWeakReferences().  Instead, we check each referencer to see if it is a member
+       of an IndirectContainer through the very property that references this resource, and generate the
+       membership triple that container asserts, in the same pass as the direct references. */
     private Stream<Triple> putReferencesIntoContext(final Node node) throws RepositoryException {
-        return Stream.concat(
-            getAllReferences(node).flatMap(property2triple),
-            getAllReferences(node).flatMap(uncheck((final Property x) -> {
-                    @SuppressWarnings("unchecked")
-                    final Stream<Value> values = iteratorToStream(new PropertyValueIterator(x.getParent()
-                            .getProperties())).filter((final Value y) -> REFERENCE_TYPES.contains(y.getType()));
-                    return values;
-                }))
-                .flatMap(uncheck((final Value x) -> {
-                    return new LdpContainerRdfContext(nodeConverter.convert(nodeForValue(node.getSession(), x)),
-                        translator());
-                }))
-                .filter(INBOUND));
+        return getAllReferences(node).flatMap(uncheck((final Property p) ->
+                Stream.concat(property2triple.apply(p), indirectMembership(p))));
+    }
+
+    /**
+     * Get the membership triple asserted about this resource by the indirect container of the node holding the
+     * given reference, if the reference is that node's inserted content.
+     *
+     * @param property a property referencing this resource
+     * @return the membership triple, if any
+     * @throws RepositoryException if repository exception occurred
+     */
+    private Stream<Triple> indirectMembership(final Property property) throws RepositoryException {
+        final Node member = property.getParent();
+        final Optional<Node> parent = getContainingNode(member);
+        if (!parent.isPresent() || !parent.get().isNodeType(LDP_INDIRECT_CONTAINER)) {
+            return empty();
+        }
+        final Node container = parent.get();
+        if (!container.hasProperty(LDP_MEMBER_RESOURCE) || !container.hasProperty(LDP_INSERTED_CONTENT_RELATION)) {
+            return empty();
+        }
+
+        final org.apache.jena.graph.Node memberRelation;
+        if (container.hasProperty(LDP_HAS_MEMBER_RELATION)) {
+            memberRelation = createURI(container.getProperty(LDP_HAS_MEMBER_RELATION).getString());
+        } else if (container.isNodeType(LDP_BASIC_CONTAINER)) {
+            memberRelation = LDP_MEMBER.asNode();
+        } else {
+            return empty();
+        }
+
+        final String insertedContentProperty = getPropertyNameFromPredicate(member,
+                createResource(container.getProperty(LDP_INSERTED_CONTENT_RELATION).getString()), null);
+        final String referenceProperty = member.hasProperty(insertedContentProperty) ? insertedContentProperty
+                : getReferencePropertyName(insertedContentProperty);
+        if (!property.getName().equals(referenceProperty)) {
+            return empty();
+        }
+
+        final Property membershipResource = container.getProperty(LDP_MEMBER_RESOURCE);
+        if (!REFERENCE_TYPES.contains(membershipResource.getType())) {
+            return empty();
+        }
+        return of(create(uriFor(nodeConverter.convert(membershipResource.getNode())), memberRelation,
+                uriFor(resource())));
     }
 
     @SuppressWarnings("unchecked")
@@ -19,12 +19,19 @@ package org.fcrepo.kernel.modeshape.rdf.impl.mappings;
 
 import static org.apache.jena.datatypes.xsd.XSDDatatype.XSDstring;
 import static org.apache.jena.graph.NodeFactory.createLiteral;
+import static javax.jcr.PropertyType.PATH;
+import static javax.jcr.PropertyType.REFERENCE;
+import static javax.jcr.PropertyType.WEAKREFERENCE;
 import static org.apache.jena.graph.Triple.create;
 import static org.fcrepo.kernel.modeshape.identifiers.NodeResourceConverter.nodeToResource;
 import static org.fcrepo.kernel.modeshape.utils.StreamUtils.iteratorToStream;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import javax.jcr.Node;
@@ -77,30 +84,72 @@ public class PropertyToTriple implements Function<Property, Stream<Triple>> {
             final org.apache.jena.graph.Node propPredicate = propertyConverter.convert(p).asNode();
             final String propertyName = p.getName();
 
-            return iteratorToStream(new PropertyValueIterator(p)).filter(this::valueCanBeConverted).map(v -> {
-                final org.apache.jena.graph.Node object = valueConverter.convert(v).asNode();
-                if (object.isLiteral()) {
-                    // unpack the name of the property for information about what kind of literal
-                    final int i = propertyName.indexOf('@');
-                    if (i > 0) {
-                        final LiteralLabel literal = object.getLiteral();
-                        final RDFDatatype datatype = literal.getDatatype();
-                        final String datatypeURI = datatype.getURI();
-                        if (datatypeURI.isEmpty() || datatype.equals(XSDstring)) {
-                            // this is an RDF string literal and could involve an RDF lang tag
-                            final String lang = propertyName.substring(i + 1);
-                            final String lex = literal.getLexicalForm();
-                            return create(subject, propPredicate, createLiteral(lex, lang, datatype));
-                        }
+            return iteratorToStream(new PropertyValueIterator(p)).filter(this::valueCanBeConverted)
+                    .map(v -> toTriple(subject, propPredicate, propertyName, valueConverter.convert(v).asNode()));
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
+    /**
+     * Read a property now, but defer the conversion of its values to triples. Everything that needs the session,
+     * including the resolution of (weak)reference and path values, happens before this method returns, so the
+     * returned suppliers may be invoked from any thread.
+     *
+     * @param p the property
+     * @return a supplier of a triple for each value of the property that can be converted
+     */
+    public List<Supplier<Triple>> defer(final Property p) {
+        try {
+            final org.apache.jena.graph.Node subject = translator.convert(p.getParent()).asNode();
+            final org.apache.jena.graph.Node propPredicate = propertyConverter.convert(p).asNode();
+            final String propertyName = p.getName();
+
+            final List<Supplier<Triple>> triples = new ArrayList<>();
+            final Iterator<Value> values = new PropertyValueIterator(p);
+            while (values.hasNext()) {
+                final Value v = values.next();
+                final int type = v.getType();
+                if (type == REFERENCE || type == WEAKREFERENCE || type == PATH) {
+                    try {
+                        final Triple link = toTriple(subject, propPredicate, propertyName,
+                                valueConverter.convert(v).asNode());
+                        triples.add(() -> link);
+                    } catch (final RepositoryRuntimeException e) {
+                        LOGGER.warn("Reference to non-existent resource encounterd: {}", v);
                     }
+                } else {
+                    triples.add(() -> toTriple(subject, propPredicate, propertyName,
+                            valueConverter.convert(v).asNode()));
                 }
-                return create(subject, propPredicate, object);
-            });
+            }
+            return triples;
         } catch (final RepositoryException e) {
             throw new RepositoryRuntimeException(e);
         }
     }
 
+    private static Triple toTriple(final org.apache.jena.graph.Node subject,
+            final org.apache.jena.graph.Node propPredicate, final String propertyName,
+            final org.apache.jena.graph.Node object) {
+        if (object.isLiteral()) {
+            // unpack the name of the property for information about what kind of literal
+            final int i = propertyName.indexOf('@');
+            if (i > 0) {
+                final LiteralLabel literal = object.getLiteral();
+                final RDFDatatype datatype = literal.getDatatype();
+                final String datatypeURI = datatype.getURI();
+                if (datatypeURI.isEmpty() || datatype.equals(XSDstring)) {
+                    // this is an RDF string literal and could involve an RDF lang tag
+                    final String lang = propertyName.substring(i + 1);
+                    final String lex = literal.getLexicalForm();
+                    return create(subject, propPredicate, createLiteral(lex, lang, datatype));
+                }
+            }
+        }
+        return create(subject, propPredicate, object);
+    }
+
     /**
      * This method tests if a given value can be converted.
      * The scenario when this may not be true is for (weak)reference properties that target an non-existent resource.
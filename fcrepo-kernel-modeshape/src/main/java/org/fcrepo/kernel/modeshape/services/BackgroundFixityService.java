@@ -0,0 +1,365 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.modeshape.services;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.time.Instant.now;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static javax.jcr.query.Query.JCR_SQL2;
+import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_BINARY;
+import static org.fcrepo.kernel.api.observer.EventType.FIXITY_FAILURE;
+import static org.fcrepo.kernel.api.utils.FixityResult.FixityState.SUCCESS;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FEDORA_FIXITY_LAST_CHECKED;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FEDORA_FIXITY_RESULT;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FIXITY_AUDIT;
+import static org.fcrepo.kernel.modeshape.FedoraSessionImpl.getJcrSession;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.RowIterator;
+
+import org.fcrepo.kernel.api.FedoraRepository;
+import org.fcrepo.kernel.api.FedoraSession;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.utils.ContentDigest;
+import org.fcrepo.kernel.modeshape.FedoraBinaryImpl;
+import org.fcrepo.kernel.modeshape.observer.FedoraEventImpl;
+import org.fcrepo.kernel.modeshape.utils.FixityInputStream;
+import org.fcrepo.kernel.modeshape.utils.FixityResultImpl;
+import org.fcrepo.metrics.RegistryService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+
+/**
+ * Periodically re-checks the fixity of every binary in the repository. Each pass walks the binaries that have never
+ * been checked, then those whose last check is older than the recheck period, oldest first, hashing them in batches on
+ * a bounded pool of workers whose combined reads are held to a bandwidth limit. The time and result of each check are
+ * recorded on the binary, and a {@link org.fcrepo.kernel.api.observer.EventType#FIXITY_FAILURE} event is posted for
+ * each binary that fails. A binary whose content cannot be read is recorded as failed with the result ERROR.
+ *
+ * @author agent
+ */
+public class BackgroundFixityService {
+
+    private static final Logger LOGGER = getLogger(BackgroundFixityService.class);
+
+    private static final String BINARIES_QUERY = "SELECT [jcr:path] FROM [" + FEDORA_BINARY + "] WHERE ";
+
+    private static final String UNCHECKED = "[" + FEDORA_FIXITY_LAST_CHECKED + "] IS NULL";
+
+    private static final String DUE = "[" + FEDORA_FIXITY_LAST_CHECKED + "] < $cutoff";
+
+    private static final String OLDEST_FIRST = " ORDER BY [" + FEDORA_FIXITY_LAST_CHECKED + "] ASC";
+
+    /**
+     * The result recorded for a binary whose content could not be read
+     */
+    static final String ERROR = "ERROR";
+
+    private static final RegistryService registryService = RegistryService.getInstance();
+
+    static final Counter checked = registryService.getMetrics().counter(
+            name(BackgroundFixityService.class, "checked"));
+
+    static final Counter failed = registryService.getMetrics().counter(
+            name(BackgroundFixityService.class, "failed"));
+
+    static final Counter errors = registryService.getMetrics().counter(
+            name(BackgroundFixityService.class, "errors"));
+
+    static final Counter pending = registryService.getMetrics().counter(
+            name(BackgroundFixityService.class, "pending"));
+
+    static final Meter bytesRead = registryService.getMetrics().meter(
+            name(BackgroundFixityService.class, "bytes-read"));
+
+    static final Timer checkTime = registryService.getMetrics().timer(
+            name(BackgroundFixityService.class, "check-time"));
+
+    @Inject
+    private FedoraRepository repository;
+
+    @Inject
+    private EventBus eventBus;
+
+    private final int workers;
+
+    private final RateLimiter throttle;
+
+    private final long recheckDays;
+
+    private final int batchSize;
+
+    private final long intervalMinutes;
+
+    private ScheduledExecutorService walker;
+
+    private ExecutorService pool;
+
+    /**
+     * @param workers the number of binaries hashed at once
+     * @param bytesPerSecond the combined read rate of the workers, or 0 for no limit
+     * @param recheckDays how long after its last check a binary is checked again
+     * @param batchSize how many binaries are fetched from the repository at a time
+     * @param intervalMinutes the delay between the end of one pass and the start of the next
+     */
+    public BackgroundFixityService(final int workers, final long bytesPerSecond, final long recheckDays,
+            final int batchSize, final long intervalMinutes) {
+        this.workers = workers;
+        this.throttle = bytesPerSecond > 0 ? RateLimiter.create(bytesPerSecond) : null;
+        this.recheckDays = recheckDays;
+        this.batchSize = batchSize;
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    /**
+     * Start the walker and the worker pool.
+     */
+    @PostConstruct
+    public void start() {
+        walker = newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("fcrepo-fixity-walker").setDaemon(true).build());
+        pool = newFixedThreadPool(workers,
+                new ThreadFactoryBuilder().setNameFormat("fcrepo-fixity-%d").setDaemon(true).build());
+        walker.scheduleWithFixedDelay(this::audit, intervalMinutes, intervalMinutes, MINUTES);
+        LOGGER.info("Checking fixity with {} workers every {} minutes", workers, intervalMinutes);
+    }
+
+    /**
+     * Stop checking, abandoning any binaries still being hashed.
+     */
+    @PreDestroy
+    public void stop() {
+        walker.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Make one pass over the binaries that are due to be checked.
+     */
+    @VisibleForTesting
+    public void audit() {
+        // binaries whose check could not be recorded, which the queries would otherwise keep returning
+        final Set<String> skipped = ConcurrentHashMap.newKeySet();
+        int attempted = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final List<String> batch = nextBatch(skipped);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                attempted += batch.size();
+                pending.inc(batch.size());
+                final List<Callable<Void>> checks = batch.stream().map(path -> (Callable<Void>) () -> {
+                    try {
+                        if (!check(path)) {
+                            skipped.add(path);
+                        }
+                    } finally {
+                        pending.dec();
+                    }
+                    return null;
+                }).collect(toList());
+                pool.invokeAll(checks);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final RuntimeException | RepositoryException e) {
+            LOGGER.warn("Fixity pass stopped early: {}", e.getMessage());
+        }
+        LOGGER.debug("Fixity pass checked {} binaries, {} of which could not be recorded", attempted, skipped.size());
+    }
+
+    /**
+     * @param skipped the paths to leave out
+     * @return the paths of the next binaries to check: those never checked, then those due again, oldest first
+     * @throws RepositoryException if the repository cannot be queried
+     */
+    @VisibleForTesting
+    List<String> nextBatch(final Set<String> skipped) throws RepositoryException {
+        final String excluded = skipped.stream().map(path -> " AND NOT ISSAMENODE('" + path.replace("'", "''") + "')")
+                .collect(joining());
+        final FedoraSession session = repository.login();
+        try {
+            final Session jcrSession = getJcrSession(session);
+            final QueryManager queryManager = jcrSession.getWorkspace().getQueryManager();
+            final List<String> paths = paths(queryManager.createQuery(BINARIES_QUERY + UNCHECKED + excluded,
+                    JCR_SQL2));
+            if (!paths.isEmpty()) {
+                return paths;
+            }
+            final Calendar cutoff = Calendar.getInstance();
+            cutoff.setTimeInMillis(now().toEpochMilli() - DAYS.toMillis(recheckDays));
+            final Query due = queryManager.createQuery(BINARIES_QUERY + DUE + excluded + OLDEST_FIRST, JCR_SQL2);
+            due.bindValue("cutoff", jcrSession.getValueFactory().createValue(cutoff));
+            return paths(due);
+        } finally {
+            session.expire();
+        }
+    }
+
+    private List<String> paths(final Query query) throws RepositoryException {
+        query.setLimit(batchSize);
+        final List<String> paths = new ArrayList<>(batchSize);
+        final RowIterator rows = query.execute().getRows();
+        while (rows.hasNext()) {
+            paths.add(rows.nextRow().getPath());
+        }
+        return paths;
+    }
+
+    /**
+     * Hash one binary, record the result on it and report a failure. A binary whose content cannot be read is
+     * recorded with the result {@link #ERROR}. Nothing is recorded if the content is replaced while it is hashed.
+     *
+     * @param path the path of the binary's content node
+     * @return whether a result was recorded
+     */
+    @VisibleForTesting
+    boolean check(final String path) {
+        final FedoraSession session = repository.login();
+        try (final Timer.Context context = checkTime.time()) {
+            final Session jcrSession = getJcrSession(session);
+            final Node node = jcrSession.getNode(path);
+            final FedoraBinary binary = new FedoraBinaryImpl(node);
+            final URI expected = binary.getContentDigest();
+            Set<String> status;
+            try {
+                status = hash(binary, expected);
+            } catch (final RuntimeException | IOException | NoSuchAlgorithmException e) {
+                errors.inc();
+                LOGGER.warn("Could not check fixity of {}: {}", path, e.getMessage());
+                status = singleton(ERROR);
+            }
+
+            // a result for content replaced while it was hashed would be recorded against the new content
+            jcrSession.refresh(false);
+            if (!Objects.equals(expected, binary.getContentDigest())) {
+                LOGGER.debug("Content of {} changed while its fixity was checked", path);
+                return false;
+            }
+            final Calendar lastChecked = Calendar.getInstance();
+            node.setProperty(FEDORA_FIXITY_LAST_CHECKED, lastChecked);
+            node.setProperty(FEDORA_FIXITY_RESULT, status.toArray(new String[status.size()]));
+            session.addSessionData(FIXITY_AUDIT, "true");
+            session.commit();
+            checked.inc();
+
+            if (!status.contains(SUCCESS.name())) {
+                failed.inc();
+                LOGGER.warn("Fixity check of {} failed: {}", path, status);
+                eventBus.post(new FedoraEventImpl(FIXITY_FAILURE, binary.getDescription().getPath(),
+                        binary.getTypes().stream().map(URI::toString).collect(toSet()), session.getUserId(),
+                        now(), emptyMap()));
+            }
+            return true;
+        } catch (final RuntimeException | RepositoryException e) {
+            errors.inc();
+            LOGGER.warn("Could not record fixity of {}: {}", path, e.getMessage());
+            return false;
+        } finally {
+            session.expire();
+        }
+    }
+
+    private Set<String> hash(final FedoraBinary binary, final URI expected) throws IOException,
+            NoSuchAlgorithmException {
+        final String algorithm = ContentDigest.getAlgorithm(expected);
+        final InputStream content = throttle == null ? binary.getContent()
+                : new ThrottledInputStream(binary.getContent(), throttle);
+        try (final FixityInputStream in = new FixityInputStream(content, MessageDigest.getInstance(algorithm))) {
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                bytesRead.mark(n);
+            }
+            final URI computed = ContentDigest.asURI(algorithm, in.getMessageDigest().digest());
+            return new FixityResultImpl(in.getByteCount(), computed).getStatus(binary.getContentSize(), expected)
+                    .stream().map(Enum::name).collect(toSet());
+        }
+    }
+
+    /**
+     * Holds reads from a stream to the rate of a {@link RateLimiter} that counts bytes.
+     */
+    private static class ThrottledInputStream extends FilterInputStream {
+
+        private final RateLimiter throttle;
+
+        ThrottledInputStream(final InputStream in, final RateLimiter throttle) {
+            super(in);
+            this.throttle = throttle;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                throttle.acquire();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                throttle.acquire(n);
+            }
+            return n;
+        }
+    }
+}
@@ -21,21 +21,32 @@
 
 package org.fcrepo.kernel.modeshape.services;
 
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.System.currentTimeMillis;
 import static java.time.Instant.now;
-import static java.util.stream.Collectors.toSet;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static com.google.common.base.Strings.nullToEmpty;
 import static org.fcrepo.kernel.modeshape.FedoraSessionImpl.operationTimeout;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
-import java.util.Set;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
 
 import org.fcrepo.kernel.api.FedoraSession;
 import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.api.exception.SessionMissingException;
 import org.fcrepo.kernel.api.services.BatchService;
+import org.fcrepo.metrics.RegistryService;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -63,36 +74,96 @@ public class BatchServiceImpl extends AbstractService implements BatchService {
      */
     private static Map<String, FedoraSession> sessions = new ConcurrentHashMap<>();
 
+    /**
+     * Sessions in order of their scheduled expiry, so that reaping only visits
+     * the sessions that are due
+     */
+    private static final DelayQueue<Expiry> expiries = new DelayQueue<>();
+
+    private static final RegistryService registryService = RegistryService.getInstance();
+
+    static final Counter openSessions = registryService.getMetrics().counter(
+            name(BatchService.class, "open"));
+
+    static final Counter expiredSessions = registryService.getMetrics().counter(
+            name(BatchService.class, "expired"));
+
+    static final Timer sessionLifetime = registryService.getMetrics().timer(
+            name(BatchService.class, "lifetime"));
+
     @VisibleForTesting
     public static final long REAP_INTERVAL = 1000;
 
+    /**
+     * A session scheduled for expiry at a particular instant
+     */
+    private static class Expiry implements Delayed {
+
+        private final String key;
+
+        private final FedoraSession session;
+
+        private final long deadline;
+
+        private Expiry(final String key, final FedoraSession session, final Instant deadline) {
+            this.key = key;
+            this.session = session;
+            this.deadline = deadline.toEpochMilli();
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(deadline - currentTimeMillis(), MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(getDelay(NANOSECONDS), other.getDelay(NANOSECONDS));
+        }
+    }
+
     /**
      * Every REAP_INTERVAL milliseconds, check for expired sessions. If the
      * tx is expired, roll it back and remove it from the registry.
+     *
+     * Only sessions whose scheduled expiry has passed are visited. A session
+     * whose expiry has since been extended is rescheduled for its new expiry,
+     * and one that has already been committed or aborted is dropped.
      */
     @Override
     @Scheduled(fixedRate = REAP_INTERVAL)
     public void removeExpired() {
-        final Set<String> reapable = sessions.entrySet().stream()
-                .filter(e -> e.getValue().getExpires().isPresent())
-                .filter(e -> e.getValue().getExpires().get().isBefore(now()))
-                .map(Map.Entry::getKey).collect(toSet());
-        reapable.forEach(key -> {
-            final FedoraSession s = sessions.get(key);
-            if (s != null) {
+        Expiry due;
+        while ((due = expiries.poll()) != null) {
+            final FedoraSession s = due.session;
+            if (sessions.get(due.key) != s) {
+                continue;
+            }
+            final Optional<Instant> expires = s.getExpires();
+            if (!expires.isPresent() || expires.get().isAfter(now())) {
+                schedule(due.key, s);
+                continue;
+            }
+            if (sessions.remove(due.key, s)) {
                 try {
                     s.expire();
                 } catch (final RepositoryRuntimeException e) {
                     LOGGER.error("Got exception rolling back expired session {}: {}", s, e.getMessage());
                 }
+                expiredSessions.inc();
+                ended(s);
             }
-            sessions.remove(key);
-        });
+        }
     }
 
     @Override
     public void begin(final FedoraSession session, final String username) {
-        sessions.put(getTxKey(session.getId(), username), session);
+        final String key = getTxKey(session.getId(), username);
+        final FedoraSession replaced = sessions.put(key, session);
+        if (replaced == null) {
+            openSessions.inc();
+        }
+        schedule(key, session);
     }
 
     @Override
@@ -113,9 +184,15 @@ public class BatchServiceImpl extends AbstractService implements BatchService {
     public void commit(final String sessionId, final String username) {
         final FedoraSession session = getSession(sessionId, username);
         session.commit();
-        sessions.remove(getTxKey(sessionId, username));
+        remove(sessionId, username, session);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The session keeps its place in the expiry queue; when that comes due,
+     * the session is rescheduled for its extended expiry.
+     */
     @Override
     public void refresh(final String sessionId, final String username) {
         final FedoraSession session = getSession(sessionId, username);
@@ -126,7 +203,30 @@ public class BatchServiceImpl extends AbstractService implements BatchService {
     public void abort(final String sessionId, final String username) {
         final FedoraSession session = getSession(sessionId, username);
         session.expire();
-        sessions.remove(getTxKey(sessionId, username));
+        remove(sessionId, username, session);
+    }
+
+    private static void remove(final String sessionId, final String username, final FedoraSession session) {
+        if (sessions.remove(getTxKey(sessionId, username), session)) {
+            ended(session);
+        }
+    }
+
+    /*
+     * Schedule a session for expiry; one without an expiry is checked again
+     * after the default operation timeout.
+     */
+    private static void schedule(final String key, final FedoraSession session) {
+        final Optional<Instant> expires = session.getExpires();
+        expiries.add(new Expiry(key, session, expires.isPresent() ? expires.get() : now().plus(operationTimeout())));
+    }
+
+    private static void ended(final FedoraSession session) {
+        openSessions.dec();
+        final Instant created = session.getCreated();
+        if (created != null) {
+            sessionLifetime.update(Duration.between(created, now()).toMillis(), MILLISECONDS);
+        }
     }
 
     private static String getTxKey(final String sessionId, final String username) {
@@ -21,6 +21,7 @@ import static com.codahale.metrics.MetricRegistry.name;
 import static org.fcrepo.kernel.modeshape.FedoraRepositoryImpl.getJcrRepository;
 import static org.fcrepo.kernel.modeshape.FedoraSessionImpl.getJcrSession;
 import static org.fcrepo.kernel.modeshape.services.ServiceHelpers.getRepositoryCount;
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.invalidateNamespaces;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import org.fcrepo.kernel.api.FedoraSession;
@@ -143,6 +144,8 @@ public class RepositoryServiceImpl extends AbstractService implements Repository
             final Collection<Throwable> problems = new ArrayList<>();
 
             repoMgr.restoreRepository(backupDirectory).forEach(x -> problems.add(x.getThrowable()));
+            // the restored content may bring its own namespaces
+            invalidateNamespaces();
 
             return problems;
         } catch (final RepositoryException e) {
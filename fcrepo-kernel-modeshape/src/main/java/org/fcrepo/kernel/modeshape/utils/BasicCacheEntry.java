@@ -21,15 +21,26 @@ import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.api.utils.CacheEntry;
 import org.fcrepo.kernel.api.utils.ContentDigest;
 import org.fcrepo.kernel.api.utils.FixityResult;
+import org.fcrepo.metrics.RegistryService;
 
 import org.slf4j.Logger;
 
+import com.codahale.metrics.Meter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import java.io.IOException;
 import java.net.URI;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.Long.parseLong;
+import static java.lang.System.getProperty;
+import static java.time.Instant.now;
 import static java.util.Arrays.asList;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -37,6 +48,11 @@ import static org.slf4j.LoggerFactory.getLogger;
  * Cache entry that wraps a binary stream and provides
  * fixity methods against it
  *
+ * Entries whose content never changes under a given key may report a
+ * {@link #getContentKey() content key}. The digest and size computed for such
+ * content are remembered, and a later check with the same algorithm within the
+ * freshness window reuses them instead of reading the content again.
+ *
  * @author fasseg
  */
 public abstract class BasicCacheEntry implements CacheEntry {
@@ -48,14 +64,97 @@ public abstract class BasicCacheEntry implements CacheEntry {
     private static final Logger LOGGER = getLogger(BasicCacheEntry.class);
 
     /**
-     * Calculate the fixity of a CacheEntry by piping it through
-     * a simple fixity-calculating InputStream
+     * System property bounding the number of fixity results remembered
+     */
+    static final String SIZE_PROPERTY = "fcrepo.fixity.cache.size";
+
+    /**
+     * System property giving the seconds for which a remembered fixity result is reused, or 0 to always re-read
+     */
+    static final String FRESHNESS_PROPERTY = "fcrepo.fixity.cache.freshness";
+
+    private static final long FRESHNESS = parseLong(getProperty(FRESHNESS_PROPERTY, "300"));
+
+    private static final Cache<List<String>, CheckedFixity> checked = CacheBuilder.newBuilder()
+            .maximumSize(parseLong(getProperty(SIZE_PROPERTY, "10000")))
+            .build();
+
+    private static final Meter hits = RegistryService.getInstance().getMetrics()
+            .meter(name(BasicCacheEntry.class, "fixity-cache-hits"));
+
+    private static final Meter misses = RegistryService.getInstance().getMetrics()
+            .meter(name(BasicCacheEntry.class, "fixity-cache-misses"));
+
+    /**
+     * The digest and size computed for some content, and when
+     */
+    private static class CheckedFixity {
+
+        private final URI digest;
+
+        private final long size;
+
+        private final Instant checkedAt;
+
+        CheckedFixity(final URI digest, final long size, final Instant checkedAt) {
+            this.digest = digest;
+            this.size = size;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    /**
+     * Get a key that identifies the content of this entry, which must change
+     * whenever the content does.
+     *
+     * @return the key, or null if fixity results for this entry must not be remembered
+     */
+    protected String getContentKey() {
+        return null;
+    }
+
+    /**
+     * Calculate the fixity of a CacheEntry, reusing a fresh earlier result for
+     * the same content if there is one
      *
      * @param algorithm the digest algorithm to be used
      * @return the fixity of this cache entry
      */
     @Override
     public Collection<FixityResult> checkFixity(final String algorithm) {
+        return checkFixity(algorithm, false);
+    }
+
+    @Override
+    public Collection<FixityResult> checkFixity(final String algorithm, final boolean force) {
+        final String contentKey = FRESHNESS > 0 ? getContentKey() : null;
+        if (contentKey == null) {
+            return computeFixity(algorithm);
+        }
+
+        final List<String> key = asList(contentKey, algorithm);
+        final CheckedFixity fixity = force ? null : checked.getIfPresent(key);
+        if (fixity != null && fixity.checkedAt.plusSeconds(FRESHNESS).isAfter(now())) {
+            hits.mark();
+            LOGGER.debug("Reusing fixity of {} checked at {}", contentKey, fixity.checkedAt);
+            return asList(new FixityResultImpl(getExternalIdentifier(), fixity.size, fixity.digest, algorithm));
+        }
+        misses.mark();
+
+        final Collection<FixityResult> results = computeFixity(algorithm);
+        results.stream().findFirst().ifPresent(result -> checked.put(key,
+                new CheckedFixity(result.getComputedChecksum(), result.getComputedSize(), now())));
+        return results;
+    }
+
+    /**
+     * Calculate the fixity of a CacheEntry by piping it through
+     * a simple fixity-calculating InputStream
+     *
+     * @param algorithm the digest algorithm to be used
+     * @return the fixity of this cache entry
+     */
+    private Collection<FixityResult> computeFixity(final String algorithm) {
 
         try (FixityInputStream fixityInputStream = new FixityInputStream(
                 this.getInputStream(), MessageDigest.getInstance(algorithm))) {
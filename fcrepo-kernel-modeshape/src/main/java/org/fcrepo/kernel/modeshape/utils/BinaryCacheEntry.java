@@ -19,9 +19,12 @@ package org.fcrepo.kernel.modeshape.utils;
 
 import java.io.InputStream;
 
+import javax.jcr.Binary;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.modeshape.jcr.value.BinaryValue;
+import org.modeshape.jcr.value.binary.ExternalBinaryValue;
 
 /**
  * A {@link org.fcrepo.kernel.api.utils.CacheEntry} for simple Binary objects
@@ -67,6 +70,24 @@ public class BinaryCacheEntry extends BasicCacheEntry {
         }
     }
 
+    /**
+     * ModeShape keys the binaries it stores by their SHA-1, so stored content never
+     * changes under a key. External binaries are read from elsewhere and have no
+     * such guarantee.
+     */
+    @Override
+    protected String getContentKey() {
+        try {
+            final Binary binary = property.getBinary();
+            if (binary instanceof BinaryValue && !(binary instanceof ExternalBinaryValue)) {
+                return ((BinaryValue) binary).getKey().toString();
+            }
+            return null;
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
     protected Property property() {
         return property;
     }
@@ -55,6 +55,8 @@ import static org.fcrepo.kernel.api.FedoraTypes.LDP_DIRECT_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_INDIRECT_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_INSERTED_CONTENT_RELATION;
 import static org.fcrepo.kernel.api.FedoraTypes.LDP_MEMBER_RESOURCE;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FEDORA_FIXITY_LAST_CHECKED;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FEDORA_FIXITY_RESULT;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FROZEN_MIXIN_TYPES;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FROZEN_PRIMARY_TYPE;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FROZEN_NODE;
@@ -94,6 +96,8 @@ public abstract class FedoraTypesUtils implements FedoraTypes {
             JCR_PRIMARY_TYPE,
             JCR_LASTMODIFIED,
             JCR_MIXIN_TYPES,
+            FEDORA_FIXITY_LAST_CHECKED,
+            FEDORA_FIXITY_RESULT,
             FROZEN_MIXIN_TYPES,
             FROZEN_PRIMARY_TYPE);
 
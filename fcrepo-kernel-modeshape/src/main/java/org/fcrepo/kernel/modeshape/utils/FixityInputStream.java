@@ -17,20 +17,27 @@
  */
 package org.fcrepo.kernel.modeshape.utils;
 
+import static java.util.Arrays.asList;
+
+import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import org.apache.commons.io.input.CountingInputStream;
 
 /**
- * An InputStream wrapper that calculates the size and digest
+ * An InputStream wrapper that calculates the size and one or more digests
  * while reading from the stream.
  * @author Chris Beer
  * @since Mar 12, 2013
  */
 public class FixityInputStream extends CountingInputStream {
 
+    private final List<MessageDigest> digests;
+
     /**
      * Creates a <code>FilterInputStream</code> by assigning the
      * argument <code>in</code> to the field <code>this.in</code>
@@ -41,7 +48,46 @@ public class FixityInputStream extends CountingInputStream {
      * @param digest the given digest
      */
     public FixityInputStream(final InputStream in, final MessageDigest digest) {
-        super(new DigestInputStream(in, digest));
+        this(in, asList(digest));
+    }
+
+    /**
+     * Creates a stream that updates each of the given digests with every byte read,
+     * so that all of them are computed in a single pass.
+     *
+     * @param in the underlying input stream
+     * @param digests the given digests
+     */
+    public FixityInputStream(final InputStream in, final Collection<MessageDigest> digests) {
+        super(in);
+        this.digests = new ArrayList<>(digests);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+        if (b != -1) {
+            for (final MessageDigest digest : digests) {
+                digest.update((byte) b);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int n = super.read(b, off, len);
+        if (n > 0) {
+            for (final MessageDigest digest : digests) {
+                digest.update(b, off, n);
+            }
+        }
+        return n;
     }
 
     /**
@@ -49,7 +95,15 @@ public class FixityInputStream extends CountingInputStream {
      * @return digest for this input stream
      */
     public MessageDigest getMessageDigest() {
-        return ((DigestInputStream) in).getMessageDigest();
+        return digests.get(0);
+    }
+
+    /**
+     * Retrieve all of the calculated digests for the input stream, in the order given
+     * @return digests for this input stream
+     */
+    public List<MessageDigest> getMessageDigests() {
+        return digests;
     }
 
 }
@@ -20,6 +20,7 @@ package org.fcrepo.kernel.modeshape.utils;
 import static com.google.common.collect.ImmutableSet.of;
 import static java.util.Objects.requireNonNull;
 import static java.util.Arrays.stream;
+import static java.util.Collections.unmodifiableMap;
 import static javax.jcr.NamespaceRegistry.PREFIX_EMPTY;
 import static javax.jcr.NamespaceRegistry.PREFIX_JCR;
 import static javax.jcr.NamespaceRegistry.PREFIX_MIX;
@@ -28,10 +29,12 @@ import static javax.jcr.NamespaceRegistry.PREFIX_NT;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 import javax.jcr.NamespaceException;
 import javax.jcr.NamespaceRegistry;
+import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
@@ -54,6 +57,40 @@ public final class NamespaceTools {
     private static final Set<String> INTERNAL_PREFIXES = of(PREFIX_EMPTY, PREFIX_JCR, PREFIX_MIX, PREFIX_NT,
             "mode", "sv", "image");
 
+    /**
+     * Incremented whenever a namespace or node type may have been registered,
+     * so that a snapshot taken earlier is known to be stale.
+     */
+    private static final AtomicLong generation = new AtomicLong();
+
+    private static volatile NamespaceSnapshot snapshot;
+
+    /**
+     * An immutable copy of the namespace registry of a repository
+     */
+    private static final class NamespaceSnapshot {
+
+        private final Repository repository;
+
+        private final long generation;
+
+        // every registered prefix
+        private final Map<String, String> prefixes;
+
+        // the registered prefixes, less those internal to the repository
+        private final Map<String, String> namespaces;
+
+        private NamespaceSnapshot(final Repository repository, final long generation,
+                final NamespaceRegistry registry) {
+            this.repository = repository;
+            this.generation = generation;
+            final Map<String, String> all = readNamespaces(registry, x -> true);
+            this.prefixes = unmodifiableMap(new HashMap<>(all));
+            all.keySet().removeIf(internalPrefix);
+            this.namespaces = unmodifiableMap(all);
+        }
+    }
+
     /**
      * Return the {@link NamespaceRegistry} associated with the arg session.
      *
@@ -79,6 +116,7 @@ public final class NamespaceTools {
      */
     public static void validatePath(final Session session, final String path) {
 
+        final NamespaceSnapshot current = getSnapshot(session);
         final NamespaceRegistry namespaceRegistry = getNamespaceRegistry(session);
         final String[] pathSegments = path.replaceAll("^/+", "").replaceAll("/+$", "").split("/");
         for (final String segment : pathSegments) {
@@ -90,11 +128,9 @@ public final class NamespaceTools {
                         throw new FedoraInvalidNamespaceException("Empty namespace in " + segment);
                     }
                     try {
-                        namespaceRegistry.getURI(prefix);
+                        getNamespaceURI(current, namespaceRegistry, prefix);
                     } catch (final NamespaceException e) {
                         throw new FedoraInvalidNamespaceException("Prefix " + prefix + " has not been registered", e);
-                    } catch (final RepositoryException e) {
-                        throw new RepositoryRuntimeException(e);
                     }
                 }
             }
@@ -102,17 +138,97 @@ public final class NamespaceTools {
     }
 
     /**
-     * Retrieve the namespaces as a Map
+     * Retrieve the namespaces as a Map.  The map is a snapshot of the registry,
+     * shared between sessions, and may not be modified.
      *
      * @param session the JCR session to use
      * @return a mapping of the prefix to URI
      */
     public static Map<String, String> getNamespaces(final Session session) {
-        final NamespaceRegistry registry = getNamespaceRegistry(session);
+        final NamespaceSnapshot current = getSnapshot(session);
+        if (current != null) {
+            return current.namespaces;
+        }
+        return readNamespaces(getNamespaceRegistry(session), internalPrefix.negate());
+    }
+
+    /**
+     * Retrieve the URI of a registered namespace prefix
+     *
+     * @param session the JCR session to use
+     * @param prefix the namespace prefix
+     * @return the namespace URI
+     * @throws NamespaceException if the prefix has not been registered
+     */
+    public static String getNamespaceURI(final Session session, final String prefix) throws NamespaceException {
+        return getNamespaceURI(getSnapshot(session), getNamespaceRegistry(session), prefix);
+    }
+
+    private static String getNamespaceURI(final NamespaceSnapshot current, final NamespaceRegistry registry,
+            final String prefix) throws NamespaceException {
+        if (current != null) {
+            final String uri = current.prefixes.get(prefix);
+            if (uri != null) {
+                return uri;
+            }
+        }
+        // the prefix is unknown, or was registered by other means since the snapshot was taken
+        try {
+            final String uri = registry.getURI(prefix);
+            if (current != null) {
+                invalidateNamespaces();
+            }
+            return uri;
+        } catch (final NamespaceException e) {
+            throw e;
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
+    /**
+     * Note that a namespace or node type has been registered, so that the next lookup
+     * takes a fresh snapshot of the namespace registry.
+     */
+    public static void invalidateNamespaces() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Get the number of times namespaces have been invalidated, so that anything derived
+     * from namespaces or node types may be recorded against it.
+     *
+     * @return the namespace generation
+     */
+    public static long getNamespaceGeneration() {
+        return generation.get();
+    }
+
+    /*
+     * The current snapshot of the session's repository's namespace registry, or
+     * null if the session does not identify its repository.
+     */
+    private static NamespaceSnapshot getSnapshot(final Session session) {
+        final Repository repository = session.getRepository();
+        if (repository == null) {
+            return null;
+        }
+        final NamespaceSnapshot current = snapshot;
+        final long latest = generation.get();
+        if (current != null && current.repository == repository && current.generation == latest) {
+            return current;
+        }
+        final NamespaceSnapshot fresh = new NamespaceSnapshot(repository, latest, getNamespaceRegistry(session));
+        snapshot = fresh;
+        return fresh;
+    }
+
+    private static Map<String, String> readNamespaces(final NamespaceRegistry registry,
+            final Predicate<String> include) {
         final Map<String, String> namespaces = new HashMap<>();
 
         try {
-            stream(registry.getPrefixes()).filter(internalPrefix.negate()).forEach(x -> {
+            stream(registry.getPrefixes()).filter(include).forEach(x -> {
                 try {
                     namespaces.put(x, registry.getURI(x));
                 } catch (final RepositoryException e) {
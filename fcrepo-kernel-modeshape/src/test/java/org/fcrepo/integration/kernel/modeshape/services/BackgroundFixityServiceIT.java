@@ -0,0 +1,207 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.integration.kernel.modeshape.services;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static com.jayway.awaitility.Duration.ONE_HUNDRED_MILLISECONDS;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.fcrepo.kernel.api.FedoraTypes.CONTENT_DIGEST;
+import static org.fcrepo.kernel.api.FedoraTypes.DEFAULT_DIGEST_ALGORITHM;
+import static org.fcrepo.kernel.api.observer.EventType.FIXITY_FAILURE;
+import static org.fcrepo.kernel.api.observer.EventType.RESOURCE_CREATION;
+import static org.fcrepo.kernel.api.observer.EventType.RESOURCE_MODIFICATION;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FEDORA_FIXITY_LAST_CHECKED;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FEDORA_FIXITY_RESULT;
+import static org.fcrepo.kernel.modeshape.FedoraSessionImpl.getJcrSession;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.inject.Inject;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+import org.fcrepo.integration.kernel.modeshape.AbstractIT;
+import org.fcrepo.kernel.api.FedoraRepository;
+import org.fcrepo.kernel.api.FedoraSession;
+import org.fcrepo.kernel.api.exception.InvalidChecksumException;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.observer.EventType;
+import org.fcrepo.kernel.api.observer.FedoraEvent;
+import org.fcrepo.kernel.api.services.BinaryService;
+import org.fcrepo.kernel.api.services.ContainerService;
+import org.fcrepo.kernel.modeshape.services.BackgroundFixityService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * @author agent
+ */
+@ContextConfiguration({"/spring-test/eventing.xml", "/spring-test/repo.xml"})
+public class BackgroundFixityServiceIT extends AbstractIT {
+
+    private final List<FedoraEvent> events = new CopyOnWriteArrayList<>();
+
+    @Inject
+    private FedoraRepository repository;
+
+    @Inject
+    private EventBus eventBus;
+
+    @Inject
+    private BinaryService binaryService;
+
+    @Inject
+    private ContainerService containerService;
+
+    private BackgroundFixityService service;
+
+    @Before
+    public void setUp() {
+        service = new BackgroundFixityService(2, 1024 * 1024, 90, 10, 24 * 60);
+        setField(service, "repository", repository);
+        setField(service, "eventBus", eventBus);
+        service.start();
+        eventBus.register(this);
+    }
+
+    @After
+    public void tearDown() {
+        eventBus.unregister(this);
+        service.stop();
+    }
+
+    @Subscribe
+    public void collect(final FedoraEvent e) {
+        events.add(e);
+    }
+
+    @Test
+    public void testAudit() throws RepositoryException, InvalidChecksumException {
+        createBinary("/testFixityAudit", "good content");
+        createBinary("/testFixityAuditBad", "bad content");
+
+        FedoraSession session = repository.login();
+        try {
+            getJcrSession(session).getNode("/testFixityAuditBad/jcr:content").setProperty(CONTENT_DIGEST,
+                    new String[] { "urn:sha1:0000000000000000000000000000000000000000" });
+            session.commit();
+        } finally {
+            session.expire();
+        }
+        awaitEvent("/testFixityAudit", RESOURCE_CREATION);
+        awaitEvent("/testFixityAuditBad", RESOURCE_MODIFICATION);
+        events.clear();
+
+        service.audit();
+
+        session = repository.login();
+        try {
+            final Node good = getJcrSession(session).getNode("/testFixityAudit/jcr:content");
+            assertTrue(good.hasProperty(FEDORA_FIXITY_LAST_CHECKED));
+            assertEquals("SUCCESS", good.getProperty(FEDORA_FIXITY_RESULT).getValues()[0].getString());
+            final Node bad = getJcrSession(session).getNode("/testFixityAuditBad/jcr:content");
+            assertEquals("BAD_CHECKSUM", bad.getProperty(FEDORA_FIXITY_RESULT).getValues()[0].getString());
+        } finally {
+            session.expire();
+        }
+
+        awaitEvent("/testFixityAuditBad", FIXITY_FAILURE);
+
+        // events are delivered in order, so once this one arrives any from the audit would have too
+        session = repository.login();
+        try {
+            containerService.findOrCreate(session, "/testFixityAuditMarker");
+            session.commit();
+        } finally {
+            session.expire();
+        }
+        awaitEvent("/testFixityAuditMarker", RESOURCE_CREATION);
+
+        assertFalse("Recording fixity should not modify the binary", events.stream().anyMatch(evt ->
+                evt.getPath().equals("/testFixityAudit") && evt.getTypes().contains(RESOURCE_MODIFICATION)));
+        assertFalse("Good binary should not fail", events.stream().anyMatch(evt ->
+                evt.getPath().equals("/testFixityAudit") && evt.getTypes().contains(FIXITY_FAILURE)));
+    }
+
+    @Test
+    public void testAuditRecordsUnreadableBinary() throws RepositoryException, InvalidChecksumException {
+        createBinary("/testFixityAuditUnreadable", "content");
+        // a digest in an algorithm the JVM does not provide cannot be checked
+        FedoraSession session = repository.login();
+        try {
+            final Node content = getJcrSession(session).getNode("/testFixityAuditUnreadable/jcr:content");
+            content.setProperty(DEFAULT_DIGEST_ALGORITHM, "NONE");
+            content.setProperty(CONTENT_DIGEST, new String[] { "urn:unknown:0000" });
+            session.commit();
+        } finally {
+            session.expire();
+        }
+        awaitEvent("/testFixityAuditUnreadable", RESOURCE_MODIFICATION);
+
+        service.audit();
+
+        session = repository.login();
+        try {
+            final Node node = getJcrSession(session).getNode("/testFixityAuditUnreadable/jcr:content");
+            assertTrue(node.hasProperty(FEDORA_FIXITY_LAST_CHECKED));
+            assertEquals("ERROR", node.getProperty(FEDORA_FIXITY_RESULT).getValues()[0].getString());
+        } finally {
+            session.expire();
+        }
+        awaitEvent("/testFixityAuditUnreadable", FIXITY_FAILURE);
+    }
+
+    @Test
+    public void testNextBatchLeavesOutSkipped() throws InvalidChecksumException {
+        createBinary("/testFixityAuditSkipped", "content");
+
+        final List<String> batch = invokeMethod(service, "nextBatch", singleton("/testFixityAuditSkipped/jcr:content"));
+        assertFalse(batch.contains("/testFixityAuditSkipped/jcr:content"));
+    }
+
+    private void createBinary(final String path, final String content)
+            throws InvalidChecksumException {
+        final FedoraSession session = repository.login();
+        try {
+            final FedoraBinary binary = binaryService.findOrCreate(session, path);
+            binary.setContent(new ByteArrayInputStream(content.getBytes()), "text/plain", null, null, null);
+            session.commit();
+        } finally {
+            session.expire();
+        }
+    }
+
+    private void awaitEvent(final String path, final EventType eventType) {
+        await().atMost(5, SECONDS).pollInterval(ONE_HUNDRED_MILLISECONDS).until(() -> events.stream().anyMatch(evt ->
+                evt.getPath().equals(path) && evt.getTypes().contains(eventType)));
+    }
+}
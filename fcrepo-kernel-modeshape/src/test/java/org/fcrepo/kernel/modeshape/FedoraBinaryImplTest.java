@@ -21,13 +21,22 @@ import org.apache.tika.io.IOUtils;
 import org.fcrepo.kernel.api.FedoraTypes;
 import org.fcrepo.kernel.api.models.FedoraBinary;
 import org.fcrepo.kernel.api.exception.InvalidChecksumException;
+import org.fcrepo.kernel.api.utils.ContentDigest;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.modeshape.jcr.JcrRepository;
+import org.modeshape.jcr.RepositoryConfiguration;
+import org.modeshape.jcr.RepositoryConfiguration.BinaryStorage;
 import org.modeshape.jcr.api.ValueFactory;
+import org.modeshape.jcr.value.BinaryKey;
+import org.modeshape.jcr.value.binary.FileSystemBinaryStore;
+import org.modeshape.jcr.value.binary.StoredBinaryValue;
 
 import javax.jcr.Node;
 import javax.jcr.Property;
@@ -35,21 +44,33 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.nodetype.NodeType;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Calendar;
+import java.util.HashSet;
 import java.time.Instant;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.apache.commons.io.FileUtils.write;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.fcrepo.kernel.api.utils.ContentDigest.DIGEST_ALGORITHM.MD5;
+import static org.fcrepo.kernel.api.utils.ContentDigest.DIGEST_ALGORITHM.SHA256;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getJcrNode;
 import static org.fcrepo.kernel.modeshape.utils.TestHelpers.checksumString;
 import static org.fcrepo.kernel.modeshape.utils.TestHelpers.getContentNodeMock;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
@@ -69,6 +90,9 @@ public class FedoraBinaryImplTest implements FedoraTypes {
 
     private FedoraBinary testObj;
 
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
     @Mock
     private Session mockSession;
 
@@ -164,6 +188,84 @@ public class FedoraBinaryImplTest implements FedoraTypes {
         verify(mockContent).setProperty(FILENAME, "xyz");
     }
 
+    @Test
+    public void testSetContentWithChecksums() throws RepositoryException, InvalidChecksumException {
+        final org.modeshape.jcr.api.Binary mockBin = mockBinaryForContent();
+        final String content = "0123456789";
+        final URI md5 = ContentDigest.asURI(MD5.algorithm, md5Hex(content));
+        final URI sha256 = ContentDigest.asURI(SHA256.algorithm, sha256Hex(content));
+        testObj.setContent(new ByteArrayInputStream(content.getBytes()), null,
+                new HashSet<>(asList(md5, sha256)), null, null);
+        verify(mockBin, never()).getStream();
+    }
+
+    @Test(expected = InvalidChecksumException.class)
+    public void testSetContentWithMd5Mismatch() throws RepositoryException, InvalidChecksumException {
+        mockBinaryForContent();
+        testObj.setContent(new ByteArrayInputStream("0123456789".getBytes()), null,
+                singleton(ContentDigest.asURI(MD5.algorithm, md5Hex("9876543210"))), null, null);
+    }
+
+    private org.modeshape.jcr.api.Binary mockBinaryForContent() throws RepositoryException {
+        final org.modeshape.jcr.api.Binary mockBin = mock(org.modeshape.jcr.api.Binary.class);
+        getContentNodeMock(mockContent, 8);
+        when(mockDsNode.getNode(JCR_CONTENT)).thenReturn(mockContent);
+        when(mockSession.getValueFactory()).thenReturn(mockVF);
+        // ModeShape consumes and closes the stream it is given
+        when(mockVF.createBinary(any(InputStream.class), any(String.class))).thenAnswer(invocation -> {
+            try (final InputStream in = (InputStream) invocation.getArguments()[0]) {
+                IOUtils.toByteArray(in);
+            }
+            return mockBin;
+        });
+        final Property mockData = mock(Property.class);
+        when(mockContent.setProperty(JCR_DATA, mockBin)).thenReturn(mockData);
+        when(mockContent.getProperty(JCR_DATA)).thenReturn(mockData);
+        when(mockData.getBinary()).thenReturn(mockBin);
+        return mockBin;
+    }
+
+    @Test
+    public void testGetContentFile() throws Exception {
+        final String key = "0123456789abcdef0123456789abcdef01234567";
+        final File file = FedoraBinaryImpl.contentFile(tmpDir.getRoot(), key);
+        assertEquals(new File(tmpDir.getRoot(), "01/23/45/" + key), file);
+        file.getParentFile().mkdirs();
+        write(file, "0123456789", UTF_8);
+        final StoredBinaryValue mockBin = mockStoredBinary("file", key, 10L);
+        assertEquals(file, testObj.getContentFile());
+
+        when(mockBin.getSize()).thenReturn(11L);
+        assertNull("A file that does not hold the binary should not be used", testObj.getContentFile());
+    }
+
+    @Test
+    public void testGetContentFileFromOtherStore() throws Exception {
+        mockStoredBinary("database", "0123456789abcdef0123456789abcdef01234567", 10L);
+        assertNull(testObj.getContentFile());
+    }
+
+    private StoredBinaryValue mockStoredBinary(final String type, final String key, final long size)
+            throws Exception {
+        final StoredBinaryValue mockBin = mock(StoredBinaryValue.class);
+        when(mockBin.getKey()).thenReturn(new BinaryKey(key));
+        when(mockBin.getSize()).thenReturn(size);
+        final Property mockData = mock(Property.class);
+        when(mockContent.getProperty(JCR_DATA)).thenReturn(mockData);
+        when(mockData.getBinary()).thenReturn(mockBin);
+        final JcrRepository mockRepository = mock(JcrRepository.class);
+        final RepositoryConfiguration mockConfig = mock(RepositoryConfiguration.class);
+        final BinaryStorage mockStorage = mock(BinaryStorage.class);
+        final FileSystemBinaryStore mockStore = mock(FileSystemBinaryStore.class);
+        when(mockSession.getRepository()).thenReturn(mockRepository);
+        when(mockRepository.getConfiguration()).thenReturn(mockConfig);
+        when(mockConfig.getBinaryStorage()).thenReturn(mockStorage);
+        when(mockStorage.getType()).thenReturn(type);
+        when(mockStorage.getBinaryStore()).thenReturn(mockStore);
+        when(mockStore.getDirectory()).thenReturn(tmpDir.getRoot());
+        return mockBin;
+    }
+
     @Test(expected = InvalidChecksumException.class)
     public void testSetContentWithChecksumMismatch()
             throws RepositoryException, InvalidChecksumException,
@@ -19,7 +19,9 @@ package org.fcrepo.kernel.modeshape;
 
 import static org.apache.jena.graph.NodeFactory.createURI;
 import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.util.Arrays.asList;
 import static java.util.Calendar.JULY;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.codec.digest.DigestUtils.sha1Hex;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_PAIRTREE;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_TOMBSTONE;
@@ -32,15 +34,18 @@ import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.JCR_LASTMODIFIED;
 import static org.fcrepo.kernel.modeshape.RdfJcrLexicon.JCR_NAMESPACE;
 import static org.fcrepo.kernel.modeshape.testutilities.TestNodeIterator.nodeIterator;
 import static org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils.getJcrNode;
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.invalidateNamespaces;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
@@ -67,12 +72,14 @@ import javax.jcr.version.VersionManager;
 
 import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.api.exception.MalformedRdfException;
+import org.fcrepo.kernel.api.models.ChildrenPage;
 import org.fcrepo.kernel.api.models.FedoraResource;
 import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
 import org.fcrepo.kernel.api.RdfStream;
 import org.fcrepo.kernel.modeshape.rdf.JcrRdfTools;
 import org.fcrepo.kernel.modeshape.rdf.impl.DefaultIdentifierTranslator;
 import org.fcrepo.kernel.modeshape.testutilities.TestPropertyIterator;
+import org.fcrepo.kernel.modeshape.utils.FedoraTypesUtils;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -241,6 +248,36 @@ public class FedoraResourceImplTest {
         assertEquals(modDate.getTimeInMillis(), actual.toEpochMilli());
     }
 
+    @Test
+    public void testMetadataIsMemoized() throws RepositoryException {
+        final Calendar modDate = Calendar.getInstance();
+        when(mockNode.hasProperty(FEDORA_LASTMODIFIED)).thenReturn(true);
+        when(mockNode.getProperty(FEDORA_LASTMODIFIED)).thenReturn(mockProp);
+        when(mockProp.getDate()).thenReturn(modDate);
+        final String etag = testObj.getEtagValue();
+        assertEquals(etag, testObj.getEtagValue());
+        assertEquals(modDate.getTimeInMillis(), testObj.getLastModifiedDate().toEpochMilli());
+        verify(mockProp).getDate();
+
+        modDate.add(Calendar.DATE, 1);
+        when(mockSession.hasPendingChanges()).thenReturn(true);
+        assertEquals(modDate.getTimeInMillis(), testObj.getLastModifiedDate().toEpochMilli());
+        assertNotEquals("Unsaved changes should not be hidden by the memo", etag, testObj.getEtagValue());
+        verify(mockProp, times(3)).getDate();
+    }
+
+    @Test
+    public void testMemoIsInvalidatedOnChange() throws RepositoryException {
+        when(mockNode.isNodeType("mix:versionable")).thenReturn(false);
+        assertFalse(testObj.hasType("mix:versionable"));
+        assertFalse(testObj.hasType("mix:versionable"));
+        verify(mockNode).isNodeType("mix:versionable");
+
+        when(mockNode.isNodeType("mix:versionable")).thenReturn(true);
+        testObj.enableVersioning();
+        assertTrue(testObj.hasType("mix:versionable"));
+    }
+
     @Test
     public void testTouch() throws RepositoryException {
         // test existing JCR_LASTMODIFIED
@@ -379,6 +416,54 @@ public class FedoraResourceImplTest {
                 .getEtagValue());
     }
 
+    @Test
+    public void testTypeSummaryIsShared() throws RepositoryException {
+        final Workspace mockWorkspace = mock(Workspace.class);
+        final NamespaceRegistry mockNamespaceRegistry = mock(NamespaceRegistry.class);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockWorkspace.getNamespaceRegistry()).thenReturn(mockNamespaceRegistry);
+        when(mockNamespaceRegistry.getURI("test")).thenReturn("http://example.org/test#");
+        when(mockNode.getPrimaryNodeType()).thenReturn(mockPrimaryNodeType);
+        when(mockPrimaryNodeType.getName()).thenReturn("test:sharedPrimaryType");
+        when(mockPrimaryNodeType.getSupertypes()).thenReturn(new NodeType[] {});
+        when(mockNode.getMixinNodeTypes()).thenReturn(new NodeType[] {});
+
+        final Node otherNode = mock(Node.class);
+        when(otherNode.getSession()).thenReturn(mockSession);
+        when(otherNode.getPath()).thenReturn("/other");
+        when(otherNode.getPrimaryNodeType()).thenReturn(mockPrimaryNodeType);
+        when(otherNode.getMixinNodeTypes()).thenReturn(new NodeType[] {});
+
+        final List<URI> types = testObj.getTypes();
+        assertEquals(types, new FedoraResourceImpl(otherNode).getTypes());
+        verify(mockPrimaryNodeType).getSupertypes();
+    }
+
+    @Test
+    public void testTypeSummaryIsRecomputedAfterNamespaceInvalidation() throws RepositoryException {
+        final Workspace mockWorkspace = mock(Workspace.class);
+        final NamespaceRegistry mockNamespaceRegistry = mock(NamespaceRegistry.class);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockWorkspace.getNamespaceRegistry()).thenReturn(mockNamespaceRegistry);
+        when(mockNamespaceRegistry.getURI("test")).thenReturn("http://example.org/test#");
+        when(mockNode.getPrimaryNodeType()).thenReturn(mockPrimaryNodeType);
+        when(mockPrimaryNodeType.getName()).thenReturn("test:remappedPrimaryType");
+        when(mockPrimaryNodeType.getSupertypes()).thenReturn(new NodeType[] {});
+        when(mockNode.getMixinNodeTypes()).thenReturn(new NodeType[] {});
+
+        final Node otherNode = mock(Node.class);
+        when(otherNode.getSession()).thenReturn(mockSession);
+        when(otherNode.getPath()).thenReturn("/other");
+        when(otherNode.getPrimaryNodeType()).thenReturn(mockPrimaryNodeType);
+        when(otherNode.getMixinNodeTypes()).thenReturn(new NodeType[] {});
+
+        assertTrue(testObj.getTypes().contains(URI.create("http://example.org/test#remappedPrimaryType")));
+        when(mockNamespaceRegistry.getURI("test")).thenReturn("http://example.org/other#");
+        invalidateNamespaces();
+        assertTrue(new FedoraResourceImpl(otherNode).getTypes()
+                .contains(URI.create("http://example.org/other#remappedPrimaryType")));
+    }
+
     @Test
     public void testGetContainer() throws RepositoryException {
         when(mockNode.getParent()).thenReturn(mockContainer);
@@ -450,6 +535,70 @@ public class FedoraResourceImplTest {
         assertFalse("Expected an empty stream", children.findFirst().isPresent());
     }
 
+    @Test
+    public void testGetChildrenPages() throws RepositoryException {
+        final Node a = mockChild("a");
+        final Node b = mockChild("b");
+        final Node c = mockChild("c");
+        when(mockNode.getNodes()).thenAnswer(i -> nodeIterator(a, b, c));
+
+        final ChildrenPage first = testObj.getChildren(null, 2);
+        assertEquals(asList(a, b), nodesOf(first));
+        assertNotNull("Expected a cursor to the next page", first.getNextCursor());
+
+        final ChildrenPage second = testObj.getChildren(first.getNextCursor(), 2);
+        assertEquals(asList(c), nodesOf(second));
+        assertNull("Expected the last page", second.getNextCursor());
+    }
+
+    @Test
+    public void testGetChildrenPagesFlattensPairtrees() throws RepositoryException {
+        final Node a = mockChild("a");
+        final Node pairtree = mockChild("pt");
+        final Node b = mockChild("b");
+        final Node c = mockChild("c");
+        when(pairtree.isNodeType(FEDORA_PAIRTREE)).thenReturn(true);
+        when(pairtree.getNodes()).thenAnswer(i -> nodeIterator(b, c));
+        when(mockNode.getNodes()).thenAnswer(i -> nodeIterator(a, pairtree));
+
+        final ChildrenPage first = testObj.getChildren(null, 2);
+        assertEquals(asList(a, b), nodesOf(first));
+
+        final ChildrenPage second = testObj.getChildren(first.getNextCursor(), 2);
+        assertEquals(asList(c), nodesOf(second));
+        assertNull("Expected the last page", second.getNextCursor());
+    }
+
+    @Test
+    public void testGetChildrenPageResumesAfterRemovedSibling() throws RepositoryException {
+        final Node a = mockChild("a");
+        final Node b = mockChild("b");
+        final Node c = mockChild("c");
+        when(mockNode.getNodes()).thenAnswer(i -> nodeIterator(a, b, c));
+        final String cursor = testObj.getChildren(null, 2).getNextCursor();
+
+        when(mockNode.getNodes()).thenAnswer(i -> nodeIterator(b, c));
+        final ChildrenPage next = testObj.getChildren(cursor, 2);
+        assertEquals(asList(c), nodesOf(next));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetChildrenPageWithBadCursor() throws RepositoryException {
+        when(mockNode.getNodes()).thenAnswer(i -> nodeIterator());
+        testObj.getChildren("not a cursor!", 2);
+    }
+
+    private static List<Node> nodesOf(final ChildrenPage page) {
+        return page.getChildren().stream().map(FedoraTypesUtils::getJcrNode).collect(toList());
+    }
+
+    private static Node mockChild(final String name) throws RepositoryException {
+        final Node child = mock(Node.class);
+        when(child.getName()).thenReturn(name);
+        when(child.getPath()).thenReturn("/" + name);
+        return child;
+    }
+
     @Test
     public void testHasProperty() throws RepositoryException {
         when(mockNode.hasProperty("xyz")).thenReturn(true);
@@ -21,6 +21,8 @@ import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_BINARY;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_NON_RDF_SOURCE_DESCRIPTION;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_CONTAINER;
 import static org.fcrepo.kernel.api.FedoraTypes.FEDORA_RESOURCE;
+import static org.fcrepo.kernel.api.observer.OptionalValues.USER_AGENT;
+import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.FIXITY_AUDIT;
 import static org.fcrepo.kernel.modeshape.FedoraJcrConstants.ROOT;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -107,6 +109,22 @@ public class DefaultFilterTest {
         assertTrue(testObj.test(mockEvent));
     }
 
+    @Test
+    public void shouldNotApplyToFixityAudit() throws RepositoryException {
+        when(mockEvent.getPrimaryNodeType()).thenReturn(modeshapeFolderType);
+        when(mockEvent.getMixinNodeTypes()).thenReturn(new NodeType[] { fedoraBinary });
+        when(mockEvent.getUserData()).thenReturn("{\"" + FIXITY_AUDIT + "\":\"true\"}");
+        assertFalse(testObj.test(mockEvent));
+    }
+
+    @Test
+    public void shouldApplyToClientNamedLikeFixityAudit() throws RepositoryException {
+        when(mockEvent.getPrimaryNodeType()).thenReturn(modeshapeFolderType);
+        when(mockEvent.getMixinNodeTypes()).thenReturn(new NodeType[] { fedoraBinary });
+        when(mockEvent.getUserData()).thenReturn("{\"" + USER_AGENT + "\":\"" + FIXITY_AUDIT + "\"}");
+        assertTrue(testObj.test(mockEvent));
+    }
+
     @Test
     public void shouldApplyToRoot() throws RepositoryException {
         when(mockEvent.getPrimaryNodeType()).thenReturn(modeshapeRootType);
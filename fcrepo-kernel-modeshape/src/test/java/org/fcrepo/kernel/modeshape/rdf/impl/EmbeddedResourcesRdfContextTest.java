@@ -0,0 +1,142 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.modeshape.rdf.impl;
+
+import static java.lang.Thread.currentThread;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.fcrepo.kernel.api.RequiredRdfContext.PROPERTIES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.jcr.Session;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Resource;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * EmbeddedResourcesRdfContextTest class.
+ *
+ * @author agent
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class EmbeddedResourcesRdfContextTest {
+
+    @Mock
+    private FedoraResource mockResource;
+
+    @Mock
+    private FedoraResource mockChild1;
+
+    @Mock
+    private FedoraResource mockChild2;
+
+    @Mock
+    private Session mockSession;
+
+    private IdentifierConverter<Resource, FedoraResource> idTranslator;
+
+    private static final Triple TRIPLE1 = triple("1");
+
+    private static final Triple TRIPLE2 = triple("2");
+
+    private static final Triple TRIPLE3 = triple("3");
+
+    @Before
+    public void setUp() {
+        idTranslator = new DefaultIdentifierTranslator(mockSession);
+        when(mockResource.getPath()).thenReturn("/parent");
+        when(mockChild1.getPath()).thenReturn("/parent/child1");
+        when(mockChild2.getPath()).thenReturn("/parent/child2");
+        when(mockResource.getChildren()).thenReturn(Stream.of(mockChild1, mockChild2));
+        when(mockChild1.getTriples(idTranslator, PROPERTIES)).thenReturn(
+                new DefaultRdfStream(TRIPLE1.getSubject(), Stream.of(TRIPLE1, TRIPLE2)));
+        when(mockChild2.getTriples(idTranslator, PROPERTIES)).thenReturn(
+                new DefaultRdfStream(TRIPLE3.getSubject(), Stream.of(TRIPLE3)));
+    }
+
+    @After
+    public void tearDown() {
+        EmbeddedResourcesRdfContext.pool = null;
+    }
+
+    @Test
+    public void testSequentialByDefault() throws Exception {
+        try (final EmbeddedResourcesRdfContext context = new EmbeddedResourcesRdfContext(mockResource,
+                idTranslator)) {
+            assertEquals(asList(TRIPLE1, TRIPLE2, TRIPLE3), context.collect(toList()));
+        }
+    }
+
+    @Test
+    public void testParallelKeepsChildOrder() throws Exception {
+        EmbeddedResourcesRdfContext.pool = new ForkJoinPool(4);
+        try (final EmbeddedResourcesRdfContext context = new EmbeddedResourcesRdfContext(mockResource,
+                idTranslator)) {
+            assertEquals(asList(TRIPLE1, TRIPLE2, TRIPLE3), context.collect(toList()));
+        }
+    }
+
+    @Test
+    public void testConvertAllOnPool() {
+        EmbeddedResourcesRdfContext.pool = new ForkJoinPool(4);
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final List<Supplier<List<Triple>>> children = range(0, 64).mapToObj(i -> (Supplier<List<Triple>>) () -> {
+            threads.add(currentThread());
+            return asList(triple(i + "a"), triple(i + "b"));
+        }).collect(toList());
+
+        final List<List<Triple>> converted = EmbeddedResourcesRdfContext.convertAll(children);
+
+        assertEquals(64, converted.size());
+        range(0, 64).forEach(i -> assertEquals(asList(triple(i + "a"), triple(i + "b")), converted.get(i)));
+        assertFalse("Children should be converted on the pool!", threads.contains(currentThread()));
+    }
+
+    @Test(expected = RepositoryRuntimeException.class)
+    public void testConvertAllRethrows() {
+        EmbeddedResourcesRdfContext.pool = new ForkJoinPool(2);
+        EmbeddedResourcesRdfContext.convertAll(asList(() -> asList(TRIPLE1), () -> {
+            throw new RepositoryRuntimeException("Expected");
+        }));
+    }
+
+    private static Triple triple(final String id) {
+        return new Triple(createURI("info:fedora/parent/" + id), createURI("info:test#p"), createURI("info:o"));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.modeshape.rdf.impl;
+
+import static java.time.Instant.ofEpochMilli;
+import static java.util.Collections.singletonList;
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.fcrepo.kernel.api.FedoraSession.IDENTITY;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.modeshape.FedoraResourceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * @author agent
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MembershipIndexTest {
+
+    @Mock
+    private FedoraResourceImpl mockContainer;
+
+    @Mock
+    private FedoraResourceImpl mockMembershipResource;
+
+    @Mock
+    private Node mockContainerNode;
+
+    @Mock
+    private Session mockSession;
+
+    private final AtomicInteger computed = new AtomicInteger();
+
+    private final Supplier<List<org.apache.jena.graph.Node>> compute = () -> {
+        computed.incrementAndGet();
+        return singletonList(createURI("info:fedora/member"));
+    };
+
+    @Before
+    public void setUp() throws RepositoryException {
+        when(mockContainer.getNode()).thenReturn(mockContainerNode);
+        when(mockContainerNode.getSession()).thenReturn(mockSession);
+        when(mockSession.getAttribute(IDENTITY)).thenReturn((Supplier<Object>) () -> "user");
+        when(mockContainer.getLastModifiedDate()).thenReturn(ofEpochMilli(1));
+        when(mockMembershipResource.getLastModifiedDate()).thenReturn(ofEpochMilli(2));
+    }
+
+    @After
+    public void tearDown() {
+        MembershipIndex.clear();
+    }
+
+    @Test
+    public void testMembersAreIndexed() throws RepositoryException {
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        assertEquals(singletonList(createURI("info:fedora/member")),
+                MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute));
+        assertEquals(1, computed.get());
+    }
+
+    @Test
+    public void testTouchedMembershipResourceIsRecomputed() throws RepositoryException {
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        when(mockMembershipResource.getLastModifiedDate()).thenReturn(ofEpochMilli(3));
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    public void testOtherIdentitiesAreNotShared() throws RepositoryException {
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        when(mockSession.getAttribute(IDENTITY)).thenReturn((Supplier<Object>) () -> "other");
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    public void testUnknownIdentityIsNotIndexed() throws RepositoryException {
+        when(mockSession.getAttribute(IDENTITY)).thenReturn(null);
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        when(mockSession.getAttribute(IDENTITY)).thenReturn((Supplier<Object>) () -> null);
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    public void testPendingChangesAreNotIndexed() throws RepositoryException {
+        when(mockSession.hasPendingChanges()).thenReturn(true);
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        MembershipIndex.members(mockContainer, mockMembershipResource, () -> "info:fedora/container", compute);
+        assertEquals(2, computed.get());
+    }
+}
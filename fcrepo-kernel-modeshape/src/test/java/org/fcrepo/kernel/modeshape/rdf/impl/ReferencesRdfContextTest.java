@@ -22,6 +22,7 @@ import org.fcrepo.kernel.modeshape.FedoraResourceImpl;
 import org.fcrepo.kernel.modeshape.testutilities.TestPropertyIterator;
 import org.junit.Before;
 import org.junit.Test;
+import org.modeshape.jcr.api.NamespaceRegistry;
 import org.mockito.Mock;
 
 import javax.jcr.Node;
@@ -30,13 +31,21 @@ import javax.jcr.PropertyIterator;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Value;
+import javax.jcr.Workspace;
 
 import static org.apache.jena.rdf.model.ResourceFactory.createProperty;
 import static org.apache.jena.rdf.model.ResourceFactory.createResource;
 import static javax.jcr.PropertyType.REFERENCE;
 import static javax.jcr.PropertyType.WEAKREFERENCE;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_HAS_MEMBER_RELATION;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_INDIRECT_CONTAINER;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_INSERTED_CONTENT_RELATION;
+import static org.fcrepo.kernel.api.FedoraTypes.LDP_MEMBER_RESOURCE;
 import static org.fcrepo.kernel.api.RdfCollectors.toModel;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -133,4 +142,44 @@ public class ReferencesRdfContextTest {
     }
 
 
+    @Test
+    public void testIndirectContainerMembership() throws RepositoryException {
+        final Node mockContainerNode = mock(Node.class);
+        final Node mockMembershipNode = mock(Node.class);
+        final Property mockMembershipResource = mock(Property.class);
+        final Property mockInsertedContentRelation = mock(Property.class);
+        final Property mockMemberRelation = mock(Property.class);
+        final Workspace mockWorkspace = mock(Workspace.class);
+        final NamespaceRegistry mockNamespaceRegistry = mock(NamespaceRegistry.class);
+
+        when(mockPropertyParent.getDepth()).thenReturn(2);
+        when(mockPropertyParent.getParent()).thenReturn(mockContainerNode);
+        when(mockPropertyParent.getSession()).thenReturn(mockSession);
+        when(mockPropertyParent.hasProperty("info:strong")).thenReturn(true);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockWorkspace.getNamespaceRegistry()).thenReturn(mockNamespaceRegistry);
+        when(mockNamespaceRegistry.isRegisteredUri("info:")).thenReturn(true);
+        when(mockNamespaceRegistry.getPrefix("info:")).thenReturn("info");
+
+        when(mockContainerNode.isNodeType(LDP_INDIRECT_CONTAINER)).thenReturn(true);
+        when(mockContainerNode.hasProperty(LDP_MEMBER_RESOURCE)).thenReturn(true);
+        when(mockContainerNode.getProperty(LDP_MEMBER_RESOURCE)).thenReturn(mockMembershipResource);
+        when(mockMembershipResource.getType()).thenReturn(REFERENCE);
+        when(mockMembershipResource.getNode()).thenReturn(mockMembershipNode);
+        when(mockMembershipNode.getPath()).thenReturn("/m");
+        when(mockContainerNode.hasProperty(LDP_INSERTED_CONTENT_RELATION)).thenReturn(true);
+        when(mockContainerNode.getProperty(LDP_INSERTED_CONTENT_RELATION)).thenReturn(mockInsertedContentRelation);
+        when(mockInsertedContentRelation.getString()).thenReturn("info:strong");
+        when(mockContainerNode.hasProperty(LDP_HAS_MEMBER_RELATION)).thenReturn(true);
+        when(mockContainerNode.getProperty(LDP_HAS_MEMBER_RELATION)).thenReturn(mockMemberRelation);
+        when(mockMemberRelation.getString()).thenReturn("info:hasMember");
+
+        final Model model = testObj.collect(toModel());
+        assertTrue(model.contains(createResource("info:fedora/m"),
+                createProperty("info:hasMember"),
+                createResource("info:fedora/a")));
+        assertFalse("Only the inserted content relation should assert membership",
+                model.contains(null, createProperty("info:hasMember"), createResource("info:fedora/b")));
+        assertEquals(3, model.size());
+    }
 }
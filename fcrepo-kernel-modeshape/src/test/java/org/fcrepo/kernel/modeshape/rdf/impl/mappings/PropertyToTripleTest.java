@@ -32,6 +32,8 @@ import static javax.jcr.PropertyType.STRING;
 import static javax.jcr.PropertyType.URI;
 import static org.fcrepo.kernel.modeshape.identifiers.NodeResourceConverter.nodeToResource;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -39,6 +41,7 @@ import static org.slf4j.LoggerFactory.getLogger;
 import java.math.BigDecimal;
 import java.util.Calendar;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import javax.jcr.AccessDeniedException;
@@ -331,6 +334,27 @@ public class PropertyToTripleTest {
                 .getSubject());
     }
 
+    @Test
+    public void testDeferResolvesReferencesEagerly() throws RepositoryException {
+
+        when(mockProperty.isMultiple()).thenReturn(true);
+        when(mockProperty.getType()).thenReturn(REFERENCE);
+        when(mockProperty.getValues()).thenReturn(new Value[] {mockValue, mockValue2});
+        when(mockValue.getString()).thenReturn(TEST_NODE_PATH);
+        when(mockValue.getType()).thenReturn(REFERENCE);
+        when(mockValue2.getString()).thenReturn(TEST_VALUE);
+        when(mockValue2.getType()).thenReturn(STRING);
+        when(mockSession.getNodeByIdentifier(TEST_NODE_PATH)).thenReturn(mockNode);
+
+        final List<Supplier<Triple>> deferred = testPropertyToTriple.defer(mockProperty);
+        verify(mockSession).getNodeByIdentifier(TEST_NODE_PATH);
+        verify(mockValue2, never()).getString();
+
+        assertEquals("Got wrong number of triples!", 2, deferred.size());
+        assertEquals("Got wrong RDF object!", testSubject, deferred.get(0).get().getObject());
+        assertEquals("Got wrong RDF object!", TEST_VALUE, deferred.get(1).get().getObject().getLiteralValue());
+    }
+
     @Test(expected = RepositoryException.class)
     public void badProperty() throws AccessDeniedException,
                              ItemNotFoundException, RepositoryException {
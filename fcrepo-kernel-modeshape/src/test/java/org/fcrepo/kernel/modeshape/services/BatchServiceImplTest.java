@@ -25,12 +25,11 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.lang.reflect.Field;
 import java.time.Instant;
-import java.util.Map;
 
 import javax.jcr.NamespaceException;
 import javax.jcr.RepositoryException;
@@ -79,22 +78,18 @@ public class BatchServiceImplTest {
         service = new BatchServiceImpl();
         when(mockTx.getId()).thenReturn(IS_A_TX);
         when(mockTx.getUserId()).thenReturn(null);
-        final Field txsField =
-                BatchServiceImpl.class.getDeclaredField("sessions");
-        txsField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        final Map<String, FedoraSession> txs =
-                (Map<String, FedoraSession>) txsField
-                        .get(BatchService.class);
-        txs.put(":" + IS_A_TX, mockTx);
+        when(mockTx.getExpires()).thenReturn(of(now().plusSeconds(180)));
+        service.begin(mockTx);
     }
 
     @Test
     public void testExpiration() {
         final Instant fiveSecondsAgo = now().minusSeconds(5);
         when(mockTx.getExpires()).thenReturn(of(fiveSecondsAgo));
+        service.begin(mockTx);
         service.removeExpired();
         verify(mockTx).expire();
+        assertFalse(service.exists(IS_A_TX));
     }
 
     @Test
@@ -102,7 +97,28 @@ public class BatchServiceImplTest {
         final Instant fiveSecondsAgo = now().minusSeconds(5);
         doThrow(new RepositoryRuntimeException("")).when(mockTx).expire();
         when(mockTx.getExpires()).thenReturn(of(fiveSecondsAgo));
+        service.begin(mockTx);
         service.removeExpired();
+        assertFalse(service.exists(IS_A_TX));
+    }
+
+    @Test
+    public void testExtendedSessionIsNotExpired() {
+        when(mockTx.getExpires()).thenReturn(of(now().minusSeconds(5)));
+        service.begin(mockTx);
+        when(mockTx.getExpires()).thenReturn(of(now().plusSeconds(180)));
+        service.removeExpired();
+        verify(mockTx, never()).expire();
+        assertTrue(service.exists(IS_A_TX));
+    }
+
+    @Test
+    public void testCommittedSessionIsNotExpired() {
+        when(mockTx.getExpires()).thenReturn(of(now().minusSeconds(5)));
+        service.begin(mockTx);
+        service.commit(IS_A_TX);
+        service.removeExpired();
+        verify(mockTx, never()).expire();
     }
 
     @Test
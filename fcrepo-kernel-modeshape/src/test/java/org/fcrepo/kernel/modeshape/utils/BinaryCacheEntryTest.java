@@ -17,18 +17,25 @@
  */
 package org.fcrepo.kernel.modeshape.utils;
 
+import org.fcrepo.kernel.api.utils.FixityResult;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.modeshape.jcr.value.BinaryKey;
+import org.modeshape.jcr.value.BinaryValue;
+import org.modeshape.jcr.value.binary.ExternalBinaryValue;
 
 import javax.jcr.Binary;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -75,4 +82,60 @@ public class BinaryCacheEntryTest {
     public void testGetExternalIdentifier() {
         assertEquals("/some/path", testObj.getExternalIdentifier());
     }
+
+    @Test
+    public void testCheckFixityIsRemembered() throws RepositoryException {
+        final BinaryValue mockStoredBinary = mockContent(mock(BinaryValue.class), "remembered");
+        when(mockStoredBinary.getKey()).thenReturn(new BinaryKey("1eebdf4fdc9fc7bf283031b93f9aef3338de9052"));
+        when(mockProperty.getBinary()).thenReturn(mockStoredBinary);
+
+        final FixityResult first = testObj.checkFixity("SHA-1").iterator().next();
+        final FixityResult second = testObj.checkFixity("SHA-1").iterator().next();
+
+        verify(mockStoredBinary).getStream();
+        assertEquals(first.getComputedChecksum(), second.getComputedChecksum());
+        assertEquals(first.getComputedSize(), second.getComputedSize());
+        assertEquals("/some/path", second.getStoreIdentifier());
+    }
+
+    @Test
+    public void testCheckFixityForced() throws RepositoryException {
+        final BinaryValue mockStoredBinary = mockContent(mock(BinaryValue.class), "forced");
+        when(mockStoredBinary.getKey()).thenReturn(new BinaryKey("2eebdf4fdc9fc7bf283031b93f9aef3338de9052"));
+        when(mockProperty.getBinary()).thenReturn(mockStoredBinary);
+
+        testObj.checkFixity("SHA-1");
+        testObj.checkFixity("SHA-1", true);
+
+        verify(mockStoredBinary, times(2)).getStream();
+    }
+
+    @Test
+    public void testCheckFixityOfOtherAlgorithm() throws RepositoryException {
+        final BinaryValue mockStoredBinary = mockContent(mock(BinaryValue.class), "other");
+        when(mockStoredBinary.getKey()).thenReturn(new BinaryKey("3eebdf4fdc9fc7bf283031b93f9aef3338de9052"));
+        when(mockProperty.getBinary()).thenReturn(mockStoredBinary);
+
+        testObj.checkFixity("SHA-1");
+        testObj.checkFixity("MD5");
+
+        verify(mockStoredBinary, times(2)).getStream();
+    }
+
+    @Test
+    public void testCheckFixityOfExternalBinary() throws RepositoryException {
+        final ExternalBinaryValue mockExternalBinary = mockContent(mock(ExternalBinaryValue.class), "external");
+        when(mockExternalBinary.getKey()).thenReturn(new BinaryKey("4eebdf4fdc9fc7bf283031b93f9aef3338de9052"));
+        when(mockProperty.getBinary()).thenReturn(mockExternalBinary);
+
+        testObj.checkFixity("SHA-1");
+        testObj.checkFixity("SHA-1");
+
+        verify(mockExternalBinary, times(2)).getStream();
+    }
+
+    private static <T extends Binary> T mockContent(final T binary, final String content) throws RepositoryException {
+        when(binary.getStream()).thenAnswer(i -> new ByteArrayInputStream(content.getBytes()));
+        return binary;
+    }
 }
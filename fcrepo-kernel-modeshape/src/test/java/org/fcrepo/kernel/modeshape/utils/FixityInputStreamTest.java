@@ -17,9 +17,11 @@
  */
 package org.fcrepo.kernel.modeshape.utils;
 
+import static java.util.Arrays.asList;
 import static org.apache.commons.codec.binary.Hex.encodeHexString;
 import static org.apache.commons.io.output.NullOutputStream.NULL_OUTPUT_STREAM;
 import static org.apache.tika.io.IOUtils.copy;
+import static org.fcrepo.kernel.api.utils.ContentDigest.DIGEST_ALGORITHM.MD5;
 import static org.fcrepo.kernel.api.utils.ContentDigest.DIGEST_ALGORITHM.SHA1;
 import static org.junit.Assert.assertEquals;
 
@@ -48,4 +50,18 @@ public class FixityInputStreamTest {
                     encodeHexString(is.getMessageDigest().digest()));
         }
     }
+
+    @Test
+    public void MultipleDigestFixityInputStreamTest() throws NoSuchAlgorithmException, IOException {
+        try (final FixityInputStream is = new FixityInputStream(new ByteArrayInputStream("0123456789".getBytes()),
+                asList(MessageDigest.getInstance(SHA1.algorithm), MessageDigest.getInstance(MD5.algorithm)))) {
+            assertEquals('0', is.read());
+            copy(is, NULL_OUTPUT_STREAM);
+            assertEquals(10, is.getByteCount());
+            assertEquals("87acec17cd9dcd20a716cc2cf67417b71c8a7016",
+                    encodeHexString(is.getMessageDigests().get(0).digest()));
+            assertEquals("781e5e245d69b566979b86e28d23f2c7",
+                    encodeHexString(is.getMessageDigests().get(1).digest()));
+        }
+    }
 }
@@ -17,12 +17,22 @@
  */
 package org.fcrepo.kernel.modeshape.utils;
 
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.getNamespaceURI;
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.getNamespaces;
+import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.invalidateNamespaces;
 import static org.fcrepo.kernel.modeshape.utils.NamespaceTools.validatePath;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.util.Map;
+
 import javax.jcr.NamespaceException;
 import javax.jcr.Node;
+import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Workspace;
@@ -53,6 +63,9 @@ public class NamespaceToolsTest {
     @Mock
     private NamespaceRegistry mockNamespaceRegistry;
 
+    @Mock
+    private Repository mockRepository;
+
     @Before
     public void setUp() throws RepositoryException {
         initMocks(this);
@@ -97,4 +110,41 @@ public class NamespaceToolsTest {
         validatePath(mockSession, "test/a/broken:namespace-registry");
     }
 
+    @Test
+    public void testNamespacesAreSnapshotted() throws RepositoryException {
+        when(mockWork.getNamespaceRegistry()).thenReturn(mockNamespaceRegistry);
+        when(mockSession.getRepository()).thenReturn(mockRepository);
+        when(mockNamespaceRegistry.getPrefixes()).thenReturn(new String[] { "jcr", "test" });
+        when(mockNamespaceRegistry.getURI("jcr")).thenReturn("http://www.jcp.org/jcr/1.0");
+        when(mockNamespaceRegistry.getURI("test")).thenReturn("info:test#");
+        invalidateNamespaces();
+
+        final Map<String, String> namespaces = getNamespaces(mockSession);
+        assertEquals("Internal prefixes should be excluded", 1, namespaces.size());
+        assertEquals("info:test#", namespaces.get("test"));
+        assertSame(namespaces, getNamespaces(mockSession));
+        assertEquals("http://www.jcp.org/jcr/1.0", getNamespaceURI(mockSession, "jcr"));
+        validatePath(mockSession, "easy/test:valid");
+        verify(mockNamespaceRegistry, times(1)).getPrefixes();
+
+        when(mockNamespaceRegistry.getPrefixes()).thenReturn(new String[] { "test", "other" });
+        when(mockNamespaceRegistry.getURI("other")).thenReturn("info:other#");
+        invalidateNamespaces();
+        assertEquals("info:other#", getNamespaces(mockSession).get("other"));
+    }
+
+    @Test
+    public void testNamespaceRegisteredElsewhereIsFound() throws RepositoryException {
+        when(mockWork.getNamespaceRegistry()).thenReturn(mockNamespaceRegistry);
+        when(mockSession.getRepository()).thenReturn(mockRepository);
+        when(mockNamespaceRegistry.getPrefixes()).thenReturn(new String[] {});
+        invalidateNamespaces();
+        getNamespaces(mockSession);
+
+        when(mockNamespaceRegistry.getPrefixes()).thenReturn(new String[] { "late" });
+        when(mockNamespaceRegistry.getURI("late")).thenReturn("info:late#");
+        assertEquals("info:late#", getNamespaceURI(mockSession, "late"));
+        assertEquals("info:late#", getNamespaces(mockSession).get("late"));
+    }
+
 }